@@ -0,0 +1,122 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.customer.CustomerIdGenerator;
+import com.amigoscode.testing.customer.RandomCustomerIdGenerator;
+import com.amigoscode.testing.customer.TimeOrderedCustomerIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Insert throughput into a file-backed H2 customer table that already holds {@code preloadedRows} rows,
+ * with random (v4) versus time-ordered (v7) primary keys. The H2 page cache is kept small so the table
+ * outgrows memory; the disk space used by the table and its indexes is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CustomerIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"random", "time-ordered"})
+    private String generator;
+
+    @Param({"1000000"})
+    private int preloadedRows;
+
+    @Param({"8192"})
+    private int cacheSizeKb;
+
+    private Path directory;
+
+    private Connection connection;
+
+    private PreparedStatement insert;
+
+    private CustomerIdGenerator customerIdGenerator;
+
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("customer-id-benchmark");
+        connection = DriverManager.getConnection(
+                "jdbc:h2:" + directory.resolve("customers") + ";CACHE_SIZE=" + cacheSizeKb, "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table customer (" +
+                    "id uuid primary key, " +
+                    "name varchar(255) not null, " +
+                    "phone_number varchar(255) not null unique)");
+        }
+        connection.commit();
+
+        customerIdGenerator = "random".equals(generator)
+                ? new RandomCustomerIdGenerator()
+                : new TimeOrderedCustomerIdGenerator();
+        insert = connection.prepareStatement("insert into customer (id, name, phone_number) values (?, ?, ?)");
+
+        for (int i = 0; i < preloadedRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            UUID id = customerIdGenerator.generate();
+            insert.setObject(1, id);
+            insert.setString(2, "Customer");
+            insert.setString(3, "+" + sequence++);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("call disk_space_used('CUSTOMER')")) {
+            resultSet.next();
+            long bytes = resultSet.getLong(1);
+            System.out.printf("%n%s ids: %d rows, %.1f MiB used by customer table and indexes (%.1f bytes/row)%n",
+                    generator, sequence, bytes / (1024.0 * 1024.0), (double) bytes / sequence);
+        }
+        insert.close();
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
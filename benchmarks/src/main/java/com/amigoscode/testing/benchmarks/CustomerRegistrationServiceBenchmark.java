@@ -0,0 +1,89 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerETagCache;
+import com.amigoscode.testing.customer.CustomerRegistrationMetrics;
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.customer.CustomerRegistrationService;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberBloomFilter;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.customer.TimeOrderedCustomerIdGenerator;
+import com.amigoscode.testing.utils.PhoneNumberValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code CustomerRegistrationService.registerNewCustomer} without a database, for a new phone number each call: the
+ * number is validated, missed in the phone number index and the Bloom filter, given a time-ordered id, saved to an
+ * empty repository stub and added to the index, the filter and the ETag cache. The index and the filter start empty
+ * every iteration so that they stay the same size from one run to the next. Run with {@code -prof gc} and read
+ * {@code gc.alloc.rate.norm} for the bytes allocated per registration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerRegistrationServiceBenchmark {
+
+    private static final int INDEX_CAPACITY = 1 << 22;
+
+    private Path indexFile;
+
+    private PhoneNumberIndex phoneNumberIndex;
+
+    private CustomerRegistrationService registrationService;
+
+    private long nextPhoneNumber;
+
+    @Setup(Level.Trial)
+    public void setUpIndex() throws IOException {
+        indexFile = Files.createTempFile("customer-registration-benchmark-index", ".bin");
+        phoneNumberIndex = new PhoneNumberIndex(indexFile.toString(), INDEX_CAPACITY);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        phoneNumberIndex.clear();
+        PhoneNumberBloomFilter phoneNumberFilter = new PhoneNumberBloomFilter(INDEX_CAPACITY, 0.01);
+        phoneNumberFilter.markReady();
+        registrationService = new CustomerRegistrationService(
+                Stubs.emptyRepository(CustomerRepository.class),
+                new PhoneNumberValidator(),
+                phoneNumberFilter,
+                phoneNumberIndex,
+                new TimeOrderedCustomerIdGenerator(),
+                new CustomerETagCache(100_000),
+                new CustomerRegistrationMetrics(60_000, 60));
+        nextPhoneNumber = 0;
+    }
+
+    @Benchmark
+    public void registerNewCustomer() {
+        Customer customer = new Customer(null, "Customer", "+447" + (700_000_000 + nextPhoneNumber++));
+        registrationService.registerNewCustomer(new CustomerRegistrationRequest(customer));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        phoneNumberIndex.close();
+        Files.deleteIfExists(indexFile);
+    }
+}
@@ -0,0 +1,79 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.amigoscode.testing.payment.stripe.StripeApi;
+import com.amigoscode.testing.payment.stripe.StripeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stripe.model.Charge;
+import com.stripe.net.RequestOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The amount handling on one card charge, without the database: decoding the payment request, building the Stripe
+ * charge parameters against a Stripe API that always debits, and comparing and hashing the payment. Run with
+ * {@code -prof gc} and read {@code gc.alloc.rate.norm} for the bytes allocated per charge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentChargePathBenchmark {
+
+    private static final byte[] REQUEST = ("{\"payment\":{\"paymentId\":null," +
+            "\"customerId\":\"0b5a3c1e-7d2f-4a7e-9a51-3c7f0f2d9e10\",\"amount\":10.50,\"currency\":\"EUR\"," +
+            "\"source\":\"card\",\"description\":\"benchmark\"}}").getBytes(StandardCharsets.UTF_8);
+
+    private ObjectReader paymentRequestReader;
+
+    private StripeService stripeService;
+
+    private Payment previous;
+
+    @Setup
+    public void setUp() throws IOException {
+        paymentRequestReader = new ObjectMapper().readerFor(PaymentRequest.class);
+        Charge paid = new Charge();
+        paid.setPaid(true);
+        stripeService = new StripeService(new StripeApi("http://localhost", 1, 1000, 1000, 0) {
+            @Override
+            public Charge create(Map<String, Object> params, RequestOptions options) {
+                return paid;
+            }
+        });
+        previous = decode();
+    }
+
+    @Benchmark
+    public void chargeCard(Blackhole blackhole) throws IOException {
+        Payment payment = decode();
+        CardPaymentCharge charge = stripeService.chargeCard(
+                payment.getSource(), payment.getAmount(), payment.getDescription());
+        blackhole.consume(charge);
+        blackhole.consume(payment.equals(previous));
+        blackhole.consume(payment.hashCode());
+    }
+
+    private Payment decode() throws IOException {
+        return paymentRequestReader.<PaymentRequest>readValue(REQUEST).getPayment();
+    }
+}
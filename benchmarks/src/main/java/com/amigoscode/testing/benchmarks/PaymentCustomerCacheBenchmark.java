@@ -0,0 +1,129 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.TestingApplication;
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.customer.TimeOrderedCustomerIdGenerator;
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentCharger;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.amigoscode.testing.payment.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PaymentService.chargeCard} throughput with the Customer second-level cache on and off. Payments go to
+ * {@code hotCustomers} frequent payers out of {@code customers} registered ones, on an in-memory H2 database and a
+ * charger that always debits. The phone number index is cleared so that the customer presence check falls through
+ * to {@code CustomerRepository.findById}, which is the path the cache serves.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentCustomerCacheBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    @Param({"100000"})
+    private int customers;
+
+    @Param({"1000"})
+    private int hotCustomers;
+
+    private Path indexFile;
+
+    private ConfigurableApplicationContext context;
+
+    private PaymentService paymentService;
+
+    private UUID[] hotCustomerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        indexFile = Files.createTempFile("payment-benchmark-index", ".bin");
+        context = new SpringApplicationBuilder(TestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .registerSingleton("debitingCardPaymentCharger", debitingCardPaymentCharger()))
+                .run("--stripe.enabled=benchmark",
+                        "--spring.datasource.url=jdbc:h2:mem:payment-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                        "--customer.phone-number-index.path=" + indexFile,
+                        "--payment.velocity.customer.max-count=" + Integer.MAX_VALUE,
+                        "--payment.velocity.customer.max-amount.EUR=1000000000000",
+                        "--payment.velocity.card.max-count=" + Integer.MAX_VALUE,
+                        "--logging.level.root=warn");
+
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+        TimeOrderedCustomerIdGenerator idGenerator = new TimeOrderedCustomerIdGenerator();
+        hotCustomerIds = new UUID[hotCustomers];
+        List<Customer> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < customers; i++) {
+            UUID id = idGenerator.generate();
+            if (i < hotCustomers) {
+                hotCustomerIds[i] = id;
+            }
+            batch.add(new Customer(id, "Customer", "+336" + (10_000_000 + i)));
+            if (batch.size() == BATCH_SIZE) {
+                customerRepository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        customerRepository.insertAll(batch);
+
+        context.getBean(PhoneNumberIndex.class).clear();
+        paymentService = context.getBean(PaymentService.class);
+    }
+
+    @Benchmark
+    public void chargeCard() {
+        UUID customerId = hotCustomerIds[ThreadLocalRandom.current().nextInt(hotCustomerIds.length)];
+        Payment payment = new Payment(null, customerId, Money.of(new BigDecimal("10.00"), Currency.EUR), "card", "benchmark");
+        paymentService.chargeCard(customerId, new PaymentRequest(payment));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(indexFile);
+    }
+
+    private static CardPaymentCharger debitingCardPaymentCharger() {
+        return (cardSource, amount, description) -> new CardPaymentCharge(true);
+    }
+}
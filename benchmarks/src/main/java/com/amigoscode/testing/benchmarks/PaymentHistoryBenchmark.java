@@ -0,0 +1,138 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.TestingApplication;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentHistoryPage;
+import com.amigoscode.testing.payment.PaymentHistoryService;
+import com.amigoscode.testing.payment.PaymentWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latency distribution of one payment history page for a customer with {@code payments} payments, among
+ * {@code otherPayments} payments of other customers, on an in-memory H2 database. Each call starts the keyset at a
+ * random point of the customer's history, with or without a currency filter. Read the p99 across {@code payments}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentHistoryBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1000", "100000"})
+    private int payments;
+
+    @Param({"100000"})
+    private int otherPayments;
+
+    @Param({"false", "true"})
+    private boolean currencyFilter;
+
+    private Path directory;
+
+    private ConfigurableApplicationContext context;
+
+    private PaymentHistoryService paymentHistoryService;
+
+    private UUID customerId;
+
+    private long firstPaymentId;
+
+    private long lastPaymentId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("payment-history-benchmark");
+        context = new SpringApplicationBuilder(TestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:payment-history;DB_CLOSE_DELAY=-1",
+                        "--payment.write-behind.journal-sync=none",
+                        "--payment.write-behind.journal-directory=" + directory.resolve("journal"),
+                        "--customer.phone-number-index.path=" + directory.resolve("index.bin"),
+                        "--logging.level.root=warn");
+        PaymentWriter paymentWriter = context.getBean(PaymentWriter.class);
+        paymentHistoryService = context.getBean(PaymentHistoryService.class);
+
+        customerId = UUID.randomUUID();
+        UUID[] otherCustomerIds = Stream.generate(UUID::randomUUID).limit(1000).toArray(UUID[]::new);
+        Instant createdAt = Instant.parse("2020-01-01T00:00:00Z");
+        List<Payment> batch = new ArrayList<>(BATCH_SIZE);
+        int total = payments + otherPayments;
+        for (int i = 0; i < total; i++) {
+            // the customer's payments are spread through the others', as they would be in time
+            boolean own = (long) i * payments / total != (long) (i + 1) * payments / total;
+            Payment payment = new Payment(null, own ? customerId : otherCustomerIds[i % otherCustomerIds.length],
+                    Money.ofMinor(1000 + i % 100, i % 4 == 0 ? Currency.GBP : Currency.EUR), "card", "history");
+            payment.setCreatedAt(createdAt.plusSeconds(i));
+            batch.add(payment);
+            if (batch.size() == BATCH_SIZE) {
+                paymentWriter.reserve(batch.size());
+                paymentWriter.writeAll(batch);
+                trackIds(batch);
+                batch.clear();
+            }
+        }
+        paymentWriter.reserve(batch.size());
+        paymentWriter.writeAll(batch);
+        trackIds(batch);
+        paymentWriter.flush();
+    }
+
+    private void trackIds(List<Payment> batch) {
+        for (Payment payment : batch) {
+            if (payment.getCustomerId().equals(customerId)) {
+                if (firstPaymentId == 0) {
+                    firstPaymentId = payment.getPaymentId();
+                }
+                lastPaymentId = payment.getPaymentId();
+            }
+        }
+    }
+
+    @Benchmark
+    public PaymentHistoryPage page() {
+        long before = ThreadLocalRandom.current().nextLong(firstPaymentId, lastPaymentId + 2);
+        return paymentHistoryService.findPayments(customerId, before,
+                currencyFilter ? Currency.EUR : null, null, null, 50);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.TestingApplication;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Payment inserts per second into a file-backed H2 database through the configured {@link PaymentWriter}: the
+ * repository path (one save per payment) against the write-behind stage with each journal sync mode. Every
+ * invocation writes {@code BATCH_SIZE} payments per thread and waits until they are in the database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class PaymentInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"repository", "write-behind"})
+    private String writer;
+
+    @Param({"always", "batch", "none"})
+    private String journalSync;
+
+    private Path directory;
+
+    private ConfigurableApplicationContext context;
+
+    private PaymentWriter paymentWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("payment-insert-benchmark");
+        context = new SpringApplicationBuilder(TestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:" + directory.resolve("payments"),
+                        "--payment.write-behind.enabled=" + "write-behind".equals(writer),
+                        "--payment.write-behind.journal-sync=" + journalSync,
+                        "--payment.write-behind.journal-directory=" + directory.resolve("journal"),
+                        "--customer.phone-number-index.path=" + directory.resolve("index.bin"),
+                        "--logging.level.root=warn");
+        paymentWriter = context.getBean(PaymentWriter.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void write() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            paymentWriter.reserve(1);
+            paymentWriter.write(new Payment(null, UUID.randomUUID(), Money.of(new BigDecimal("10.00"), Currency.EUR), "card", "benchmark"));
+        }
+        paymentWriter.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.CustomerSpendCounters;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.amigoscode.testing.payment.PaymentMetrics;
+import com.amigoscode.testing.payment.PaymentService;
+import com.amigoscode.testing.payment.PaymentWriter;
+import com.amigoscode.testing.payment.sms.PaymentSmsNotifier;
+import com.amigoscode.testing.payment.sms.PendingPaymentSmsRepository;
+import com.amigoscode.testing.payment.stripe.MockStripeService;
+import com.amigoscode.testing.payment.velocity.PaymentVelocityLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PaymentService.chargeCard} without a database: the customers are in the phone number index, payments go to a
+ * writer that drops them, Stripe is a {@link MockStripeService} that debits at once and the repositories are stubs.
+ * What is left is the service's own work: the presence check, the velocity limits, the spend counters and queueing
+ * the SMS, which a worker hands to a sender that drops it. Run with {@code -prof gc} and read {@code gc.alloc.rate.norm} for the bytes allocated per charge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentServiceBenchmark {
+
+    @Param({"1000"})
+    private int customers;
+
+    private Path indexFile;
+
+    private PhoneNumberIndex phoneNumberIndex;
+
+    private PaymentSmsNotifier smsNotifier;
+
+    private PaymentService paymentService;
+
+    private UUID[] customerIds;
+
+    private String[] cardSources;
+
+    private final Money amount = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+    @Setup
+    public void setUp() throws IOException {
+        indexFile = Files.createTempFile("payment-service-benchmark-index", ".bin");
+        phoneNumberIndex = new PhoneNumberIndex(indexFile.toString(), 2 * customers);
+        customerIds = new UUID[customers];
+        cardSources = new String[customers];
+        Map<UUID, Customer> customersById = new HashMap<>();
+        for (int i = 0; i < customers; i++) {
+            customerIds[i] = UUID.randomUUID();
+            cardSources[i] = "card_" + i;
+            String phoneNumber = "+336" + (10_000_000 + i);
+            customersById.put(customerIds[i], new Customer(customerIds[i], "Customer", phoneNumber));
+            phoneNumberIndex.put(phoneNumber, customerIds[i]);
+        }
+        phoneNumberIndex.markVerified();
+
+        CustomerRepository customerRepository = Stubs.customerRepository(customersById);
+        smsNotifier = new PaymentSmsNotifier(messages -> { }, customerRepository,
+                Stubs.emptyRepository(PendingPaymentSmsRepository.class), 10_000, 1, 100, 5, 100, 5000, 1000);
+        smsNotifier.start();
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "payment.velocity.customer.max-count", Integer.MAX_VALUE,
+                "payment.velocity.card.max-count", Integer.MAX_VALUE)));
+
+        paymentService = new PaymentService(
+                new DiscardingPaymentWriter(),
+                customerRepository,
+                new MockStripeService(MockStripeService.Latency.FIXED, 0, 0, 0, 0, 0, 0, null),
+                phoneNumberIndex,
+                new CustomerSpendCounters(),
+                smsNotifier,
+                new PaymentVelocityLimiter(environment, 60, 2 * customers, 1000),
+                new PaymentMetrics(60_000, 60),
+                Runnable::run);
+    }
+
+    @Benchmark
+    public void chargeCard() {
+        int customer = ThreadLocalRandom.current().nextInt(customers);
+        Payment payment = new Payment(null, customerIds[customer], amount, cardSources[customer], "benchmark");
+        paymentService.chargeCard(customerIds[customer], new PaymentRequest(payment));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        smsNotifier.stop();
+        phoneNumberIndex.close();
+        Files.deleteIfExists(indexFile);
+    }
+
+    private static class DiscardingPaymentWriter implements PaymentWriter {
+
+        @Override
+        public void reserve(int count) {
+        }
+
+        @Override
+        public void release(int count) {
+        }
+
+        @Override
+        public void write(Payment payment) {
+        }
+
+        @Override
+        public void writeAll(List<Payment> payments) {
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
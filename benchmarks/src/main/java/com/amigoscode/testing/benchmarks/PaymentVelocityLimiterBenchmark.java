@@ -0,0 +1,72 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.velocity.SlidingWindowLimiter;
+import com.amigoscode.testing.payment.velocity.VelocityLimits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentVelocityLimiterBenchmark {
+
+    @Param({"100000"})
+    private int keys;
+
+    private UUID[] customerIds;
+
+    private SlidingWindowLimiter<UUID> limiter;
+
+    private final Money amount = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+    @Setup
+    public void setUp() {
+        customerIds = new UUID[keys];
+        for (int i = 0; i < keys; i++) {
+            customerIds[i] = UUID.randomUUID();
+        }
+        long[] maxMinorUnits = new long[Currency.values().length];
+        Arrays.fill(maxMinorUnits, Long.MAX_VALUE);
+        limiter = new SlidingWindowLimiter<>(new VelocityLimits(Integer.MAX_VALUE, maxMinorUnits),
+                TimeUnit.SECONDS.toMillis(60), keys);
+        long now = System.currentTimeMillis();
+        for (UUID customerId : customerIds) {
+            limiter.tryAcquire(customerId, amount, now);
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        UUID customerId = customerIds[ThreadLocalRandom.current().nextInt(keys)];
+        return limiter.tryAcquire(customerId, amount, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public void tryAcquireAndRelease() {
+        UUID customerId = customerIds[ThreadLocalRandom.current().nextInt(keys)];
+        long now = System.currentTimeMillis();
+        if (limiter.tryAcquire(customerId, amount, now)) {
+            limiter.release(customerId, amount, now);
+        }
+    }
+}
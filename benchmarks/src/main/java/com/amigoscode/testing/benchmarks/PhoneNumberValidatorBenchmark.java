@@ -0,0 +1,40 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.utils.PhoneNumberValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneNumberValidatorBenchmark {
+
+    @Param({"+33600000000", "+14155550123", "+886912345678", "+999123456789", "+33612345678911"})
+    private String phoneNumber;
+
+    private PhoneNumberValidator validator;
+
+    @Setup
+    public void setUp() {
+        validator = new PhoneNumberValidator();
+    }
+
+    @Benchmark
+    public boolean test() {
+        return validator.test(phoneNumber);
+    }
+}
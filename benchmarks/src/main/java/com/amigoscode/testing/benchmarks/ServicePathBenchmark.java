@@ -0,0 +1,141 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.TestingApplication;
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.customer.CustomerRegistrationService;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.customer.TimeOrderedCustomerIdGenerator;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.Payment;
+import com.amigoscode.testing.payment.PaymentRequest;
+import com.amigoscode.testing.payment.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The full service path of a card charge and of a registration, wired by Spring against an in-memory H2 database with
+ * {@code stripe.enabled=false}, so charges go to the {@code MockStripeService} and debit at once. Payments go to a
+ * random one of {@code customers} registered customers, each with its own card; registrations are for a new phone
+ * number each call. The velocity limits are lifted so every charge goes through; everything else, including the
+ * write-behind journal syncing every payment, is as configured in {@code application.properties}. Run with {@code -prof gc} and read
+ * {@code gc.alloc.rate.norm} for the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServicePathBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String UNLIMITED = "1000000000000";
+
+    @Param({"10000"})
+    private int customers;
+
+    private Path directory;
+
+    private ConfigurableApplicationContext context;
+
+    private PaymentService paymentService;
+
+    private CustomerRegistrationService registrationService;
+
+    private UUID[] customerIds;
+
+    private String[] cardSources;
+
+    private long nextPhoneNumber;
+
+    private final Money amount = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("service-path-benchmark");
+        context = new SpringApplicationBuilder(TestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--stripe.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:service-path-benchmark;DB_CLOSE_DELAY=-1",
+                        "--payment.write-behind.journal-directory=" + directory.resolve("journal"),
+                        "--customer.phone-number-index.path=" + directory.resolve("index.bin"),
+                        "--customer.phone-number-index.capacity=4194304",
+                        "--payment.velocity.customer.max-count=" + Integer.MAX_VALUE,
+                        "--payment.velocity.customer.max-amount.EUR=" + UNLIMITED,
+                        "--payment.velocity.card.max-count=" + Integer.MAX_VALUE,
+                        "--logging.level.root=warn");
+
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+        PhoneNumberIndex phoneNumberIndex = context.getBean(PhoneNumberIndex.class);
+        TimeOrderedCustomerIdGenerator idGenerator = new TimeOrderedCustomerIdGenerator();
+        customerIds = new UUID[customers];
+        cardSources = new String[customers];
+        List<Customer> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < customers; i++) {
+            customerIds[i] = idGenerator.generate();
+            cardSources[i] = "card_" + i;
+            String phoneNumber = "+336" + (10_000_000 + i);
+            batch.add(new Customer(customerIds[i], "Customer", phoneNumber));
+            phoneNumberIndex.put(phoneNumber, customerIds[i]);
+            if (batch.size() == BATCH_SIZE) {
+                customerRepository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        customerRepository.insertAll(batch);
+
+        paymentService = context.getBean(PaymentService.class);
+        registrationService = context.getBean(CustomerRegistrationService.class);
+    }
+
+    @Benchmark
+    public void chargeCard() {
+        int customer = ThreadLocalRandom.current().nextInt(customers);
+        Payment payment = new Payment(null, customerIds[customer], amount, cardSources[customer], "benchmark");
+        paymentService.chargeCard(customerIds[customer], new PaymentRequest(payment));
+    }
+
+    @Benchmark
+    public void registerNewCustomer() {
+        Customer customer = new Customer(null, "Customer", "+447" + (700_000_000 + nextPhoneNumber++));
+        registrationService.registerNewCustomer(new CustomerRegistrationRequest(customer));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
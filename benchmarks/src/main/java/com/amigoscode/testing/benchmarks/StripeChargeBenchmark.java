@@ -0,0 +1,70 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.stripe.StripeApi;
+import com.amigoscode.testing.payment.stripe.StripeService;
+import com.amigoscode.testing.payment.stripe.StripeStubServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card charges per second through {@code StripeService} over real HTTP to a {@code StripeStubServer} on loopback
+ * that takes {@code serverLatencyMillis} per charge, from 32 calling threads, with a connection pool of
+ * {@code maxConnections}. Charges beyond the pool size wait for a connection, so throughput should grow with the pool
+ * until it reaches the number of callers. The JVM's keep-alive cache is sized for the largest pool at launch, since
+ * HttpURLConnection reads {@code http.maxConnections} only once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(32)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=32")
+public class StripeChargeBenchmark {
+
+    @Param({"1", "8", "32"})
+    private int maxConnections;
+
+    @Param({"2"})
+    private long serverLatencyMillis;
+
+    private final Money amount = Money.of(new BigDecimal("10.50"), Currency.EUR);
+
+    private StripeStubServer stubServer;
+
+    private StripeService stripeService;
+
+    @Setup
+    public void setUp() throws IOException {
+        stubServer = new StripeStubServer(0, 64, serverLatencyMillis);
+        stripeService = new StripeService(new StripeApi(stubServer.getApiBase(), maxConnections, 10000, 10000, 0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubServer.close();
+    }
+
+    @Benchmark
+    public CardPaymentCharge chargeCard() {
+        return stripeService.chargeCard("tok_visa", amount, "benchmark");
+    }
+}
@@ -0,0 +1,90 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository stubs for benchmarks that leave the database out, so the service under test pays only for its own
+ * work. {@code save} returns what it was given and any other call comes back empty, except on the customer stub,
+ * which finds the customers it was given by id.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    static <T> T emptyRepository(Class<T> repositoryType) {
+        return repository(repositoryType, (proxy, method, args) -> emptyValue(method.getReturnType()));
+    }
+
+    static CustomerRepository customerRepository(Map<UUID, Customer> customers) {
+        return repository(CustomerRepository.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "findById":
+                    return Optional.ofNullable(customers.get((UUID) args[0]));
+                case "findAllById":
+                    List<Customer> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        Customer customer = customers.get((UUID) id);
+                        if (customer != null) {
+                            found.add(customer);
+                        }
+                    }
+                    return found;
+                default:
+                    return emptyValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static <T> T repository(Class<T> repositoryType, InvocationHandler finders) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Stub" + repositoryType.getSimpleName();
+                        case "save":
+                        case "saveAndFlush":
+                            return args[0];
+                        default:
+                            return finders.invoke(proxy, method, args);
+                    }
+                }));
+    }
+
+    private static Object emptyValue(Class<?> type) {
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (type.isAssignableFrom(Collections.emptySet().getClass())) {
+            return Collections.emptySet();
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return Collections.emptyList();
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        return null;
+    }
+}
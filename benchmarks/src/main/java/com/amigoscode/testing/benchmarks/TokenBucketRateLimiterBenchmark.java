@@ -0,0 +1,45 @@
+package com.amigoscode.testing.benchmarks;
+
+import com.amigoscode.testing.limit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBucketRateLimiterBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int clients;
+
+    private TokenBucketRateLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketRateLimiter(100, 200, clients, TimeUnit.SECONDS.toNanos(60), System.nanoTime());
+        for (int i = 0; i < clients; i++) {
+            limiter.tryAcquire(Integer.toString(i), System.nanoTime());
+        }
+    }
+
+    // The client id is a new string each time, as read from a request header.
+    @Benchmark
+    public long tryAcquire() {
+        return limiter.tryAcquire(Integer.toString(ThreadLocalRandom.current().nextInt(clients)), System.nanoTime());
+    }
+}
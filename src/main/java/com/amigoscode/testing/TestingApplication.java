@@ -1,5 +1,6 @@
 package com.amigoscode.testing;
 
+import com.amigoscode.testing.payment.stripe.StripeKeepAliveListener;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class TestingApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(TestingApplication.class, args);
+		SpringApplication application = new SpringApplication(TestingApplication.class);
+		application.addListeners(new StripeKeepAliveListener());
+		application.run(args);
 	}
 
 }
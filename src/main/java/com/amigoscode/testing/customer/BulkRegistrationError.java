@@ -0,0 +1,37 @@
+package com.amigoscode.testing.customer;
+
+public class BulkRegistrationError {
+
+    private final long row;
+
+    private final String phoneNumber;
+
+    private final String message;
+
+    public BulkRegistrationError(long row, String phoneNumber, String message) {
+        this.row = row;
+        this.phoneNumber = phoneNumber;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkRegistrationError{" +
+                "row=" + row +
+                ", phoneNumber='" + phoneNumber + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,47 @@
+package com.amigoscode.testing.customer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BulkRegistrationResult {
+
+    private long registered;
+
+    private long skipped;
+
+    private final List<BulkRegistrationError> errors = new ArrayList<>();
+
+    void addRegistered(long count) {
+        registered += count;
+    }
+
+    void addSkipped(long count) {
+        skipped += count;
+    }
+
+    void addError(BulkRegistrationError error) {
+        errors.add(error);
+    }
+
+    public long getRegistered() {
+        return registered;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public List<BulkRegistrationError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkRegistrationResult{" +
+                "registered=" + registered +
+                ", skipped=" + skipped +
+                ", errors=" + errors +
+                '}';
+    }
+}
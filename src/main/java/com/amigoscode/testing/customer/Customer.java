@@ -1,14 +1,24 @@
 package com.amigoscode.testing.customer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CustomerCacheStats.CUSTOMER_REGION)
+@NaturalIdCache(region = CustomerBulkRepository.CUSTOMER_BY_PHONE_NUMBER_REGION)
 @JsonIgnoreProperties(allowGetters = true)
 public class Customer {
 
@@ -19,10 +29,19 @@ public class Customer {
     @Column(nullable = false)
     private String name;
 
+    // Cached per phone number, so a registration never has to invalidate the other numbers' lookups. Mutable, as a
+    // customer may change number: the cached lookup of the old number is then dropped.
+    @NaturalId(mutable = true)
     @NotBlank
     @Column(nullable = false, unique = true)
     private String phoneNumber;
 
+    // Rows inserted by native statements start at version 0 too.
+    @Version
+    @JsonIgnore
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     public Customer(UUID id, String name, String phoneNumber) {
         this.id = id;
         this.name = name;
@@ -56,6 +75,10 @@ public class Customer {
         this.phoneNumber = phoneNumber;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     @Override
     public String toString() {
         return "Customer{" +
@@ -0,0 +1,18 @@
+package com.amigoscode.testing.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CustomerBulkRepository {
+
+    String CUSTOMER_BY_PHONE_NUMBER_REGION = "customer-by-phone-number";
+
+    void insert(Customer customer);
+
+    void insertAll(List<Customer> customers);
+
+    UUID insertOrSelectCustomerIdByPhoneNumber(UUID id, String name, String phoneNumber);
+
+    Optional<CustomerDto> selectCustomerDtoByPhoneNumber(String phoneNumber);
+}
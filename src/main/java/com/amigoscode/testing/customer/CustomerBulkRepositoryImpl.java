@@ -0,0 +1,87 @@
+package com.amigoscode.testing.customer;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class CustomerBulkRepositoryImpl implements CustomerBulkRepository {
+
+    private static final String INSERT_UNLESS_PHONE_NUMBER_TAKEN =
+            "merge into customer c using (select cast(:id as binary) id, cast(:name as varchar) name, " +
+                    "cast(:phone_number as varchar) phone_number) s " +
+                    "on c.phone_number = s.phone_number " +
+                    "when not matched then insert (id, name, phone_number) values (s.id, s.name, s.phone_number)";
+
+    // Not the customer table's space, so the insert does not evict every cached customer.
+    private static final String NEW_CUSTOMER_QUERY_SPACE = "new_customer";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    // Like insertAll: persist rather than save, as the id is assigned and save would select the row first to merge it.
+    // Flushed here so a taken phone number or id fails this call.
+    @Override
+    @Transactional
+    public void insert(Customer customer) {
+        entityManager.persist(customer);
+        entityManager.flush();
+    }
+
+    // Uses persist instead of save so that assigned ids do not trigger a select per row (merge),
+    // flushing every batchSize rows so Hibernate can group the inserts into JDBC batches.
+    @Override
+    @Transactional
+    public void insertAll(List<Customer> customers) {
+        for (int i = 0; i < customers.size(); i++) {
+            entityManager.persist(customers.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // A taken phone number is left as it is rather than updated, so its row is neither locked nor has its version bumped.
+    // A new row has nothing cached that could go stale. The owner of the number is read back once the insert is done.
+    @Override
+    @Transactional
+    public UUID insertOrSelectCustomerIdByPhoneNumber(UUID id, String name, String phoneNumber) {
+        entityManager.createNativeQuery(INSERT_UNLESS_PHONE_NUMBER_TAKEN)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(NEW_CUSTOMER_QUERY_SPACE)
+                .setParameter("id", id)
+                .setParameter("name", name)
+                .setParameter("phone_number", phoneNumber)
+                .executeUpdate();
+        return entityManager.createQuery("select c.id from Customer c where c.phoneNumber = :phoneNumber", UUID.class)
+                .setParameter("phoneNumber", phoneNumber)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(String.format(
+                        "The customer with phone number [%s] was deleted while being registered.", phoneNumber)));
+    }
+
+    // Resolved through the natural id cache, keyed by phone number. A number not found is not cached, so customers
+    // inserted by native statements are seen without evicting anything.
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CustomerDto> selectCustomerDtoByPhoneNumber(String phoneNumber) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Customer.class)
+                .loadOptional(phoneNumber)
+                .map(customer -> new CustomerDto(customer.getId(), customer.getName(), customer.getPhoneNumber(),
+                        customer.getVersion()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.amigoscode.testing.customer;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+
+@RestController
+@RequestMapping("api/v1/customer-cache")
+public class CustomerCacheController {
+
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public CustomerCacheController(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // All zero unless spring.jpa.properties.hibernate.generate_statistics is turned on, which costs on every session.
+    @GetMapping
+    public CustomerCacheStats getCustomerCacheStats() {
+        return CustomerCacheStats.of(sessionFactory.getStatistics());
+    }
+}
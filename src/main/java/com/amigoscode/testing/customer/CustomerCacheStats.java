@@ -0,0 +1,98 @@
+package com.amigoscode.testing.customer;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+public class CustomerCacheStats {
+
+    static final String CUSTOMER_REGION = "customer";
+
+    private final RegionStats customers;
+
+    private final RegionStats customersByPhoneNumber;
+
+    public CustomerCacheStats(RegionStats customers, RegionStats customersByPhoneNumber) {
+        this.customers = customers;
+        this.customersByPhoneNumber = customersByPhoneNumber;
+    }
+
+    static CustomerCacheStats of(Statistics statistics) {
+        return new CustomerCacheStats(
+                RegionStats.of(statistics.getDomainDataRegionStatistics(CUSTOMER_REGION)),
+                RegionStats.of(statistics.getDomainDataRegionStatistics(CustomerBulkRepository.CUSTOMER_BY_PHONE_NUMBER_REGION)));
+    }
+
+    public RegionStats getCustomers() {
+        return customers;
+    }
+
+    public RegionStats getCustomersByPhoneNumber() {
+        return customersByPhoneNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerCacheStats{" +
+                "customers=" + customers +
+                ", customersByPhoneNumber=" + customersByPhoneNumber +
+                '}';
+    }
+
+    public static class RegionStats {
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long putCount;
+
+        private final long elementCountInMemory;
+
+        public RegionStats(long hitCount, long missCount, long putCount, long elementCountInMemory) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.putCount = putCount;
+            this.elementCountInMemory = elementCountInMemory;
+        }
+
+        // Hibernate has no region, hence no statistics, when the second-level cache is disabled.
+        static RegionStats of(CacheRegionStatistics statistics) {
+            if (statistics == null) {
+                return new RegionStats(0, 0, 0, 0);
+            }
+            return new RegionStats(statistics.getHitCount(), statistics.getMissCount(), statistics.getPutCount(),
+                    Math.max(statistics.getElementCountInMemory(), 0));
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getPutCount() {
+            return putCount;
+        }
+
+        public long getElementCountInMemory() {
+            return elementCountInMemory;
+        }
+
+        public double getHitRatio() {
+            long lookups = hitCount + missCount;
+            return lookups == 0 ? 0 : (double) hitCount / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "RegionStats{" +
+                    "hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", putCount=" + putCount +
+                    ", elementCountInMemory=" + elementCountInMemory +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.amigoscode.testing.customer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.UUID;
+
+public class CustomerDto {
+
+    private final UUID id;
+
+    private final String name;
+
+    private final String phoneNumber;
+
+    @JsonIgnore
+    private final long version;
+
+    public CustomerDto(UUID id, String name, String phoneNumber, long version) {
+        this.id = id;
+        this.name = name;
+        this.phoneNumber = phoneNumber;
+        this.version = version;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    // Strong validator: changes whenever the row version does, so equal tags mean identical representations.
+    @JsonIgnore
+    public String getETag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerDto{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", phoneNumber='" + phoneNumber + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Evicts the least recently used phone numbers once full. The numbers are spread over segments with a lock of their
+// own, so lookups of different numbers rarely wait on each other.
+@Component
+public class CustomerETagCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    @Autowired
+    public CustomerETagCache(@Value("${customer.lookup.etag-cache-size:100000}") int maxSize) {
+        this(maxSize, MAX_SEGMENTS);
+    }
+
+    CustomerETagCache(int maxSize, int maxSegments) {
+        if (maxSize < 1 || maxSegments < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid ETag cache [maxSize=%s, maxSegments=%s]", maxSize, maxSegments));
+        }
+        int count = Integer.highestOneBit(Math.min(maxSegments, maxSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    public String get(String phoneNumber) {
+        Segment segment = segmentFor(phoneNumber);
+        synchronized (segment) {
+            return segment.get(phoneNumber);
+        }
+    }
+
+    public void put(String phoneNumber, String eTag) {
+        Segment segment = segmentFor(phoneNumber);
+        synchronized (segment) {
+            segment.put(phoneNumber, eTag);
+        }
+    }
+
+    public void evict(String phoneNumber) {
+        if (phoneNumber != null) {
+            Segment segment = segmentFor(phoneNumber);
+            synchronized (segment) {
+                segment.remove(phoneNumber);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String phoneNumber) {
+        int hash = phoneNumber.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static final class Segment extends LinkedHashMap<String, String> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("api/v1/customer-export")
+public class CustomerExportController {
+
+    private final CustomerExportService exportService;
+
+    @Autowired
+    public CustomerExportController(CustomerExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping(produces = "application/x-ndjson")
+    public StreamingResponseBody exportCustomers() {
+        return exportService::exportCustomers;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.amigoscode.testing.customer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+@Service
+public class CustomerExportService {
+
+    private static final String FIRST_PAGE = "select id, name, phone_number from customer order by id limit ?";
+
+    private static final String NEXT_PAGE = "select id, name, phone_number from customer where id > ? order by id limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final int pageSize;
+
+    @Autowired
+    public CustomerExportService(JdbcTemplate jdbcTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${customer.export.page-size:10000}") int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid customer export page size [%s]", pageSize));
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+    }
+
+    // Walks the table in primary key order, one keyset page per query, and writes each row as a line of JSON
+    // straight from the result set: no entities, no lists, so heap use does not grow with the table.
+    public long exportCustomers(OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            PageWriter pageWriter = new PageWriter(generator);
+            do {
+                pageWriter.rows = 0;
+                jdbcTemplate.query(pageQuery(pageWriter.lastId), pageWriter::writeRow);
+                generator.flush();
+                exported += pageWriter.rows;
+            } while (pageWriter.rows == pageSize);
+        }
+        return exported;
+    }
+
+    private PreparedStatementCreator pageQuery(byte[] lastId) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(lastId == null ? FIRST_PAGE : NEXT_PAGE,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Math.min(pageSize, 1000));
+            int parameter = 1;
+            if (lastId != null) {
+                statement.setBytes(parameter++, lastId);
+            }
+            statement.setInt(parameter, pageSize);
+            return statement;
+        };
+    }
+
+    private static class PageWriter {
+
+        private final JsonGenerator generator;
+
+        private byte[] lastId;
+
+        private int rows;
+
+        PageWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        void writeRow(ResultSet resultSet) throws SQLException {
+            lastId = resultSet.getBytes(1);
+            ByteBuffer id = ByteBuffer.wrap(lastId);
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("id", new UUID(id.getLong(), id.getLong()).toString());
+                generator.writeStringField("name", resultSet.getString(2));
+                generator.writeStringField("phoneNumber", resultSet.getString(3));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+@Service
+public class CustomerLookupService {
+
+    private final CustomerRepository customerRepository;
+
+    private final CustomerETagCache eTagCache;
+
+    @Autowired
+    public CustomerLookupService(CustomerRepository customerRepository, CustomerETagCache eTagCache) {
+        this.customerRepository = customerRepository;
+        this.eTagCache = eTagCache;
+    }
+
+    public Optional<String> getCachedETag(String phoneNumber) {
+        return Optional.ofNullable(eTagCache.get(phoneNumber));
+    }
+
+    public Optional<CustomerDto> findCustomerByPhoneNumber(String phoneNumber) {
+        Optional<CustomerDto> customer = customerRepository.selectCustomerDtoByPhoneNumber(phoneNumber);
+        if (customer.isPresent()) {
+            eTagCache.put(phoneNumber, customer.get().getETag());
+        } else {
+            eTagCache.evict(phoneNumber);
+        }
+        return customer;
+    }
+}
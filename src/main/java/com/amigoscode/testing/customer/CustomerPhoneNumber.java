@@ -0,0 +1,10 @@
+package com.amigoscode.testing.customer;
+
+import java.util.UUID;
+
+public interface CustomerPhoneNumber {
+
+    UUID getId();
+
+    String getPhoneNumber();
+}
@@ -1,12 +1,24 @@
 package com.amigoscode.testing.customer;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("api/v1/customer-registration")
@@ -14,9 +26,21 @@ public class CustomerRegistrationController {
 
     private final CustomerRegistrationService registrationService;
 
+    private final ObjectMapper objectMapper;
+
+    private final PhoneNumberBloomFilter phoneNumberFilter;
+
+    private final CustomerLookupService lookupService;
+
     @Autowired
-    public CustomerRegistrationController(CustomerRegistrationService registrationService) {
+    public CustomerRegistrationController(CustomerRegistrationService registrationService,
+                                          ObjectMapper objectMapper,
+                                          PhoneNumberBloomFilter phoneNumberFilter,
+                                          CustomerLookupService lookupService) {
         this.registrationService = registrationService;
+        this.objectMapper = objectMapper;
+        this.phoneNumberFilter = phoneNumberFilter;
+        this.lookupService = lookupService;
     }
 
     @PutMapping
@@ -24,4 +48,59 @@ public class CustomerRegistrationController {
         registrationService.registerNewCustomer(request);
     }
 
+    // For clients that retry registrations: a retry with the same id and phone number succeeds without a duplicate
+    // check round trip, while a phone number owned by another customer is still refused.
+    @PutMapping("/idempotent")
+    public void registerNewCustomerIdempotently(@Valid @RequestBody CustomerRegistrationRequest request) {
+        registrationService.registerNewCustomerIdempotently(request);
+    }
+
+    // Accepts either a JSON array or newline-delimited JSON of customers and reads it as a stream,
+    // so the whole partner list never has to be held in memory.
+    @PostMapping("/bulk")
+    public BulkRegistrationResult registerNewCustomers(InputStream body) throws IOException {
+        try (MappingIterator<Customer> customers = objectMapper.readerFor(Customer.class).readValues(body)) {
+            return registrationService.registerNewCustomers(customers);
+        }
+    }
+
+    // A matching If-None-Match answered from the ETag cache is a 304 without touching the database.
+    @GetMapping("/phone-numbers/{phoneNumber}")
+    public ResponseEntity<CustomerDto> getCustomerByPhoneNumber(@PathVariable("phoneNumber") String phoneNumber,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> cachedETag = lookupService.getCachedETag(phoneNumber);
+        if (cachedETag.isPresent() && matches(ifNoneMatch, cachedETag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cachedETag.get()).build();
+        }
+
+        Optional<CustomerDto> customer = lookupService.findCustomerByPhoneNumber(phoneNumber);
+        if (customer.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String eTag = customer.get().getETag();
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(customer.get());
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @GetMapping("/phone-number-filter")
+    public PhoneNumberBloomFilterStats getPhoneNumberFilterStats() {
+        return PhoneNumberBloomFilterStats.of(phoneNumberFilter);
+    }
+
 }
@@ -0,0 +1,23 @@
+package com.amigoscode.testing.customer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.amigoscode.testing.CustomerRegistration")
+@Label("Customer Registration")
+@Category({"Testing", "Customer"})
+@Description("CustomerRegistrationService.registerNewCustomer and registerNewCustomerIdempotently")
+@StackTrace(false)
+class CustomerRegistrationEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Outcome")
+    @Description("REGISTERED, ALREADY_REGISTERED, the reason the registration was turned down, or ERROR")
+    String outcome;
+}
@@ -0,0 +1,34 @@
+package com.amigoscode.testing.customer;
+
+import com.amigoscode.testing.metrics.ServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class CustomerRegistrationMetrics
+        extends ServiceMetrics<CustomerRegistrationMetrics.Phase, CustomerRegistrationMetrics.Rejection> {
+
+    public enum Phase {
+        VALIDATION,
+        DUPLICATE_CHECK,
+        CUSTOMER_SAVE,
+        INDEX_UPDATE,
+        TOTAL
+    }
+
+    public enum Rejection {
+        INVALID_PHONE_NUMBER,
+        PHONE_NUMBER_TAKEN,
+        CUSTOMER_ID_TAKEN
+    }
+
+    @Autowired
+    public CustomerRegistrationMetrics(@Value("${metrics.latency.highest-trackable-millis}") long highestTrackableMillis,
+                                       @Value("${metrics.latency.interval-seconds}") long intervalSeconds) {
+        super("customer-registration", Phase.class, Rejection.class,
+                TimeUnit.MILLISECONDS.toNanos(highestTrackableMillis), TimeUnit.SECONDS.toNanos(intervalSeconds));
+    }
+}
@@ -2,45 +2,332 @@ package com.amigoscode.testing.customer;
 
 import com.amigoscode.testing.utils.PhoneNumberValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerRegistrationService {
 
+    static final int BULK_CHUNK_SIZE = 1000;
+
+    private static final String REGISTERED = "REGISTERED";
+
+    private static final String ALREADY_REGISTERED = "ALREADY_REGISTERED";
+
     private final CustomerRepository customerRepository;
 
     private final PhoneNumberValidator phoneNumberValidator;
 
+    private final PhoneNumberBloomFilter phoneNumberFilter;
+
+    private final PhoneNumberIndex phoneNumberIndex;
+
+    private final CustomerIdGenerator customerIdGenerator;
+
+    private final CustomerETagCache eTagCache;
+
+    private final CustomerRegistrationMetrics metrics;
+
     @Autowired
-    public CustomerRegistrationService(CustomerRepository customerRepository, PhoneNumberValidator phoneNumberValidator) {
+    public CustomerRegistrationService(CustomerRepository customerRepository,
+                                       PhoneNumberValidator phoneNumberValidator,
+                                       PhoneNumberBloomFilter phoneNumberFilter,
+                                       PhoneNumberIndex phoneNumberIndex,
+                                       CustomerIdGenerator customerIdGenerator,
+                                       CustomerETagCache eTagCache,
+                                       CustomerRegistrationMetrics metrics) {
         this.customerRepository = customerRepository;
         this.phoneNumberValidator = phoneNumberValidator;
+        this.phoneNumberFilter = phoneNumberFilter;
+        this.phoneNumberIndex = phoneNumberIndex;
+        this.customerIdGenerator = customerIdGenerator;
+        this.eTagCache = eTagCache;
+        this.metrics = metrics;
     }
 
     public void registerNewCustomer(CustomerRegistrationRequest request) {
+        CustomerRegistrationEvent event = new CustomerRegistrationEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            registerNewCustomer(request, started, event);
+        } finally {
+            metrics.record(CustomerRegistrationMetrics.Phase.TOTAL, started);
+            commit(event, "registerNewCustomer");
+        }
+    }
+
+    private void registerNewCustomer(CustomerRegistrationRequest request, long started, CustomerRegistrationEvent event) {
 
         String phoneNumber = request.getCustomer().getPhoneNumber();
 
+        validatePhoneNumber(phoneNumber, event);
+        long validated = metrics.record(CustomerRegistrationMetrics.Phase.VALIDATION, started);
+
+        if (isAlreadyRegisteredInIndex(request.getCustomer(), event)) {
+            metrics.record(CustomerRegistrationMetrics.Phase.DUPLICATE_CHECK, validated);
+            event.outcome = ALREADY_REGISTERED;
+            return;
+        }
+
+        // When the filter says the number is definitely new the lookup is skipped and the unique constraint is the backstop
+        if (phoneNumberFilter.mightContain(phoneNumber)) {
+            Optional<Customer> optionalCustomer = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+
+            if (optionalCustomer.isPresent()) {
+                phoneNumberIndex.put(phoneNumber, optionalCustomer.get().getId());
+                metrics.record(CustomerRegistrationMetrics.Phase.DUPLICATE_CHECK, validated);
+                if (optionalCustomer.get().getId() == request.getCustomer().getId()) {
+                    event.outcome = ALREADY_REGISTERED;
+                    return;
+                }
+                reject(CustomerRegistrationMetrics.Rejection.PHONE_NUMBER_TAKEN, event);
+                throw new IllegalArgumentException(String.format("The phone number [%s] belongs to another customer.", phoneNumber));
+            }
+        }
+        long checked = metrics.record(CustomerRegistrationMetrics.Phase.DUPLICATE_CHECK, validated);
+
+        if (request.getCustomer().getId() == null) {
+            request.getCustomer().setId(customerIdGenerator.generate());
+        }
+
+        try {
+            customerRepository.insert(request.getCustomer());
+        } catch (DataIntegrityViolationException e) {
+            Optional<Customer> existingCustomer = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+            if (existingCustomer.isPresent()) {
+                phoneNumberFilter.put(phoneNumber);
+                phoneNumberIndex.put(phoneNumber, existingCustomer.get().getId());
+                reject(CustomerRegistrationMetrics.Rejection.PHONE_NUMBER_TAKEN, event);
+                throw new IllegalArgumentException(String.format("The phone number [%s] belongs to another customer.", phoneNumber), e);
+            }
+            reject(CustomerRegistrationMetrics.Rejection.CUSTOMER_ID_TAKEN, event);
+            throw new IllegalArgumentException(String.format("Customer [%s] is already registered with another phone number.", request.getCustomer().getId()), e);
+        }
+        long saved = metrics.record(CustomerRegistrationMetrics.Phase.CUSTOMER_SAVE, checked);
+
+        phoneNumberFilter.put(phoneNumber);
+        phoneNumberIndex.put(phoneNumber, request.getCustomer().getId());
+        eTagCache.evict(phoneNumber);
+        metrics.record(CustomerRegistrationMetrics.Phase.INDEX_UPDATE, saved);
+        event.outcome = REGISTERED;
+    }
+
+    // Same outcome as registerNewCustomer, but the insert only happens when the phone number is free and the owner is
+    // read back after it, so concurrent retries never surface as constraint violations on the phone number.
+    public void registerNewCustomerIdempotently(CustomerRegistrationRequest request) {
+        CustomerRegistrationEvent event = new CustomerRegistrationEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            registerNewCustomerIdempotently(request, started, event);
+        } finally {
+            metrics.record(CustomerRegistrationMetrics.Phase.TOTAL, started);
+            commit(event, "registerNewCustomerIdempotently");
+        }
+    }
+
+    private void registerNewCustomerIdempotently(CustomerRegistrationRequest request, long started,
+                                                 CustomerRegistrationEvent event) {
+
+        Customer customer = request.getCustomer();
+        String phoneNumber = customer.getPhoneNumber();
+
+        validatePhoneNumber(phoneNumber, event);
+        long validated = metrics.record(CustomerRegistrationMetrics.Phase.VALIDATION, started);
+
+        boolean alreadyRegistered = isAlreadyRegisteredInIndex(customer, event);
+        long checked = metrics.record(CustomerRegistrationMetrics.Phase.DUPLICATE_CHECK, validated);
+
+        if (alreadyRegistered) {
+            event.outcome = ALREADY_REGISTERED;
+            return;
+        }
+
+        if (customer.getId() == null) {
+            customer.setId(customerIdGenerator.generate());
+        }
+
+        UUID ownerId;
+        try {
+            ownerId = customerRepository.insertOrSelectCustomerIdByPhoneNumber(customer.getId(), customer.getName(), phoneNumber);
+        } catch (DataIntegrityViolationException e) {
+            reject(CustomerRegistrationMetrics.Rejection.CUSTOMER_ID_TAKEN, event);
+            throw new IllegalArgumentException(String.format("Customer [%s] is already registered with another phone number.", customer.getId()), e);
+        }
+        long saved = metrics.record(CustomerRegistrationMetrics.Phase.CUSTOMER_SAVE, checked);
+
+        phoneNumberFilter.put(phoneNumber);
+        phoneNumberIndex.put(phoneNumber, ownerId);
+        eTagCache.evict(phoneNumber);
+
+        if (ownerId.equals(customer.getId())) {
+            metrics.record(CustomerRegistrationMetrics.Phase.INDEX_UPDATE, saved);
+            event.outcome = REGISTERED;
+        } else {
+            reject(CustomerRegistrationMetrics.Rejection.PHONE_NUMBER_TAKEN, event);
+            throw new IllegalArgumentException(String.format("The phone number [%s] belongs to another customer.", phoneNumber));
+        }
+    }
+
+    private void validatePhoneNumber(String phoneNumber, CustomerRegistrationEvent event) {
         if (!phoneNumberValidator.test(phoneNumber)) {
+            reject(CustomerRegistrationMetrics.Rejection.INVALID_PHONE_NUMBER, event);
             throw new IllegalStateException(String.format("Phone number [%s] is not valid.", phoneNumber));
         }
+    }
 
-        Optional<Customer> optionalCustomer = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+    private void reject(CustomerRegistrationMetrics.Rejection reason, CustomerRegistrationEvent event) {
+        metrics.reject(reason);
+        event.outcome = reason.name();
+    }
 
-        if (optionalCustomer.isPresent()) {
-            if (optionalCustomer.get().getId() == request.getCustomer().getId()) {
-                return;
+    private static void commit(CustomerRegistrationEvent event, String method) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            if (event.outcome == null) {
+                event.outcome = "ERROR";
             }
-            throw new IllegalArgumentException(String.format("The phone number [%s] belongs to another customer.", phoneNumber));
+            event.commit();
         }
+    }
 
-        if (request.getCustomer().getId() == null) {
-            request.getCustomer().setId(UUID.randomUUID());
+    private boolean isAlreadyRegisteredInIndex(Customer customer, CustomerRegistrationEvent event) {
+        Optional<UUID> indexedCustomerId = phoneNumberIndex.findCustomerId(customer.getPhoneNumber());
+
+        if (indexedCustomerId.isEmpty()) {
+            return false;
+        }
+        if (indexedCustomerId.get().equals(customer.getId())) {
+            return true;
+        }
+        reject(CustomerRegistrationMetrics.Rejection.PHONE_NUMBER_TAKEN, event);
+        throw new IllegalArgumentException(String.format("The phone number [%s] belongs to another customer.", customer.getPhoneNumber()));
+    }
+
+    public BulkRegistrationResult registerNewCustomers(Iterator<Customer> customers) {
+
+        BulkRegistrationResult result = new BulkRegistrationResult();
+        List<Customer> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        long firstRow = 0;
+
+        while (customers.hasNext()) {
+            chunk.add(customers.next());
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                registerChunk(chunk, firstRow, result);
+                firstRow += chunk.size();
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            registerChunk(chunk, firstRow, result);
+        }
+
+        return result;
+    }
+
+    private void registerChunk(List<Customer> chunk, long firstRow, BulkRegistrationResult result) {
+
+        List<Boolean> validPhoneNumbers = chunk.parallelStream()
+                .map(customer -> customer.getPhoneNumber() != null && phoneNumberValidator.test(customer.getPhoneNumber()))
+                .collect(Collectors.toList());
+
+        Set<String> candidatePhoneNumbers = new HashSet<>();
+        boolean[] rejected = new boolean[chunk.size()];
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Customer customer = chunk.get(i);
+            String phoneNumber = customer.getPhoneNumber();
+            String error = null;
+
+            if (!validPhoneNumbers.get(i)) {
+                metrics.reject(CustomerRegistrationMetrics.Rejection.INVALID_PHONE_NUMBER);
+                error = String.format("Phone number [%s] is not valid.", phoneNumber);
+            } else if (customer.getName() == null || customer.getName().isBlank()) {
+                error = "Customer name must not be blank.";
+            } else if (!candidatePhoneNumbers.add(phoneNumber)) {
+                error = String.format("The phone number [%s] is duplicated in the request.", phoneNumber);
+            }
+
+            if (error != null) {
+                rejected[i] = true;
+                result.addError(new BulkRegistrationError(firstRow + i, phoneNumber, error));
+            }
         }
 
-        customerRepository.save(request.getCustomer());
+        if (candidatePhoneNumbers.isEmpty()) {
+            return;
+        }
+
+        Map<String, Customer> existingCustomers = customerRepository.selectCustomersByPhoneNumbers(candidatePhoneNumbers)
+                .stream()
+                .collect(Collectors.toMap(Customer::getPhoneNumber, Function.identity()));
+
+        List<Customer> newCustomers = new ArrayList<>();
+        List<Long> newCustomerRows = new ArrayList<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            if (rejected[i]) {
+                continue;
+            }
+            Customer customer = chunk.get(i);
+            Customer existingCustomer = existingCustomers.get(customer.getPhoneNumber());
+
+            if (existingCustomer != null) {
+                if (existingCustomer.getId().equals(customer.getId())) {
+                    result.addSkipped(1);
+                } else {
+                    metrics.reject(CustomerRegistrationMetrics.Rejection.PHONE_NUMBER_TAKEN);
+                    result.addError(new BulkRegistrationError(firstRow + i, customer.getPhoneNumber(),
+                            String.format("The phone number [%s] belongs to another customer.", customer.getPhoneNumber())));
+                }
+                continue;
+            }
+
+            if (customer.getId() == null) {
+                customer.setId(customerIdGenerator.generate());
+            }
+            newCustomers.add(customer);
+            newCustomerRows.add(firstRow + i);
+        }
+
+        if (newCustomers.isEmpty()) {
+            return;
+        }
+
+        try {
+            customerRepository.insertAll(newCustomers);
+            newCustomers.forEach(customer -> {
+                phoneNumberFilter.put(customer.getPhoneNumber());
+                phoneNumberIndex.put(customer.getPhoneNumber(), customer.getId());
+                eTagCache.evict(customer.getPhoneNumber());
+            });
+            result.addRegistered(newCustomers.size());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent registration took one of the phone numbers after the set-based check:
+            // the batch was rolled back, so retry the chunk row by row to report errors per row.
+            for (int i = 0; i < newCustomers.size(); i++) {
+                Customer customer = newCustomers.get(i);
+                try {
+                    registerNewCustomer(new CustomerRegistrationRequest(customer));
+                    result.addRegistered(1);
+                } catch (RuntimeException rowException) {
+                    result.addError(new BulkRegistrationError(newCustomerRows.get(i), customer.getPhoneNumber(), rowException.getMessage()));
+                }
+            }
+        }
     }
 }
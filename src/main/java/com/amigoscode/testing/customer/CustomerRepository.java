@@ -2,14 +2,41 @@ package com.amigoscode.testing.customer;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
-    @Query(value = "select id, name, phone_number from customer " +
+public interface CustomerRepository extends JpaRepository<Customer, UUID>, CustomerBulkRepository {
+
+    @Query(value = "select id, name, phone_number, version from customer " +
                     "where phone_number = :phone_number", nativeQuery = true)
     Optional<Customer> selectCustomerByPhoneNumber(@Param("phone_number") String phoneNumber);
-}
\ No newline at end of file
+
+    @Query(value = "select id, name, phone_number, version from customer " +
+                    "where phone_number in (:phone_numbers)", nativeQuery = true)
+    List<Customer> selectCustomersByPhoneNumbers(@Param("phone_numbers") Collection<String> phoneNumbers);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.phoneNumber from Customer c")
+    Stream<String> streamAllPhoneNumbers();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.id as id, c.phoneNumber as phoneNumber from Customer c")
+    Stream<CustomerPhoneNumber> streamAllCustomerPhoneNumbers();
+
+    // Changes with any insert, delete or phone number change, computed without reading the rows out of the database.
+    @Query(value = "select count(*) as count, coalesce(sum(" +
+                    "cast(ora_hash(cast(id as varchar) || phone_number, 4294967295, 0) as decimal(20)) * 4294967296 + " +
+                    "ora_hash(cast(id as varchar) || phone_number, 4294967295, 1)), 0) as checksum from customer",
+            nativeQuery = true)
+    CustomerTableFingerprint fingerprintCustomerPhoneNumbers();
+}
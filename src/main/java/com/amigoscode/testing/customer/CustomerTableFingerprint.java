@@ -0,0 +1,8 @@
+package com.amigoscode.testing.customer;
+
+public interface CustomerTableFingerprint {
+
+    Number getCount();
+
+    Number getChecksum();
+}
@@ -0,0 +1,129 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class PhoneNumberBloomFilter {
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final AtomicLongArray bits;
+
+    private final LongAdder bitCount = new LongAdder();
+
+    private final LongAdder insertions = new LongAdder();
+
+    // Until the filter has been loaded from the customer table every number might be registered.
+    private volatile boolean ready;
+
+    @Autowired
+    public PhoneNumberBloomFilter(
+            @Value("${customer.phone-number-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${customer.phone-number-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException(String.format("Expected insertions [%s] must be positive.", expectedInsertions));
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException(String.format("False positive probability [%s] must be between 0 and 1.", falsePositiveProbability));
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    public boolean mightContain(String phoneNumber) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(phoneNumber);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(hash1, hash2, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String phoneNumber) {
+        long hash = hash(phoneNumber);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(hash1, hash2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    bitCount.increment();
+                    break;
+                }
+            } while (true);
+        }
+        insertions.increment();
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    public double getFillRatio() {
+        return (double) bitCount.sum() / bitSize;
+    }
+
+    public double getFalsePositiveProbability() {
+        return Math.pow(getFillRatio(), hashFunctions);
+    }
+
+    private long index(int hash1, int hash2, int i) {
+        long combined = hash1 + (long) i * hash2;
+        return (combined & Long.MAX_VALUE) % bitSize;
+    }
+
+    // 64-bit FNV-1a followed by a murmur3 finalizer, computed over the chars to avoid allocating bytes.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,37 @@
+package com.amigoscode.testing.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+@Component
+public class PhoneNumberBloomFilterLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneNumberBloomFilterLoader.class);
+
+    private final CustomerRepository customerRepository;
+
+    private final PhoneNumberBloomFilter phoneNumberFilter;
+
+    @Autowired
+    public PhoneNumberBloomFilterLoader(CustomerRepository customerRepository, PhoneNumberBloomFilter phoneNumberFilter) {
+        this.customerRepository = customerRepository;
+        this.phoneNumberFilter = phoneNumberFilter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<String> phoneNumbers = customerRepository.streamAllPhoneNumbers()) {
+            phoneNumbers.forEach(phoneNumberFilter::put);
+        }
+        phoneNumberFilter.markReady();
+        LOGGER.info("Loaded phone number filter {}", PhoneNumberBloomFilterStats.of(phoneNumberFilter));
+    }
+}
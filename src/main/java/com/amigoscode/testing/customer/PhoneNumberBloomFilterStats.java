@@ -0,0 +1,67 @@
+package com.amigoscode.testing.customer;
+
+public class PhoneNumberBloomFilterStats {
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final long insertions;
+
+    private final double fillRatio;
+
+    private final double falsePositiveProbability;
+
+    private final boolean ready;
+
+    public PhoneNumberBloomFilterStats(long bitSize, int hashFunctions, long insertions,
+                                       double fillRatio, double falsePositiveProbability, boolean ready) {
+        this.bitSize = bitSize;
+        this.hashFunctions = hashFunctions;
+        this.insertions = insertions;
+        this.fillRatio = fillRatio;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.ready = ready;
+    }
+
+    static PhoneNumberBloomFilterStats of(PhoneNumberBloomFilter filter) {
+        return new PhoneNumberBloomFilterStats(filter.getBitSize(), filter.getHashFunctions(), filter.getInsertions(),
+                filter.getFillRatio(), filter.getFalsePositiveProbability(), filter.isReady());
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getInsertions() {
+        return insertions;
+    }
+
+    public double getFillRatio() {
+        return fillRatio;
+    }
+
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public String toString() {
+        return "PhoneNumberBloomFilterStats{" +
+                "bitSize=" + bitSize +
+                ", hashFunctions=" + hashFunctions +
+                ", insertions=" + insertions +
+                ", fillRatio=" + fillRatio +
+                ", falsePositiveProbability=" + falsePositiveProbability +
+                ", ready=" + ready +
+                '}';
+    }
+}
@@ -0,0 +1,414 @@
+package com.amigoscode.testing.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap phone number to customer id index kept in a memory-mapped file.
+ * <p>
+ * The file holds two open-addressing tables with linear probing: phone number, exactly as stored, to customer id,
+ * and the set of indexed customer ids. A hit is authoritative, a miss means "ask the database". Until the index has
+ * been checked against the customer table after opening, every lookup is a miss, so a file left by another database
+ * is never trusted.
+ * The header records whether the file was closed cleanly, and the fingerprint of the customer table it was closed
+ * against, so a node restarts warm instead of rebuilding only when the database still matches.
+ */
+@Component
+public class PhoneNumberIndex implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneNumberIndex.class);
+
+    static final int MAX_KEY_LENGTH = 23;
+
+    private static final int MAGIC = 0x50484e49;
+    private static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+    private static final int CLEAN_OFFSET = 24;
+    private static final int FINGERPRINTED_OFFSET = 25;
+    private static final int FINGERPRINT_OFFSET = 32;
+
+    // hash (8) | key length (1) | key (23) | customer id (16)
+    private static final int PHONE_SLOT_SIZE = 48;
+    private static final int KEY_LENGTH_OFFSET = 8;
+    private static final int KEY_OFFSET = 9;
+    private static final int PHONE_ID_OFFSET = 32;
+
+    private static final int ID_SLOT_SIZE = 16;
+
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_SIZE) / (PHONE_SLOT_SIZE + ID_SLOT_SIZE));
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final int idTableOffset;
+
+    private final int maxSize;
+
+    private final boolean warm;
+
+    private volatile boolean verified;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int size;
+
+    @Autowired
+    public PhoneNumberIndex(@Value("${customer.phone-number-index.path}") String path,
+                            @Value("${customer.phone-number-index.capacity:1048576}") int capacity) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(String.format("Phone number index capacity [%s] must be between 1 and %s.", capacity, MAX_CAPACITY));
+        }
+        this.path = Paths.get(path);
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.maxSize = (int) (this.capacity * 0.75);
+        this.idTableOffset = HEADER_SIZE + this.capacity * PHONE_SLOT_SIZE;
+        int fileSize = idTableOffset + this.capacity * ID_SLOT_SIZE;
+
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reusable = channel.size() == fileSize && isReusable(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE));
+        if (!reusable) {
+            // Truncating drops stale slots: the re-extended region reads back as zeros (empty slots).
+            channel.truncate(0);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        this.warm = reusable;
+
+        if (reusable) {
+            size = (int) buffer.getLong(SIZE_OFFSET);
+        } else {
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putLong(CAPACITY_OFFSET, this.capacity);
+            buffer.putLong(SIZE_OFFSET, 0);
+        }
+        // Marked dirty while open so that a crash forces a rebuild on the next start.
+        buffer.put(CLEAN_OFFSET, (byte) 0);
+        buffer.force();
+    }
+
+    private boolean isReusable(MappedByteBuffer header) {
+        return header.getInt(MAGIC_OFFSET) == MAGIC
+                && header.getInt(VERSION_OFFSET) == VERSION
+                && header.getLong(CAPACITY_OFFSET) == capacity
+                && header.get(CLEAN_OFFSET) == 1;
+    }
+
+    public Optional<UUID> findCustomerId(String phoneNumber) {
+        String key = key(phoneNumber);
+        if (key == null || !verified) {
+            return Optional.empty();
+        }
+        long stamp = lock.tryOptimisticRead();
+        UUID customerId = lookup(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                customerId = lookup(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Optional.ofNullable(customerId);
+    }
+
+    public boolean containsCustomerId(UUID customerId) {
+        if (customerId == null || !verified) {
+            return false;
+        }
+        long stamp = lock.tryOptimisticRead();
+        boolean contains = idSlot(customerId) >= 0;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                contains = idSlot(customerId) >= 0;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return contains;
+    }
+
+    public boolean put(String phoneNumber, UUID customerId) {
+        String key = key(phoneNumber);
+        if (key == null || customerId == null) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            long hash = hash(key);
+            int slot = (int) hash & mask;
+            while (true) {
+                int offset = HEADER_SIZE + slot * PHONE_SLOT_SIZE;
+                long slotHash = buffer.getLong(offset);
+                if (slotHash == 0) {
+                    if (size >= maxSize) {
+                        LOGGER.warn("Phone number index {} is full, lookups for new numbers fall back to the database", path);
+                        return false;
+                    }
+                    writeKey(offset, key);
+                    writeId(offset + PHONE_ID_OFFSET, customerId);
+                    buffer.putLong(offset, hash);
+                    buffer.putLong(SIZE_OFFSET, ++size);
+                    break;
+                }
+                if (slotHash == hash && keyEquals(offset, key)) {
+                    UUID superseded = readId(offset + PHONE_ID_OFFSET);
+                    writeId(offset + PHONE_ID_OFFSET, customerId);
+                    if (!superseded.equals(customerId)) {
+                        removeCustomerId(superseded);
+                    }
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            putCustomerId(customerId);
+            buffer.put(FINGERPRINTED_OFFSET, (byte) 0);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            for (int offset = HEADER_SIZE; offset < buffer.capacity(); offset += 8) {
+                buffer.putLong(offset, 0);
+            }
+            size = 0;
+            buffer.putLong(SIZE_OFFSET, 0);
+            buffer.put(FINGERPRINTED_OFFSET, (byte) 0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    // Called once the index matches the customer table, reused by fingerprint or rebuilt; lookups hit from then on.
+    public void markVerified() {
+        verified = true;
+    }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+    // True when the index was last fingerprinted with this value and has not changed since.
+    public boolean hasFingerprint(long fingerprint) {
+        long stamp = lock.readLock();
+        try {
+            return buffer.get(FINGERPRINTED_OFFSET) == 1 && buffer.getLong(FINGERPRINT_OFFSET) == fingerprint;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Records the customer table the index matches; any later put or clear drops it.
+    public void setFingerprint(long fingerprint) {
+        long stamp = lock.writeLock();
+        try {
+            buffer.putLong(FINGERPRINT_OFFSET, fingerprint);
+            buffer.put(FINGERPRINTED_OFFSET, (byte) 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (!channel.isOpen()) {
+                return;
+            }
+            buffer.force();
+            buffer.put(CLEAN_OFFSET, (byte) 1);
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private UUID lookup(String key) {
+        long hash = hash(key);
+        int slot = (int) hash & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            int offset = HEADER_SIZE + slot * PHONE_SLOT_SIZE;
+            long slotHash = buffer.getLong(offset);
+            if (slotHash == 0) {
+                return null;
+            }
+            if (slotHash == hash && keyEquals(offset, key)) {
+                return new UUID(buffer.getLong(offset + PHONE_ID_OFFSET), buffer.getLong(offset + PHONE_ID_OFFSET + 8));
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private int idSlot(UUID customerId) {
+        int slot = idHash(customerId) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            int offset = idTableOffset + slot * ID_SLOT_SIZE;
+            long most = buffer.getLong(offset);
+            long least = buffer.getLong(offset + 8);
+            if (most == 0 && least == 0) {
+                return -1;
+            }
+            if (most == customerId.getMostSignificantBits() && least == customerId.getLeastSignificantBits()) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void putCustomerId(UUID customerId) {
+        int slot = idHash(customerId) & mask;
+        while (true) {
+            int offset = idTableOffset + slot * ID_SLOT_SIZE;
+            long most = buffer.getLong(offset);
+            long least = buffer.getLong(offset + 8);
+            if (most == 0 && least == 0) {
+                writeId(offset, customerId);
+                return;
+            }
+            if (most == customerId.getMostSignificantBits() && least == customerId.getLeastSignificantBits()) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Backward shift deletion: later entries of the probe run move up into the hole, so lookups never stop early.
+    private void removeCustomerId(UUID customerId) {
+        int hole = idSlot(customerId);
+        if (hole < 0) {
+            return;
+        }
+        int slot = (hole + 1) & mask;
+        while (true) {
+            int offset = idTableOffset + slot * ID_SLOT_SIZE;
+            if (buffer.getLong(offset) == 0 && buffer.getLong(offset + 8) == 0) {
+                break;
+            }
+            UUID moving = readId(offset);
+            int home = idHash(moving) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                writeId(idTableOffset + hole * ID_SLOT_SIZE, moving);
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int offset = idTableOffset + hole * ID_SLOT_SIZE;
+        buffer.putLong(offset, 0);
+        buffer.putLong(offset + 8, 0);
+    }
+
+    private void writeKey(int offset, String key) {
+        buffer.put(offset + KEY_LENGTH_OFFSET, (byte) key.length());
+        for (int i = 0; i < key.length(); i++) {
+            buffer.put(offset + KEY_OFFSET + i, (byte) key.charAt(i));
+        }
+    }
+
+    private boolean keyEquals(int offset, String key) {
+        if (buffer.get(offset + KEY_LENGTH_OFFSET) != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (buffer.get(offset + KEY_OFFSET + i) != (byte) key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private UUID readId(int offset) {
+        return new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+    }
+
+    private void writeId(int offset, UUID customerId) {
+        buffer.putLong(offset, customerId.getMostSignificantBits());
+        buffer.putLong(offset + 8, customerId.getLeastSignificantBits());
+    }
+
+    // The phone number exactly as the customer table holds it, so the index never matches a number the unique key
+    // tells apart. Only a leading '+' and digits fit a slot; anything else is not indexable.
+    static String key(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.isEmpty() || phoneNumber.length() > MAX_KEY_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (!(c >= '0' && c <= '9' || c == '+' && i == 0)) {
+                return null;
+            }
+        }
+        return phoneNumber;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        // 0 marks an empty slot
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int idHash(UUID customerId) {
+        long hash = customerId.getMostSignificantBits() ^ customerId.getLeastSignificantBits();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
@@ -0,0 +1,64 @@
+package com.amigoscode.testing.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+@Component
+public class PhoneNumberIndexLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneNumberIndexLoader.class);
+
+    private final CustomerRepository customerRepository;
+
+    private final PhoneNumberIndex phoneNumberIndex;
+
+    @Autowired
+    public PhoneNumberIndexLoader(CustomerRepository customerRepository, PhoneNumberIndex phoneNumberIndex) {
+        this.customerRepository = customerRepository;
+        this.phoneNumberIndex = phoneNumberIndex;
+    }
+
+    // A cleanly closed index is reused as is only when the customer table still has the fingerprint it was closed
+    // with; otherwise it is rebuilt. Either way the index is trusted only from then on.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        CustomerTableFingerprint table = customerRepository.fingerprintCustomerPhoneNumbers();
+        long customers = table.getCount().longValue();
+        if (phoneNumberIndex.isWarm() && phoneNumberIndex.hasFingerprint(fingerprint(table))) {
+            LOGGER.info("Reusing warm phone number index with {} entries", phoneNumberIndex.size());
+            phoneNumberIndex.markVerified();
+            return;
+        }
+
+        phoneNumberIndex.clear();
+        try (Stream<CustomerPhoneNumber> phoneNumbers = customerRepository.streamAllCustomerPhoneNumbers()) {
+            phoneNumbers.forEach(c -> phoneNumberIndex.put(c.getPhoneNumber(), c.getId()));
+        }
+        phoneNumberIndex.markVerified();
+        LOGGER.info("Rebuilt phone number index with {} of {} customers", phoneNumberIndex.size(), customers);
+    }
+
+    // Runs before the index closes, as this bean depends on it. Without a fingerprint the next start rebuilds.
+    @PreDestroy
+    public void recordFingerprint() {
+        try {
+            phoneNumberIndex.setFingerprint(fingerprint(customerRepository.fingerprintCustomerPhoneNumbers()));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot fingerprint the customer table, the phone number index is rebuilt on next start", e);
+        }
+    }
+
+    private static long fingerprint(CustomerTableFingerprint table) {
+        return 31 * table.getCount().longValue() + new BigDecimal(table.getChecksum().toString()).toBigInteger().longValue();
+    }
+}
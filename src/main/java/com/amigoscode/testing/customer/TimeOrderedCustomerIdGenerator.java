@@ -0,0 +1,58 @@
+package com.amigoscode.testing.customer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 generator: 48 bits of unix milliseconds, a 12 bit sub-millisecond counter and 62 random bits.
+ * Ids are strictly increasing within the process, so new customers are appended to the right edge of the
+ * primary key B-tree instead of being scattered across it.
+ */
+@Component
+@ConditionalOnProperty(value = "customer.id-generator", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedCustomerIdGenerator implements CustomerIdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+
+    private final Clock clock;
+
+    private final Random random;
+
+    // unix millis << COUNTER_BITS | counter of the last generated id
+    private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+
+    public TimeOrderedCustomerIdGenerator() {
+        this(Clock.systemUTC(), new SecureRandom());
+    }
+
+    TimeOrderedCustomerIdGenerator(Clock clock, Random random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    @Override
+    public UUID generate() {
+        long now = clock.millis() << COUNTER_BITS;
+        long timestampAndCounter;
+        long previous;
+        do {
+            previous = lastTimestampAndCounter.get();
+            // When the clock stalls or goes backwards keep counting from the last id; a counter overflow
+            // borrows from the next millisecond, which keeps ids monotonic.
+            timestampAndCounter = Math.max(now, previous + 1);
+        } while (!lastTimestampAndCounter.compareAndSet(previous, timestampAndCounter));
+
+        long timestamp = timestampAndCounter >>> COUNTER_BITS;
+        long counter = timestampAndCounter & ((1L << COUNTER_BITS) - 1);
+
+        long mostSigBits = (timestamp << 16) | 0x7000L | counter;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,118 @@
+package com.amigoscode.testing.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient concurrency limit: how many requests may be in flight at once, adjusted from their latency. Every
+ * {@code sampleSize} completed requests, their average latency is compared with a long-term average over about
+ * {@code longWindow} samples. While the two agree the limit grows by its square root, leaving room for a small queue;
+ * once requests slow down past {@code rttTolerance} times the long-term latency, the limit shrinks in proportion, but
+ * never by more than half at once. A request over the limit is rejected at once instead of waiting.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final String name;
+
+    private final AdaptiveConcurrencyLimitConfig config;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private double longRttNanos;
+
+    private double shortRttNanos;
+
+    private long sampleRttNanos;
+
+    private int samples;
+
+    private int sampleMaxInFlight;
+
+    public AdaptiveConcurrencyLimit(String name, AdaptiveConcurrencyLimitConfig config) {
+        this.name = name;
+        this.config = config;
+        this.limit = config.getInitialLimit();
+        this.estimatedLimit = config.getInitialLimit();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos) {
+        onSample(rttNanos, inFlight.getAndDecrement());
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightBeforeRelease) {
+        sampleRttNanos += rttNanos;
+        sampleMaxInFlight = Math.max(sampleMaxInFlight, inFlightBeforeRelease);
+        if (++samples < config.getSampleSize()) {
+            return;
+        }
+        shortRttNanos = (double) sampleRttNanos / samples;
+        int maxInFlight = sampleMaxInFlight;
+        sampleRttNanos = 0;
+        samples = 0;
+        sampleMaxInFlight = 0;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) / config.getLongWindow();
+        }
+        // The load that raised the long-term latency is gone, so let it come down faster
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+        // A limit that was not used says nothing about the latency at that limit
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * longRttNanos / shortRttNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        estimatedLimit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized ConcurrencyLimitStats getStats() {
+        return new ConcurrencyLimitStats(name, limit, inFlight.get(), accepted.sum(), rejected.sum(),
+                toMillis(longRttNanos), toMillis(shortRttNanos));
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.amigoscode.testing.limit;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Settings of one adaptive concurrency limit. Each value is read from {@code concurrency-limit.<pool>.<key>},
+ * falling back to {@code concurrency-limit.<key>}.
+ */
+public class AdaptiveConcurrencyLimitConfig {
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int sampleSize;
+
+    private final int longWindow;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    public AdaptiveConcurrencyLimitConfig(int initialLimit, int minLimit, int maxLimit, int sampleSize, int longWindow,
+                                          double rttTolerance, double smoothing) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || sampleSize < 1 || longWindow < 1
+                || rttTolerance < 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid concurrency limit settings [initialLimit=%s, minLimit=%s, maxLimit=%s, sampleSize=%s, longWindow=%s, rttTolerance=%s, smoothing=%s]",
+                    initialLimit, minLimit, maxLimit, sampleSize, longWindow, rttTolerance, smoothing));
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.sampleSize = sampleSize;
+        this.longWindow = longWindow;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+    }
+
+    static AdaptiveConcurrencyLimitConfig from(Environment environment, String pool) {
+        PropertyReader properties = new PropertyReader(environment, pool);
+        return new AdaptiveConcurrencyLimitConfig(
+                properties.getInt("initial-limit"),
+                properties.getInt("min-limit"),
+                properties.getInt("max-limit"),
+                properties.getInt("sample-size"),
+                properties.getInt("long-window"),
+                properties.getDouble("rtt-tolerance"),
+                properties.getDouble("smoothing"));
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public int getLongWindow() {
+        return longWindow;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimitConfig{" +
+                "initialLimit=" + initialLimit +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                ", sampleSize=" + sampleSize +
+                ", longWindow=" + longWindow +
+                ", rttTolerance=" + rttTolerance +
+                ", smoothing=" + smoothing +
+                '}';
+    }
+
+    private static class PropertyReader {
+
+        private static final String PREFIX = "concurrency-limit.";
+
+        private final Environment environment;
+
+        private final String pool;
+
+        PropertyReader(Environment environment, String pool) {
+            this.environment = environment;
+            this.pool = pool;
+        }
+
+        int getInt(String key) {
+            return Integer.parseInt(get(key));
+        }
+
+        double getDouble(String key) {
+            return Double.parseDouble(get(key));
+        }
+
+        private String get(String key) {
+            String value = environment.getProperty(PREFIX + pool + "." + key);
+            return value != null ? value : environment.getRequiredProperty(PREFIX + key);
+        }
+    }
+}
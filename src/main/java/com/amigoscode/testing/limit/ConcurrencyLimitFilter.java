@@ -0,0 +1,103 @@
+package com.amigoscode.testing.limit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Sheds load in front of the payment and customer registration controllers. Each has its own
+ * {@link AdaptiveConcurrencyLimit}, so a spike of one kind of traffic does not starve the other; a request over its
+ * limit gets a 503 with {@code Retry-After} before it takes a controller thread's time.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final List<Pool> pools = new ArrayList<>();
+
+    private final String retryAfterSeconds;
+
+    @Autowired
+    public ConcurrencyLimitFilter(Environment environment,
+                                  @Value("${concurrency-limit.retry-after-seconds}") long retryAfterSeconds) {
+        this(List.of(
+                new AdaptiveConcurrencyLimit("payment", AdaptiveConcurrencyLimitConfig.from(environment, "payment")),
+                new AdaptiveConcurrencyLimit("customer-registration",
+                        AdaptiveConcurrencyLimitConfig.from(environment, "customer-registration"))),
+                List.of("/api/v1/payment", "/api/v1/customer-registration"), retryAfterSeconds);
+    }
+
+    ConcurrencyLimitFilter(List<AdaptiveConcurrencyLimit> limits, List<String> paths, long retryAfterSeconds) {
+        for (int i = 0; i < limits.size(); i++) {
+            pools.add(new Pool(paths.get(i), limits.get(i)));
+        }
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimit limit = limitFor(request.getRequestURI().substring(request.getContextPath().length()));
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    private AdaptiveConcurrencyLimit limitFor(String path) {
+        for (Pool pool : pools) {
+            if (pool.matches(path)) {
+                return pool.limit;
+            }
+        }
+        return null;
+    }
+
+    public List<ConcurrencyLimitStats> getStats() {
+        return pools.stream()
+                .map(pool -> pool.limit.getStats())
+                .collect(Collectors.toList());
+    }
+
+    private static class Pool {
+
+        private final String path;
+
+        private final String pathPrefix;
+
+        private final AdaptiveConcurrencyLimit limit;
+
+        Pool(String path, AdaptiveConcurrencyLimit limit) {
+            this.path = path;
+            this.pathPrefix = path + "/";
+            this.limit = limit;
+        }
+
+        boolean matches(String requestPath) {
+            return requestPath.equals(path) || requestPath.startsWith(pathPrefix);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.amigoscode.testing.limit;
+
+public class ConcurrencyLimitStats {
+
+    private final String name;
+
+    private final int limit;
+
+    private final int inFlight;
+
+    private final long acceptedRequests;
+
+    private final long rejectedRequests;
+
+    private final double longRttMillis;
+
+    private final double shortRttMillis;
+
+    public ConcurrencyLimitStats(String name, int limit, int inFlight, long acceptedRequests, long rejectedRequests,
+                                 double longRttMillis, double shortRttMillis) {
+        this.name = name;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.acceptedRequests = acceptedRequests;
+        this.rejectedRequests = rejectedRequests;
+        this.longRttMillis = longRttMillis;
+        this.shortRttMillis = shortRttMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public long getAcceptedRequests() {
+        return acceptedRequests;
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    public double getLongRttMillis() {
+        return longRttMillis;
+    }
+
+    public double getShortRttMillis() {
+        return shortRttMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitStats{" +
+                "name='" + name + '\'' +
+                ", limit=" + limit +
+                ", inFlight=" + inFlight +
+                ", acceptedRequests=" + acceptedRequests +
+                ", rejectedRequests=" + rejectedRequests +
+                ", longRttMillis=" + longRttMillis +
+                ", shortRttMillis=" + shortRttMillis +
+                '}';
+    }
+}
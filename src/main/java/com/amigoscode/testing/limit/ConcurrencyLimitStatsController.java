@@ -0,0 +1,25 @@
+package com.amigoscode.testing.limit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/concurrency-limits")
+public class ConcurrencyLimitStatsController {
+
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
+
+    @Autowired
+    public ConcurrencyLimitStatsController(ConcurrencyLimitFilter concurrencyLimitFilter) {
+        this.concurrencyLimitFilter = concurrencyLimitFilter;
+    }
+
+    @GetMapping
+    public List<ConcurrencyLimitStats> getConcurrencyLimitStats() {
+        return concurrencyLimitFilter.getStats();
+    }
+}
@@ -0,0 +1,51 @@
+package com.amigoscode.testing.limit;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Rate allowed to each client of one endpoint. Each value is read from {@code rate-limit.<endpoint>.<key>}, falling
+ * back to {@code rate-limit.<key>}.
+ */
+public class RateLimitConfig {
+
+    private static final String PREFIX = "rate-limit.";
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    public RateLimitConfig(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid rate limit [permitsPerSecond=%s, burst=%s]", permitsPerSecond, burst));
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    static RateLimitConfig from(Environment environment, String endpoint) {
+        return new RateLimitConfig(Double.parseDouble(get(environment, endpoint, "permits-per-second")),
+                Integer.parseInt(get(environment, endpoint, "burst")));
+    }
+
+    private static String get(Environment environment, String endpoint, String key) {
+        String value = environment.getProperty(PREFIX + endpoint + "." + key);
+        return value != null ? value : environment.getRequiredProperty(PREFIX + key);
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitConfig{" +
+                "permitsPerSecond=" + permitsPerSecond +
+                ", burst=" + burst +
+                '}';
+    }
+}
@@ -0,0 +1,141 @@
+package com.amigoscode.testing.limit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Gives each client its own rate on the payment and customer registration endpoints, so one partner sending too much
+ * only slows itself down. A client is its {@code rate-limit.client-header} API key when that key is one of
+ * {@code rate-limit.api-keys}, and its address otherwise, so made-up keys do not get a fresh bucket. A request over the
+ * client's rate gets a 429 with {@code Retry-After}. It runs before the {@link ConcurrencyLimitFilter} so those
+ * requests never take a concurrency slot.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PREFIX = "/api/v1/";
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+
+    private final String clientHeader;
+
+    private final Set<String> apiKeys;
+
+    @Autowired
+    public RateLimitFilter(Environment environment,
+                           @Value("${rate-limit.client-header}") String clientHeader,
+                           @Value("${rate-limit.api-keys}") String[] apiKeys,
+                           @Value("${rate-limit.max-clients}") int maxClients,
+                           @Value("${rate-limit.idle-millis}") long idleMillis) {
+        this(configs(environment, "payment", "customer-registration"), clientHeader, new HashSet<>(Arrays.asList(apiKeys)), maxClients,
+                TimeUnit.MILLISECONDS.toNanos(idleMillis));
+    }
+
+    RateLimitFilter(Map<String, RateLimitConfig> configs, String clientHeader, Set<String> apiKeys, int maxClients,
+                    long idleNanos) {
+        long now = System.nanoTime();
+        configs.forEach((name, config) -> endpoints.add(new Endpoint(name, config,
+                new TokenBucketRateLimiter(config.getPermitsPerSecond(), config.getBurst(), maxClients, idleNanos,
+                        now))));
+        this.clientHeader = clientHeader;
+        this.apiKeys = apiKeys;
+    }
+
+    private static Map<String, RateLimitConfig> configs(Environment environment, String... names) {
+        Map<String, RateLimitConfig> configs = new LinkedHashMap<>();
+        for (String name : names) {
+            configs.put(name, RateLimitConfig.from(environment, name));
+        }
+        return configs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Endpoint endpoint = endpointFor(request.getRequestURI().substring(request.getContextPath().length()));
+        if (endpoint != null) {
+            long waitNanos = endpoint.limiter.tryAcquire(clientOf(request), System.nanoTime());
+            if (waitNanos > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(toRetryAfterSeconds(waitNanos)));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Prefixed, so an API key can never share a bucket with an address.
+    private String clientOf(HttpServletRequest request) {
+        String apiKey = request.getHeader(clientHeader);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "address:" + request.getRemoteAddr();
+    }
+
+    private Endpoint endpointFor(String path) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.matches(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public List<RateLimitStats> getStats() {
+        return endpoints.stream()
+                .map(endpoint -> new RateLimitStats(endpoint.name, endpoint.config.getPermitsPerSecond(),
+                        endpoint.config.getBurst(), endpoint.limiter.getSlots(), endpoint.limiter.getOccupiedSlots(),
+                        endpoint.limiter.getAllowed(), endpoint.limiter.getRejected(), endpoint.limiter.getTableFull()))
+                .collect(Collectors.toList());
+    }
+
+    private static class Endpoint {
+
+        private final String name;
+
+        private final String path;
+
+        private final String pathPrefix;
+
+        private final RateLimitConfig config;
+
+        private final TokenBucketRateLimiter limiter;
+
+        Endpoint(String name, RateLimitConfig config, TokenBucketRateLimiter limiter) {
+            this.name = name;
+            this.path = PATH_PREFIX + name;
+            this.pathPrefix = path + "/";
+            this.config = config;
+            this.limiter = limiter;
+        }
+
+        boolean matches(String requestPath) {
+            return requestPath.equals(path) || requestPath.startsWith(pathPrefix);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.amigoscode.testing.limit;
+
+public class RateLimitStats {
+
+    private final String name;
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final int slots;
+
+    private final long occupiedSlots;
+
+    private final long allowedRequests;
+
+    private final long rejectedRequests;
+
+    private final long tableFullRequests;
+
+    public RateLimitStats(String name, double permitsPerSecond, int burst, int slots, long occupiedSlots,
+                          long allowedRequests, long rejectedRequests, long tableFullRequests) {
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.slots = slots;
+        this.occupiedSlots = occupiedSlots;
+        this.allowedRequests = allowedRequests;
+        this.rejectedRequests = rejectedRequests;
+        this.tableFullRequests = tableFullRequests;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public long getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    public long getAllowedRequests() {
+        return allowedRequests;
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    public long getTableFullRequests() {
+        return tableFullRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitStats{" +
+                "name='" + name + '\'' +
+                ", permitsPerSecond=" + permitsPerSecond +
+                ", burst=" + burst +
+                ", slots=" + slots +
+                ", occupiedSlots=" + occupiedSlots +
+                ", allowedRequests=" + allowedRequests +
+                ", rejectedRequests=" + rejectedRequests +
+                ", tableFullRequests=" + tableFullRequests +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package com.amigoscode.testing.limit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/rate-limits")
+public class RateLimitStatsController {
+
+    private final RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    public RateLimitStatsController(RateLimitFilter rateLimitFilter) {
+        this.rateLimitFilter = rateLimitFilter;
+    }
+
+    @GetMapping
+    public List<RateLimitStats> getRateLimitStats() {
+        return rateLimitFilter.getStats();
+    }
+}
@@ -0,0 +1,160 @@
+package com.amigoscode.testing.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket per client in a fixed open-addressing table, so memory stays at 16 bytes a slot however many clients
+ * come and go. A slot holds the client's 64-bit hash and the instant its bucket is full again: taking a token pushes
+ * that instant one refill interval further, and a request is allowed while it stays within {@code burst} intervals of
+ * now. Both are updated by compare-and-set, so checks never lock, and they share a cache line, so a check is one
+ * memory access past hashing the client.
+ * <p>
+ * A full bucket behaves exactly like a missing one, so a new client takes over the first slot on its probe whose
+ * bucket has been full for {@code idleNanos}, keeping whatever full state it had. A new client that finds neither a
+ * free nor an idle slot within {@code MAX_PROBES} is turned away until one of them goes idle, so flooding the table
+ * with new clients cannot get anyone past the limit. Racing with a takeover can cost either client one token, and
+ * clients whose hashes collide share a bucket.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int MAX_PROBES = 16;
+
+    private static final long EMPTY = 0;
+
+    private final long refillIntervalNanos;
+
+    private final long burstNanos;
+
+    private final long idleNanos;
+
+    private final long originNanos;
+
+    // Pairs of client hash and the instant, from originNanos, its bucket is full again.
+    private final AtomicLongArray slots;
+
+    private final int mask;
+
+    private final LongAdder occupiedSlots = new LongAdder();
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder tableFull = new LongAdder();
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, int maxClients, long idleNanos, long nowNanos) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxClients < 1 || maxClients > 1 << 28 || idleNanos < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid rate limit [permitsPerSecond=%s, burst=%s, maxClients=%s, idleNanos=%s]",
+                    permitsPerSecond, burst, maxClients, idleNanos));
+        }
+        this.refillIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = refillIntervalNanos * burst;
+        this.idleNanos = idleNanos;
+        this.originNanos = nowNanos;
+        // At most half full, so probes stay short
+        int slotCount = Integer.highestOneBit(2 * maxClients - 1) << 1;
+        this.slots = new AtomicLongArray(2 * slotCount);
+        this.mask = slotCount - 1;
+    }
+
+    // Zero when a token was taken, otherwise how long until the next one.
+    public long tryAcquire(String client, long nowNanos) {
+        long hash = hash(client);
+        long now = nowNanos - originNanos;
+        int home = (int) hash;
+        while (true) {
+            int idleSlot = -1;
+            long idleHash = EMPTY;
+            int freeSlot = -1;
+            long untilIdle = Long.MAX_VALUE;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = ((home + probe) & mask) << 1;
+                long slotHash = slots.get(slot);
+                if (slotHash == hash) {
+                    return take(slot + 1, now);
+                }
+                if (slotHash == EMPTY) {
+                    freeSlot = slot;
+                    break;
+                }
+                long slotUntilIdle = slots.get(slot + 1) - (now - idleNanos);
+                if (idleSlot < 0 && slotUntilIdle <= 0) {
+                    idleSlot = slot;
+                    idleHash = slotHash;
+                }
+                untilIdle = Math.min(untilIdle, slotUntilIdle);
+            }
+
+            if (idleSlot >= 0) {
+                if (slots.compareAndSet(idleSlot, idleHash, hash) || slots.get(idleSlot) == hash) {
+                    return take(idleSlot + 1, now);
+                }
+            } else if (freeSlot >= 0) {
+                if (slots.compareAndSet(freeSlot, EMPTY, hash)) {
+                    occupiedSlots.increment();
+                    return take(freeSlot + 1, now);
+                }
+                if (slots.get(freeSlot) == hash) {
+                    return take(freeSlot + 1, now);
+                }
+            } else {
+                tableFull.increment();
+                return Math.max(1, untilIdle);
+            }
+        }
+    }
+
+    private long take(int fullAtSlot, long now) {
+        while (true) {
+            long fullAt = slots.get(fullAtSlot);
+            long next = Math.max(fullAt, now) + refillIntervalNanos;
+            long waitNanos = next - now - burstNanos;
+            if (waitNanos > 0) {
+                rejected.increment();
+                return waitNanos;
+            }
+            if (slots.compareAndSet(fullAtSlot, fullAt, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public int getSlots() {
+        return mask + 1;
+    }
+
+    public long getOccupiedSlots() {
+        return occupiedSlots.sum();
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTableFull() {
+        return tableFull.sum();
+    }
+
+    // 64-bit FNV-1a followed by a murmur3 finalizer, computed over the chars to avoid allocating bytes.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+}
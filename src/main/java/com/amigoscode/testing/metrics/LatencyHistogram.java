@@ -0,0 +1,154 @@
+package com.amigoscode.testing.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram. Values below {@code 2^precisionBits} nanoseconds get a
+ * bucket each, and every power of two above that is split into {@code 2^precisionBits} buckets, so a value is known
+ * to within {@code 1 / 2^precisionBits} of itself however large it is. Recording is a few shifts and one atomic
+ * increment; values above {@code highestTrackableNanos} count as that.
+ * <p>
+ * Counts are kept per interval in two tables used in turn, and a summary covers the last complete interval and the
+ * current one, so a spike shows within an interval and is gone after two. The first recording of an interval clears
+ * the table it reuses, which can drop samples recorded into it at the same moment.
+ */
+public class LatencyHistogram {
+
+    private final int precisionBits;
+
+    private final int subBuckets;
+
+    private final long highestTrackableNanos;
+
+    private final long intervalNanos;
+
+    private final long originNanos;
+
+    // The table of interval n is intervals[n & 1]
+    private final AtomicLongArray[] intervals;
+
+    private final AtomicLong currentInterval = new AtomicLong();
+
+    private final LongAdder count = new LongAdder();
+
+    public LatencyHistogram(long highestTrackableNanos, int precisionBits, long intervalNanos, long nowNanos) {
+        if (precisionBits < 1 || precisionBits > 16 || highestTrackableNanos < 1L << precisionBits || intervalNanos < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid latency histogram [highestTrackableNanos=%s, precisionBits=%s, intervalNanos=%s]",
+                    highestTrackableNanos, precisionBits, intervalNanos));
+        }
+        this.precisionBits = precisionBits;
+        this.subBuckets = 1 << precisionBits;
+        this.highestTrackableNanos = highestTrackableNanos;
+        this.intervalNanos = intervalNanos;
+        this.originNanos = nowNanos;
+        int buckets = bucketOf(highestTrackableNanos) + 1;
+        this.intervals = new AtomicLongArray[]{new AtomicLongArray(buckets), new AtomicLongArray(buckets)};
+    }
+
+    public void record(long valueNanos, long nowNanos) {
+        long interval = intervalAt(nowNanos);
+        long current = currentInterval.get();
+        if (interval > current && currentInterval.compareAndSet(current, interval)) {
+            clear(intervals[(int) (interval & 1)]);
+            if (interval > current + 1) {
+                clear(intervals[(int) ((interval - 1) & 1)]);
+            }
+        } else if (interval < current - 1) {
+            return;
+        }
+        intervals[(int) (interval & 1)].incrementAndGet(bucketOf(Math.min(Math.max(valueNanos, 0), highestTrackableNanos)));
+        count.increment();
+    }
+
+    public LatencySummary getSummary(long nowNanos) {
+        long interval = intervalAt(nowNanos);
+        long current = currentInterval.get();
+        long[] counts = new long[intervals[0].length()];
+        if (current >= interval - 1) {
+            add(counts, intervals[(int) (current & 1)]);
+        }
+        if (current == interval) {
+            add(counts, intervals[(int) ((current - 1) & 1)]);
+        }
+
+        long windowCount = 0;
+        double totalNanos = 0;
+        int highestBucket = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] > 0) {
+                windowCount += counts[bucket];
+                totalNanos += counts[bucket] * (lowestValueOf(bucket) + highestValueOf(bucket)) / 2.0;
+                highestBucket = bucket;
+            }
+        }
+        return new LatencySummary(count.sum(), windowCount,
+                windowCount == 0 ? 0 : toMillis(totalNanos / windowCount),
+                toMillis(percentile(counts, windowCount, 50)),
+                toMillis(percentile(counts, windowCount, 90)),
+                toMillis(percentile(counts, windowCount, 99)),
+                toMillis(percentile(counts, windowCount, 99.9)),
+                windowCount == 0 ? 0 : toMillis(highestValueOf(highestBucket)));
+    }
+
+    private long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return highestValueOf(bucket);
+            }
+        }
+        return highestTrackableNanos;
+    }
+
+    private long intervalAt(long nowNanos) {
+        return Math.max(0, nowNanos - originNanos) / intervalNanos;
+    }
+
+    int bucketOf(long value) {
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return ((shift + 1) << precisionBits) + (int) (value >>> shift) - subBuckets;
+    }
+
+    long lowestValueOf(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int shift = (bucket >> precisionBits) - 1;
+        return (long) ((bucket & (subBuckets - 1)) + subBuckets) << shift;
+    }
+
+    long highestValueOf(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int shift = (bucket >> precisionBits) - 1;
+        return Math.min(((long) ((bucket & (subBuckets - 1)) + subBuckets + 1) << shift) - 1, highestTrackableNanos);
+    }
+
+    private static void add(long[] counts, AtomicLongArray table) {
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] += table.get(bucket);
+        }
+    }
+
+    private static void clear(AtomicLongArray table) {
+        for (int bucket = 0; bucket < table.length(); bucket++) {
+            table.set(bucket, 0);
+        }
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.amigoscode.testing.metrics;
+
+/**
+ * {@code count} is every value recorded since start; the other fields cover the recent window only, which is the
+ * last complete interval and the current one.
+ */
+public class LatencySummary {
+
+    private final long count;
+
+    private final long windowCount;
+
+    private final double meanMillis;
+
+    private final double p50Millis;
+
+    private final double p90Millis;
+
+    private final double p99Millis;
+
+    private final double p999Millis;
+
+    private final double maxMillis;
+
+    public LatencySummary(long count, long windowCount, double meanMillis, double p50Millis, double p90Millis,
+                          double p99Millis, double p999Millis, double maxMillis) {
+        this.count = count;
+        this.windowCount = windowCount;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getWindowCount() {
+        return windowCount;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getP999Millis() {
+        return p999Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySummary{" +
+                "count=" + count +
+                ", windowCount=" + windowCount +
+                ", meanMillis=" + meanMillis +
+                ", p50Millis=" + p50Millis +
+                ", p90Millis=" + p90Millis +
+                ", p99Millis=" + p99Millis +
+                ", p999Millis=" + p999Millis +
+                ", maxMillis=" + maxMillis +
+                '}';
+    }
+}
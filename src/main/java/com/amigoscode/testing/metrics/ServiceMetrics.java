@@ -0,0 +1,83 @@
+package com.amigoscode.testing.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms for the phases of a service call and counters for the reasons it turns a call down. A phase is
+ * timed from the end of the previous one, so a call costs one {@code System.nanoTime()} per phase:
+ * <pre>
+ * long started = System.nanoTime();
+ * long validated = metrics.record(Phase.VALIDATION, started);
+ * metrics.record(Phase.SAVE, validated);
+ * </pre>
+ * Phases and reasons are enums and are reported in kebab case.
+ */
+public class ServiceMetrics<P extends Enum<P>, R extends Enum<R>> {
+
+    // Latencies are known to within 1/64, about 1.6%
+    private static final int PRECISION_BITS = 6;
+
+    private final String name;
+
+    private final P[] phases;
+
+    private final R[] rejections;
+
+    private final LatencyHistogram[] histograms;
+
+    private final LongAdder[] rejectionCounts;
+
+    protected ServiceMetrics(String name, Class<P> phaseType, Class<R> rejectionType, long highestTrackableNanos,
+                             long intervalNanos) {
+        this.name = name;
+        this.phases = phaseType.getEnumConstants();
+        this.rejections = rejectionType.getEnumConstants();
+        this.histograms = new LatencyHistogram[phases.length];
+        long now = System.nanoTime();
+        for (int i = 0; i < phases.length; i++) {
+            histograms[i] = new LatencyHistogram(highestTrackableNanos, PRECISION_BITS, intervalNanos, now);
+        }
+        this.rejectionCounts = new LongAdder[rejections.length];
+        for (int i = 0; i < rejections.length; i++) {
+            rejectionCounts[i] = new LongAdder();
+        }
+    }
+
+    // Records the time since startNanos against the phase and returns now, where the next phase starts.
+    public long record(P phase, long startNanos) {
+        long now = System.nanoTime();
+        histograms[phase.ordinal()].record(now - startNanos, now);
+        return now;
+    }
+
+    public void reject(R reason) {
+        rejectionCounts[reason.ordinal()].increment();
+    }
+
+    public LatencySummary getLatency(P phase) {
+        return histograms[phase.ordinal()].getSummary(System.nanoTime());
+    }
+
+    public long getRejections(R reason) {
+        return rejectionCounts[reason.ordinal()].sum();
+    }
+
+    public ServiceMetricsStats getStats() {
+        Map<String, LatencySummary> latencies = new LinkedHashMap<>();
+        for (P phase : phases) {
+            latencies.put(kebabCase(phase), getLatency(phase));
+        }
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        for (R reason : rejections) {
+            rejected.put(kebabCase(reason), getRejections(reason));
+        }
+        return new ServiceMetricsStats(name, latencies, rejected);
+    }
+
+    private static String kebabCase(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
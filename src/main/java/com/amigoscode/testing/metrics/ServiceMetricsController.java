@@ -0,0 +1,28 @@
+package com.amigoscode.testing.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("api/v1/metrics")
+public class ServiceMetricsController {
+
+    private final List<ServiceMetrics<?, ?>> serviceMetrics;
+
+    @Autowired
+    public ServiceMetricsController(List<ServiceMetrics<?, ?>> serviceMetrics) {
+        this.serviceMetrics = serviceMetrics;
+    }
+
+    @GetMapping
+    public List<ServiceMetricsStats> getMetrics() {
+        return serviceMetrics.stream()
+                .map(ServiceMetrics::getStats)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,39 @@
+package com.amigoscode.testing.metrics;
+
+import java.util.Map;
+
+public class ServiceMetricsStats {
+
+    private final String name;
+
+    private final Map<String, LatencySummary> latencies;
+
+    private final Map<String, Long> rejections;
+
+    public ServiceMetricsStats(String name, Map<String, LatencySummary> latencies, Map<String, Long> rejections) {
+        this.name = name;
+        this.latencies = latencies;
+        this.rejections = rejections;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, LatencySummary> getLatencies() {
+        return latencies;
+    }
+
+    public Map<String, Long> getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceMetricsStats{" +
+                "name='" + name + '\'' +
+                ", latencies=" + latencies +
+                ", rejections=" + rejections +
+                '}';
+    }
+}
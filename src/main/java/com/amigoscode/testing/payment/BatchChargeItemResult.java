@@ -0,0 +1,63 @@
+package com.amigoscode.testing.payment;
+
+import java.util.UUID;
+
+public class BatchChargeItemResult {
+
+    private final int index;
+
+    private final UUID customerId;
+
+    private final Long paymentId;
+
+    private final boolean charged;
+
+    private final String message;
+
+    public BatchChargeItemResult(int index, UUID customerId, Long paymentId, boolean charged, String message) {
+        this.index = index;
+        this.customerId = customerId;
+        this.paymentId = paymentId;
+        this.charged = charged;
+        this.message = message;
+    }
+
+    static BatchChargeItemResult charged(int index, Payment payment) {
+        return new BatchChargeItemResult(index, payment.getCustomerId(), payment.getPaymentId(), true, null);
+    }
+
+    static BatchChargeItemResult failed(int index, Payment payment, String message) {
+        return new BatchChargeItemResult(index, payment.getCustomerId(), null, false, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public boolean isCharged() {
+        return charged;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchChargeItemResult{" +
+                "index=" + index +
+                ", customerId=" + customerId +
+                ", paymentId=" + paymentId +
+                ", charged=" + charged +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
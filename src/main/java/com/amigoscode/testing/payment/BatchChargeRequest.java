@@ -0,0 +1,25 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class BatchChargeRequest {
+
+    private final List<Payment> payments;
+
+    public BatchChargeRequest(@JsonProperty("payments") List<Payment> payments) {
+        this.payments = payments;
+    }
+
+    public List<Payment> getPayments() {
+        return payments;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchChargeRequest{" +
+                "payments=" + payments +
+                '}';
+    }
+}
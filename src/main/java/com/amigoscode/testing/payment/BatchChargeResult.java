@@ -0,0 +1,44 @@
+package com.amigoscode.testing.payment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchChargeResult {
+
+    private long charged;
+
+    private long failed;
+
+    private final List<BatchChargeItemResult> items = new ArrayList<>();
+
+    void addItem(BatchChargeItemResult item) {
+        if (item.isCharged()) {
+            charged++;
+        } else {
+            failed++;
+        }
+        items.add(item);
+    }
+
+    public long getCharged() {
+        return charged;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<BatchChargeItemResult> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchChargeResult{" +
+                "charged=" + charged +
+                ", failed=" + failed +
+                ", items=" + items +
+                '}';
+    }
+}
@@ -1,11 +1,8 @@
 package com.amigoscode.testing.payment;
 
-import java.math.BigDecimal;
-
 public interface CardPaymentCharger {
 
     CardPaymentCharge chargeCard(String cardSource,
-                                 BigDecimal amount,
-                                 Currency currency,
+                                 Money amount,
                                  String description);
 }
@@ -1,8 +1,19 @@
 package com.amigoscode.testing.payment;
 
+// Fraction digits are the ISO 4217 minor unit exponents: Money counts amounts in 10^-fractionDigits of the currency.
 public enum Currency {
-    GBP,
-    USD,
-    COP,
-    EUR
+    GBP(2),
+    USD(2),
+    COP(2),
+    EUR(2);
+
+    private final int fractionDigits;
+
+    Currency(int fractionDigits) {
+        this.fractionDigits = fractionDigits;
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
 }
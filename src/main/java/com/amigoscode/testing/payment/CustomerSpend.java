@@ -0,0 +1,32 @@
+package com.amigoscode.testing.payment;
+
+import java.util.List;
+import java.util.UUID;
+
+public class CustomerSpend {
+
+    private final UUID customerId;
+
+    private final List<Money> totals;
+
+    public CustomerSpend(UUID customerId, List<Money> totals) {
+        this.customerId = customerId;
+        this.totals = totals;
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    public List<Money> getTotals() {
+        return totals;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerSpend{" +
+                "customerId=" + customerId +
+                ", totals=" + totals +
+                '}';
+    }
+}
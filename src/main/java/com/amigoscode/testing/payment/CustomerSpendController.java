@@ -0,0 +1,26 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("api/v1/customer-spend")
+public class CustomerSpendController {
+
+    private final CustomerSpendCounters spendCounters;
+
+    @Autowired
+    public CustomerSpendController(CustomerSpendCounters spendCounters) {
+        this.spendCounters = spendCounters;
+    }
+
+    @GetMapping("/{customerId}")
+    public CustomerSpend getCustomerSpend(@PathVariable("customerId") UUID customerId) {
+        return new CustomerSpend(customerId, spendCounters.getTotals(customerId));
+    }
+}
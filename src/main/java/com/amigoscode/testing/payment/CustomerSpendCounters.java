@@ -0,0 +1,77 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running total of what each customer has paid, per currency, in minor units. Each total is a {@link LongAdder}, so
+ * concurrent charges for the same customer do not contend on one counter. Payments created from
+ * {@link #getCountedSince()} on are recorded as they are charged; older ones are added once by
+ * {@link CustomerSpendLoader}, so a payment is never counted twice.
+ */
+@Component
+public class CustomerSpendCounters {
+
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final Map<UUID, LongAdder[]> totals = new ConcurrentHashMap<>();
+
+    private final Instant countedSince;
+
+    public CustomerSpendCounters() {
+        this(Clock.systemUTC());
+    }
+
+    CustomerSpendCounters(Clock clock) {
+        this.countedSince = clock.instant().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public Instant getCountedSince() {
+        return countedSince;
+    }
+
+    public void record(Payment payment) {
+        if (payment.getCustomerId() != null && payment.getAmount() != null) {
+            add(payment.getCustomerId(), payment.getAmount());
+        }
+    }
+
+    public void add(UUID customerId, Money amount) {
+        totals.computeIfAbsent(customerId, id -> newTotals())[amount.getCurrency().ordinal()].add(amount.getMinorUnits());
+    }
+
+    public List<Money> getTotals(UUID customerId) {
+        LongAdder[] customerTotals = totals.get(customerId);
+        List<Money> spend = new ArrayList<>();
+        if (customerTotals != null) {
+            for (Currency currency : CURRENCIES) {
+                long total = customerTotals[currency.ordinal()].sum();
+                if (total != 0) {
+                    spend.add(Money.ofMinor(total, currency));
+                }
+            }
+        }
+        return spend;
+    }
+
+    public int customers() {
+        return totals.size();
+    }
+
+    private static LongAdder[] newTotals() {
+        LongAdder[] customerTotals = new LongAdder[CURRENCIES.length];
+        for (int i = 0; i < customerTotals.length; i++) {
+            customerTotals[i] = new LongAdder();
+        }
+        return customerTotals;
+    }
+}
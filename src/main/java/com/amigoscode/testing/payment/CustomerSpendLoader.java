@@ -0,0 +1,40 @@
+package com.amigoscode.testing.payment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+@Component
+public class CustomerSpendLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerSpendLoader.class);
+
+    private final PaymentRepository paymentRepository;
+
+    private final CustomerSpendCounters spendCounters;
+
+    @Autowired
+    public CustomerSpendLoader(PaymentRepository paymentRepository, CustomerSpendCounters spendCounters) {
+        this.paymentRepository = paymentRepository;
+        this.spendCounters = spendCounters;
+    }
+
+    // Runs after the write-behind journal is replayed, so payments accepted before a crash are in the totals.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<CustomerSpendTotal> totals =
+                     paymentRepository.streamCustomerSpendTotalsBefore(spendCounters.getCountedSince())) {
+            totals.filter(total -> total.getCurrency() != null && total.getTotal() != null)
+                    .forEach(total -> spendCounters.add(total.getCustomerId(),
+                            Money.ofMinor(total.getTotal(), total.getCurrency())));
+        }
+        LOGGER.info("Loaded spend totals of {} customers", spendCounters.customers());
+    }
+}
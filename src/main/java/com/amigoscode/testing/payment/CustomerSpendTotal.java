@@ -0,0 +1,12 @@
+package com.amigoscode.testing.payment;
+
+import java.util.UUID;
+
+public interface CustomerSpendTotal {
+
+    UUID getCustomerId();
+
+    Currency getCurrency();
+
+    Long getTotal();
+}
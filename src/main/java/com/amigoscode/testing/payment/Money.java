@@ -0,0 +1,146 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.math.BigDecimal;
+
+/**
+ * An amount of money as a count of the currency's minor units (cents for EUR), so arithmetic is exact and a value
+ * costs one small object. It is stored in the {@code amount} and {@code currency} columns of its owner and written
+ * to JSON as a decimal {@code amount} next to the {@code currency}.
+ */
+@Embeddable
+@JsonSerialize(using = MoneyJson.Serializer.class)
+@JsonDeserialize(using = MoneyJson.Deserializer.class)
+public final class Money implements Comparable<Money> {
+
+    @Column(name = "amount")
+    private long minorUnits;
+
+    @Column(name = "currency")
+    private Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Money needs a currency");
+        }
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    protected Money() {
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Money needs a currency");
+        }
+        try {
+            return new Money(amount.movePointRight(currency.getFractionDigits()).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw notMinorUnits(amount, currency, e);
+        }
+    }
+
+    // The amount unscaled * 10^-scale, as BigDecimal would hold it, without creating one.
+    public static Money ofUnscaled(long unscaled, int scale, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Money needs a currency");
+        }
+        int shift = currency.getFractionDigits() - scale;
+        try {
+            if (shift >= 0) {
+                return new Money(Math.multiplyExact(unscaled, powerOfTen(shift)), currency);
+            }
+            long divisor = powerOfTen(-shift);
+            if (unscaled % divisor != 0) {
+                throw new ArithmeticException("Rounding necessary");
+            }
+            return new Money(unscaled / divisor, currency);
+        } catch (ArithmeticException e) {
+            throw notMinorUnits(BigDecimal.valueOf(unscaled, scale), currency, e);
+        }
+    }
+
+    private static long powerOfTen(int exponent) {
+        long power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power = Math.multiplyExact(power, 10);
+        }
+        return power;
+    }
+
+    private static IllegalArgumentException notMinorUnits(BigDecimal amount, Currency currency, ArithmeticException e) {
+        return new IllegalArgumentException(String.format(
+                "The amount [%s] is not a whole number of [%s] minor units or is too large.",
+                amount.toPlainString(), currency), e);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getFractionDigits());
+    }
+
+    public Money plus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long multiplier) {
+        return new Money(Math.multiplyExact(minorUnits, multiplier), currency);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void checkSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot combine amounts in [%s] and [%s].", currency, other.currency));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency == money.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+}
@@ -0,0 +1,179 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Jackson codec for {@link Money}: {@code {"amount": 10.50, "currency": "EUR"}}. The serializer also supports
+ * {@code @JsonUnwrapped}, which is how {@link Payment} writes {@code amount} and {@code currency} as its own fields.
+ * Amounts are read from the parser's characters into a long, without going through a double or a BigDecimal.
+ */
+public final class MoneyJson {
+
+    static final String AMOUNT = "amount";
+
+    static final String CURRENCY = "currency";
+
+    static final int NO_AMOUNT = Integer.MIN_VALUE;
+
+    private MoneyJson() {
+    }
+
+    public static class Serializer extends JsonSerializer<Money> {
+
+        private final NameTransformer unwrapping;
+
+        public Serializer() {
+            this(null);
+        }
+
+        private Serializer(NameTransformer unwrapping) {
+            this.unwrapping = unwrapping;
+        }
+
+        @Override
+        public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (unwrapping == null) {
+                generator.writeStartObject();
+                writeFields(money, generator, AMOUNT, CURRENCY);
+                generator.writeEndObject();
+            } else {
+                writeFields(money, generator, unwrapping.transform(AMOUNT), unwrapping.transform(CURRENCY));
+            }
+        }
+
+        private static void writeFields(Money money, JsonGenerator generator, String amount, String currency)
+                throws IOException {
+            generator.writeFieldName(amount);
+            generator.writeNumber(money.toBigDecimal());
+            generator.writeStringField(currency, money.getCurrency().name());
+        }
+
+        @Override
+        public boolean isUnwrappingSerializer() {
+            return unwrapping != null;
+        }
+
+        @Override
+        public JsonSerializer<Money> unwrappingSerializer(NameTransformer unwrapper) {
+            return new Serializer(unwrapper);
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Money> implements ResolvableDeserializer {
+
+        private JsonDeserializer<Object> currencyDeserializer;
+
+        @Override
+        public void resolve(DeserializationContext context) throws JsonMappingException {
+            currencyDeserializer = context.findRootValueDeserializer(context.constructType(Currency.class));
+        }
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            long unscaled = 0;
+            int scale = NO_AMOUNT;
+            Currency currency = null;
+            JsonToken token = parser.currentToken() == JsonToken.START_OBJECT ? parser.nextToken() : parser.currentToken();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (AMOUNT.equals(field) && value != JsonToken.VALUE_NULL) {
+                    scale = readScale(parser, context);
+                    unscaled = readUnscaled(parser, context);
+                } else if (CURRENCY.equals(field) && value != JsonToken.VALUE_NULL) {
+                    currency = (Currency) currencyDeserializer.deserialize(parser, context);
+                } else {
+                    context.handleUnknownProperty(parser, this, Money.class, field);
+                }
+            }
+            return toMoney(unscaled, scale, currency, context);
+        }
+    }
+
+    static Money toMoney(long unscaled, int scale, Currency currency, DeserializationContext context)
+            throws IOException {
+        if (scale == NO_AMOUNT && currency == null) {
+            return null;
+        }
+        if (scale == NO_AMOUNT || currency == null) {
+            return context.reportInputMismatch(Money.class, "An amount needs both [%s] and [%s], got [%s] and [%s]",
+                    AMOUNT, CURRENCY, scale == NO_AMOUNT ? null : BigDecimal.valueOf(unscaled, scale), currency);
+        }
+        try {
+            return Money.ofUnscaled(unscaled, scale, currency);
+        } catch (IllegalArgumentException e) {
+            return context.reportInputMismatch(Money.class, e.getMessage());
+        }
+    }
+
+    // Digits after the decimal point of the current number or numeric string.
+    static int readScale(JsonParser parser, DeserializationContext context) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int start = parser.getTextOffset();
+        int end = start + parser.getTextLength();
+        int point = end - 1;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '.') {
+                point = i;
+            } else if (c == 'e' || c == 'E') {
+                return decimal(parser, context).scale();
+            }
+        }
+        return end - point - 1;
+    }
+
+    // The current number or numeric string without its decimal point, so that it is unscaled * 10^-readScale.
+    static long readUnscaled(JsonParser parser, DeserializationContext context) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int start = parser.getTextOffset();
+        int end = start + parser.getTextLength();
+        boolean negative = start < end && chars[start] == '-';
+        int i = start < end && (chars[start] == '-' || chars[start] == '+') ? start + 1 : start;
+        long unscaled = 0;
+        int digits = 0;
+        boolean point = false;
+        try {
+            for (; i < end; i++) {
+                char c = chars[i];
+                if (c >= '0' && c <= '9') {
+                    unscaled = Math.addExact(Math.multiplyExact(unscaled, 10), negative ? '0' - c : c - '0');
+                    digits++;
+                } else if (c == '.' && !point) {
+                    point = true;
+                } else if (c == 'e' || c == 'E') {
+                    return decimal(parser, context).unscaledValue().longValueExact();
+                } else {
+                    return notANumber(parser, context);
+                }
+            }
+        } catch (ArithmeticException e) {
+            return context.reportInputMismatch(Money.class, "The amount [%s] is too large", parser.getText());
+        }
+        return digits == 0 ? notANumber(parser, context) : unscaled;
+    }
+
+    private static BigDecimal decimal(JsonParser parser, DeserializationContext context) throws IOException {
+        try {
+            return new BigDecimal(parser.getText().trim());
+        } catch (NumberFormatException e) {
+            return context.reportInputMismatch(Money.class, "The amount [%s] is not a number", parser.getText());
+        }
+    }
+
+    private static long notANumber(JsonParser parser, DeserializationContext context) throws IOException {
+        return context.reportInputMismatch(Money.class, "The amount [%s] is not a number", parser.getText());
+    }
+}
@@ -1,34 +1,61 @@
 package com.amigoscode.testing.payment;
 
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import javax.persistence.Column;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import java.math.BigDecimal;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.Instant;
 import java.util.Objects;
 import java.util.UUID;
 
 @Entity
+// Covers the history query: a customer's payments newest first, read from the index alone. H2 only walks an index
+// in its declared order, hence payment_id desc, and only when the query orders by customer_id too.
+@Table(indexes = @Index(name = Payment.CUSTOMER_HISTORY_INDEX,
+        columnList = "customerId, paymentId desc, createdAt, currency, amount"))
+@JsonDeserialize(using = PaymentJson.Deserializer.class)
 public class Payment {
 
+    static final String CUSTOMER_HISTORY_INDEX = "payment_customer_id_payment_id_idx";
+
+    static final String ID_SEQUENCE = "payment_id_sequence";
+
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    static final int MAX_TEXT_LENGTH = 255;
+
+    // Pooled optimizer: one sequence call hands out ID_ALLOCATION_SIZE ids, shared with PaymentIdAllocator.
     @Id
-    @GeneratedValue
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
     private Long paymentId;
 
     private UUID customerId;
 
-    private BigDecimal amount;
-
-    private Currency currency;
+    @Embedded
+    @JsonUnwrapped
+    private Money amount;
 
+    @Column(length = MAX_TEXT_LENGTH)
     private String source;
 
+    @Column(length = MAX_TEXT_LENGTH)
     private String description;
 
-    public Payment(Long paymentId, UUID customerId, BigDecimal amount, Currency currency, String source, String description) {
+    private Instant createdAt;
+
+    public Payment(Long paymentId, UUID customerId, Money amount, String source, String description) {
         this.paymentId = paymentId;
         this.customerId = customerId;
         this.amount = amount;
-        this.currency = currency;
         this.source = source;
         this.description = description;
     }
@@ -52,22 +79,14 @@ public class Payment {
         this.customerId = customerId;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
-    public Currency getCurrency() {
-        return currency;
-    }
-
-    public void setCurrency(Currency currency) {
-        this.currency = currency;
-    }
-
     public String getSource() {
         return source;
     }
@@ -84,16 +103,30 @@ public class Payment {
         this.description = description;
     }
 
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Payment payment = (Payment) o;
-        return paymentId.equals(payment.paymentId) && customerId.equals(payment.customerId) && amount.equals(payment.amount) && currency == payment.currency && source.equals(payment.source) && description.equals(payment.description);
+        return Objects.equals(paymentId, payment.paymentId) && Objects.equals(customerId, payment.customerId) && Objects.equals(amount, payment.amount) && Objects.equals(source, payment.source) && Objects.equals(description, payment.description) && Objects.equals(createdAt, payment.createdAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(paymentId, customerId, amount, currency, source, description);
+        int result = Objects.hashCode(paymentId);
+        result = 31 * result + Objects.hashCode(customerId);
+        result = 31 * result + Objects.hashCode(amount);
+        result = 31 * result + Objects.hashCode(source);
+        result = 31 * result + Objects.hashCode(description);
+        result = 31 * result + Objects.hashCode(createdAt);
+        return result;
     }
 }
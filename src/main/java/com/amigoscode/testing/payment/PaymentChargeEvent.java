@@ -0,0 +1,31 @@
+package com.amigoscode.testing.payment;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.amigoscode.testing.PaymentCharge")
+@Label("Payment Charge")
+@Category({"Testing", "Payment"})
+@Description("PaymentService.chargeCard, from the customer lookup to queueing the SMS")
+@StackTrace(false)
+class PaymentChargeEvent extends Event {
+
+    @Label("Currency")
+    String currency;
+
+    @Label("Amount")
+    @Description("In the smallest unit of the currency")
+    long amountMinorUnits;
+
+    @Label("Outcome")
+    @Description("CHARGED, the reason the payment was turned down, or ERROR")
+    String outcome;
+
+    @Label("Charger")
+    @Description("The card charger implementation")
+    String charger;
+}
@@ -1,28 +1,61 @@
 package com.amigoscode.testing.payment;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("api/v1/payment")
 public class PaymentController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final PaymentService paymentService;
 
+    private final PaymentIdempotencyService idempotencyService;
+
+    private final int maxBatchSize;
+
     @Autowired
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, PaymentIdempotencyService idempotencyService,
+                             @Value("${payment.batch.max-size}") int maxBatchSize) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @PostMapping("/{customerId}")
-    public void makePayment(@PathVariable("customerId") UUID customerId, @RequestBody PaymentRequest paymentRequest) {
-        paymentService.chargeCard(paymentRequest.getPayment().getCustomerId(), paymentRequest);
+    public ResponseEntity<Void> makePayment(@PathVariable("customerId") UUID customerId,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                            @RequestBody PaymentRequest paymentRequest) {
+        if (idempotencyKey == null) {
+            paymentService.chargeCard(paymentRequest.getPayment().getCustomerId(), paymentRequest);
+            return ResponseEntity.ok().build();
+        }
+        boolean replayed = idempotencyService.chargeCard(idempotencyKey, paymentRequest.getPayment().getCustomerId(), paymentRequest);
+        return ResponseEntity.ok().header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(replayed)).build();
+    }
+
+    // A batch is charged and written in one go, so its size is capped to keep one request from taking every charge
+    // thread and write-behind slot.
+    @PostMapping("/batch")
+    public ResponseEntity<BatchChargeResult> makePayments(@RequestBody BatchChargeRequest batchChargeRequest) {
+        List<Payment> payments = batchChargeRequest.getPayments();
+        if (payments == null || payments.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(paymentService.chargeCards(payments));
     }
 
 }
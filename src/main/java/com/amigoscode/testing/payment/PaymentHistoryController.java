@@ -0,0 +1,36 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("api/v1/payment-history")
+public class PaymentHistoryController {
+
+    private final PaymentHistoryService paymentHistoryService;
+
+    @Autowired
+    public PaymentHistoryController(PaymentHistoryService paymentHistoryService) {
+        this.paymentHistoryService = paymentHistoryService;
+    }
+
+    @GetMapping("/{customerId}")
+    public PaymentHistoryPage getPayments(@PathVariable("customerId") UUID customerId,
+                                          @RequestParam(value = "before", required = false) Long before,
+                                          @RequestParam(value = "currency", required = false) Currency currency,
+                                          @RequestParam(value = "from", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                          @RequestParam(value = "to", required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                          @RequestParam(value = "size", required = false) Integer size) {
+        return paymentHistoryService.findPayments(customerId, before, currency, from, to, size);
+    }
+}
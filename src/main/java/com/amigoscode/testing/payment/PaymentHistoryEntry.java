@@ -0,0 +1,16 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.time.Instant;
+
+// Every column read is in the customer history index, so a page never touches the payment rows.
+public interface PaymentHistoryEntry {
+
+    Long getPaymentId();
+
+    @JsonUnwrapped
+    Money getAmount();
+
+    Instant getCreatedAt();
+}
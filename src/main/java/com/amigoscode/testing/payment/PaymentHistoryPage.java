@@ -0,0 +1,32 @@
+package com.amigoscode.testing.payment;
+
+import java.util.List;
+
+public class PaymentHistoryPage {
+
+    private final List<PaymentHistoryEntry> payments;
+
+    private final Long nextBefore;
+
+    public PaymentHistoryPage(List<PaymentHistoryEntry> payments, Long nextBefore) {
+        this.payments = payments;
+        this.nextBefore = nextBefore;
+    }
+
+    public List<PaymentHistoryEntry> getPayments() {
+        return payments;
+    }
+
+    // The "before" of the next page, null on the last page
+    public Long getNextBefore() {
+        return nextBefore;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentHistoryPage{" +
+                "payments=" + payments.size() +
+                ", nextBefore=" + nextBefore +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class PaymentHistoryService {
+
+    private final PaymentRepository paymentRepository;
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    @Autowired
+    public PaymentHistoryService(PaymentRepository paymentRepository,
+                                 @Value("${payment.history.default-page-size:50}") int defaultPageSize,
+                                 @Value("${payment.history.max-page-size:500}") int maxPageSize) {
+        this.paymentRepository = paymentRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // One row past the page tells whether there is a next one without counting the customer's payments.
+    public PaymentHistoryPage findPayments(UUID customerId, Long before, Currency currency,
+                                           Instant from, Instant to, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        List<PaymentHistoryEntry> payments = paymentRepository.selectPaymentHistory(customerId,
+                before == null ? Long.MAX_VALUE : before, currency, from, to, PageRequest.of(0, pageSize + 1));
+        if (payments.size() <= pageSize) {
+            return new PaymentHistoryPage(payments, null);
+        }
+        List<PaymentHistoryEntry> page = payments.subList(0, pageSize);
+        return new PaymentHistoryPage(page, page.get(pageSize - 1).getPaymentId());
+    }
+}
@@ -0,0 +1,37 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out payment ids in blocks of {@link Payment#ID_ALLOCATION_SIZE} per sequence call, with the same semantics
+ * as Hibernate's pooled optimizer on the same sequence: a sequence value {@code hi} reserves the ids in
+ * {@code (hi - ID_ALLOCATION_SIZE, hi]}. Ids allocated here never collide with ids Hibernate generates.
+ */
+@Component
+public class PaymentIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private long next = 1;
+
+    private long hi = 0;
+
+    @Autowired
+    public PaymentIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public synchronized long nextId() {
+        if (next > hi) {
+            Long value = jdbcTemplate.queryForObject("select next value for " + Payment.ID_SEQUENCE, Long.class);
+            if (value == null) {
+                throw new IllegalStateException(String.format("Sequence [%s] returned no value", Payment.ID_SEQUENCE));
+            }
+            hi = value;
+            next = Math.max(hi - Payment.ID_ALLOCATION_SIZE, 0) + 1;
+        }
+        return next++;
+    }
+}
@@ -0,0 +1,74 @@
+package com.amigoscode.testing.payment;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Version;
+import java.time.Instant;
+
+@Entity
+public class PaymentIdempotencyKey {
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED, FAILED_AFTER_CHARGE
+    }
+
+    @Id
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // A null version makes Spring Data persist rather than merge, so a concurrent insert of the same key fails.
+    @Version
+    private Long version;
+
+    public PaymentIdempotencyKey(String idempotencyKey, String fingerprint, Status status, Instant createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    public PaymentIdempotencyKey() {
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentIdempotencyKey{" +
+                "idempotencyKey='" + idempotencyKey + '\'' +
+                ", fingerprint='" + fingerprint + '\'' +
+                ", status=" + status +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
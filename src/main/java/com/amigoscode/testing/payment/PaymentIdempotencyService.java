@@ -0,0 +1,259 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Charges a payment at most once per {@code Idempotency-Key}. Keys live in memory for requests in flight and
+ * recently completed ones, and in the payment_idempotency_key table so that replays survive restarts and reach
+ * other instances. A payment that failed with the card known not to be debited releases its key, so the client may
+ * retry it. Any other failure once the charger has been called keeps the key taken, as the card may have been debited:
+ * retries fail until the key expires.
+ */
+@Service
+public class PaymentIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Arrivals looked at per new key once full: one more than are added, so entries left behind drain away.
+    private static final int EVICTIONS_PER_PUT = 2;
+
+    private final PaymentService paymentService;
+
+    private final PaymentIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Clock clock;
+
+    private final long ttlMillis;
+
+    private final int memoryCapacity;
+
+    private final long inFlightWaitMillis;
+
+    private final Map<String, IdempotentCharge> charges = new ConcurrentHashMap<>();
+
+    // Keys in arrival order, so the oldest are evicted first without scanning the map.
+    private final Queue<Arrival> arrivals = new LinkedBlockingQueue<>();
+
+    @Autowired
+    public PaymentIdempotencyService(PaymentService paymentService,
+                                     PaymentIdempotencyKeyRepository idempotencyKeyRepository,
+                                     @Value("${payment.idempotency.ttl-seconds}") long ttlSeconds,
+                                     @Value("${payment.idempotency.memory-capacity}") int memoryCapacity,
+                                     @Value("${payment.idempotency.in-flight-wait-millis}") long inFlightWaitMillis) {
+        this(paymentService, idempotencyKeyRepository, ttlSeconds, memoryCapacity, inFlightWaitMillis, Clock.systemUTC());
+    }
+
+    PaymentIdempotencyService(PaymentService paymentService, PaymentIdempotencyKeyRepository idempotencyKeyRepository,
+                              long ttlSeconds, int memoryCapacity, long inFlightWaitMillis, Clock clock) {
+        this.paymentService = paymentService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.memoryCapacity = memoryCapacity;
+        this.inFlightWaitMillis = inFlightWaitMillis;
+        this.clock = clock;
+    }
+
+    // Returns true when the card was not charged by this call because the key had already been used.
+    public boolean chargeCard(String idempotencyKey, UUID customerId, PaymentRequest paymentRequest) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(String.format("Invalid idempotency key [%s]", idempotencyKey));
+        }
+        String fingerprint = fingerprint(customerId, paymentRequest.getPayment());
+        long now = clock.millis();
+
+        IdempotentCharge charge = new IdempotentCharge(fingerprint, now + ttlMillis);
+        IdempotentCharge current = charges.compute(idempotencyKey,
+                (key, existing) -> existing == null || existing.isExpired(now) ? charge : existing);
+        if (current != charge) {
+            return awaitInFlightCharge(idempotencyKey, fingerprint, current);
+        }
+        arrivals.add(new Arrival(idempotencyKey, charge));
+        evictIfFull(now);
+
+        try {
+            boolean replayed = chargeOnce(idempotencyKey, fingerprint, customerId, paymentRequest, charge);
+            charge.result.complete(null);
+            return replayed;
+        } catch (RuntimeException e) {
+            if (charge.chargerCalled) {
+                charge.result.completeExceptionally(failedAfterCharge(idempotencyKey));
+            } else {
+                charges.remove(idempotencyKey, charge);
+                charge.result.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private boolean chargeOnce(String idempotencyKey, String fingerprint, UUID customerId, PaymentRequest paymentRequest,
+                               IdempotentCharge charge) {
+        Optional<PaymentIdempotencyKey> stored = idempotencyKeyRepository.findById(idempotencyKey);
+        if (stored.isPresent() && !isExpired(stored.get())) {
+            checkFingerprint(idempotencyKey, fingerprint, stored.get().getFingerprint());
+            if (stored.get().getStatus() == PaymentIdempotencyKey.Status.COMPLETED) {
+                return true;
+            }
+            if (stored.get().getStatus() == PaymentIdempotencyKey.Status.FAILED_AFTER_CHARGE) {
+                throw failedAfterCharge(idempotencyKey);
+            }
+            throw new IllegalStateException(String.format("A payment with idempotency key [%s] is already in progress.", idempotencyKey));
+        }
+        stored.ifPresent(idempotencyKeyRepository::delete);
+
+        PaymentIdempotencyKey record;
+        try {
+            record = idempotencyKeyRepository.save(new PaymentIdempotencyKey(idempotencyKey, fingerprint,
+                    PaymentIdempotencyKey.Status.IN_PROGRESS, Instant.ofEpochMilli(clock.millis())));
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException(String.format("A payment with idempotency key [%s] is already in progress.", idempotencyKey), e);
+        }
+
+        try {
+            paymentService.chargeCard(customerId, paymentRequest);
+        } catch (PaymentNotChargedException e) {
+            idempotencyKeyRepository.delete(record);
+            throw e;
+        } catch (RuntimeException e) {
+            charge.chargerCalled = true;
+            record.setStatus(PaymentIdempotencyKey.Status.FAILED_AFTER_CHARGE);
+            try {
+                idempotencyKeyRepository.save(record);
+            } catch (RuntimeException saveFailure) {
+                // the record stays IN_PROGRESS, which turns retries away as well
+                e.addSuppressed(saveFailure);
+            }
+            throw e;
+        }
+
+        charge.chargerCalled = true;
+        record.setStatus(PaymentIdempotencyKey.Status.COMPLETED);
+        idempotencyKeyRepository.save(record);
+        return false;
+    }
+
+    private boolean awaitInFlightCharge(String idempotencyKey, String fingerprint, IdempotentCharge charge) {
+        checkFingerprint(idempotencyKey, fingerprint, charge.fingerprint);
+        try {
+            charge.result.get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(String.format("A payment with idempotency key [%s] is still in progress.", idempotencyKey), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for idempotency key [%s].", idempotencyKey), e);
+        }
+    }
+
+    // Completed keys are also in the table, so they can be dropped from memory before their TTL when it is full.
+    // Keys still in flight go to the back of the queue; arrivals whose key was since released or replaced are dropped.
+    private void evictIfFull(long now) {
+        for (int i = 0; i < EVICTIONS_PER_PUT && arrivals.size() > memoryCapacity; i++) {
+            Arrival oldest = arrivals.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (charges.get(oldest.key) != oldest.charge) {
+                continue;
+            }
+            if (oldest.charge.result.isDone() || oldest.charge.isExpired(now)) {
+                charges.remove(oldest.key, oldest.charge);
+            } else {
+                arrivals.add(oldest);
+            }
+        }
+    }
+
+    private static IllegalStateException failedAfterCharge(String idempotencyKey) {
+        return new IllegalStateException(String.format(
+                "The payment with idempotency key [%s] failed after its card was charged, it must not be retried.",
+                idempotencyKey));
+    }
+
+    private boolean isExpired(PaymentIdempotencyKey record) {
+        return record.getCreatedAt().toEpochMilli() + ttlMillis <= clock.millis();
+    }
+
+    private static void checkFingerprint(String idempotencyKey, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalArgumentException(String.format(
+                    "The idempotency key [%s] was already used for a different payment.", idempotencyKey));
+        }
+    }
+
+    static String fingerprint(UUID customerId, Payment payment) {
+        Money amount = payment.getAmount();
+        String request = customerId + "|" + (amount == null ? null : amount.getMinorUnits())
+                + "|" + (amount == null ? null : amount.getCurrency()) + "|" + payment.getSource() + "|" + payment.getDescription();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int inMemoryKeys() {
+        return charges.size();
+    }
+
+    private static class Arrival {
+
+        private final String key;
+
+        private final IdempotentCharge charge;
+
+        Arrival(String key, IdempotentCharge charge) {
+            this.key = key;
+            this.charge = charge;
+        }
+    }
+
+    private static class IdempotentCharge {
+
+        private final String fingerprint;
+
+        private final long expiresAtMillis;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        // Set once the card charger has been called: from then on the key is never released.
+        private volatile boolean chargerCalled;
+
+        IdempotentCharge(String fingerprint, long expiresAtMillis) {
+            this.fingerprint = fingerprint;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local log of payments accepted but not yet in the database, split into segment files of about
+ * {@code segmentBytes}. Each record is framed as length, CRC32 and payload, so a torn write at the tail of a segment
+ * is detected and dropped on recovery. The top byte of the length is the payload layout, so segments written by an
+ * older release are still read. A sealed segment is deleted once every payment in it has been flushed.
+ * Payments the database refused for good are kept as JSON lines in {@code dead-letters.jsonl}, to be fixed by hand.
+ */
+public class PaymentJournal {
+
+    public enum Sync {
+        // fsync before the write is acknowledged; concurrent writers share one fsync (group commit)
+        ALWAYS,
+        // fsync once per flush cycle, so a crash may lose up to a flush interval of acknowledged payments
+        BATCH,
+        // leave it to the OS
+        NONE
+    }
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final String LOCK_FILE = "journal.lock";
+
+    static final String DEAD_LETTER_FILE = "dead-letters.jsonl";
+
+    private static final ObjectMapper DEAD_LETTER_MAPPER = new ObjectMapper();
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    // Records written before layouts were numbered have 0 here and are told apart by which layout fits them exactly.
+    private static final int UNNUMBERED_LAYOUT = 0;
+
+    private static final int LAYOUT = 1;
+
+    private static final int LENGTH_BITS = 24;
+
+    private final Path directory;
+
+    private final Sync sync;
+
+    private final long segmentBytes;
+
+    private final List<Path> recoveredSegments;
+
+    private final Deque<Segment> sealedSegments = new ArrayDeque<>();
+
+    private final Object syncLock = new Object();
+
+    private final FileChannel lockChannel;
+
+    private FileChannel channel;
+
+    private Path segmentPath;
+
+    private long segmentCount;
+
+    private long appended;
+
+    private long synced;
+
+    public PaymentJournal(Path directory, Sync sync, long segmentBytes) {
+        this.directory = directory;
+        this.sync = sync;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (tryLock(lockChannel) == null) {
+                lockChannel.close();
+                throw new IllegalStateException(String.format("Payment journal [%s] is already in use", directory));
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                recoveredSegments = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot open payment journal [%s]", directory), e);
+        }
+    }
+
+    // Payments left by a previous process, oldest first. They must be in the database before dropRecovered is called.
+    public List<Payment> readRecovered() {
+        List<Payment> payments = new ArrayList<>();
+        for (Path segment : recoveredSegments) {
+            payments.addAll(read(segment));
+        }
+        return payments;
+    }
+
+    public void dropRecovered() {
+        for (Path segment : recoveredSegments) {
+            delete(segment);
+        }
+        recoveredSegments.clear();
+    }
+
+    // Returns the sequence number of the record, to be passed to awaitDurable.
+    public synchronized long append(Payment payment) {
+        ByteBuffer record = encode(payment);
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            appended++;
+            if (channel.size() >= segmentBytes) {
+                sealSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot append to payment journal [%s]", segmentPath), e);
+        }
+        return appended;
+    }
+
+    public synchronized void deadLetter(Payment payment, String error) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("paymentId", payment.getPaymentId());
+        line.put("customerId", String.valueOf(payment.getCustomerId()));
+        line.put("amount", payment.getAmount() == null ? null : payment.getAmount().toBigDecimal());
+        line.put("currency", payment.getAmount() == null ? null : payment.getAmount().getCurrency().name());
+        line.put("source", payment.getSource());
+        line.put("description", payment.getDescription());
+        line.put("createdAt", payment.getCreatedAt() == null ? null : payment.getCreatedAt().toString());
+        line.put("error", error);
+        Path path = directory.resolve(DEAD_LETTER_FILE);
+        try (FileChannel deadLetters = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap((DEAD_LETTER_MAPPER.writeValueAsString(line) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                deadLetters.write(bytes);
+            }
+            deadLetters.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot write payment dead letter [%s]", path), e);
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        if (sync != Sync.ALWAYS) {
+            return;
+        }
+        force(sequence);
+    }
+
+    public void sync() {
+        if (sync == Sync.NONE) {
+            return;
+        }
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        force(sequence);
+    }
+
+    // Deletes the sealed segments whose records are all in the database.
+    public synchronized void release(long flushedSequence) {
+        while (!sealedSegments.isEmpty() && sealedSegments.peekFirst().lastSequence <= flushedSequence) {
+            delete(sealedSegments.pollFirst().path);
+        }
+    }
+
+    public synchronized int segments() {
+        return sealedSegments.size() + 1;
+    }
+
+    // Once every record is flushed nothing is left behind for the next start to recover.
+    public synchronized void close(long flushedSequence) {
+        try {
+            if (sync != Sync.NONE) {
+                channel.force(false);
+            }
+            channel.close();
+            lockChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot close payment journal [%s]", segmentPath), e);
+        }
+        release(flushedSequence);
+        if (flushedSequence >= appended) {
+            delete(segmentPath);
+        }
+    }
+
+    private void force(long sequence) {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = appended;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Cannot sync payment journal [%s]", segmentPath), e);
+            }
+            synced = Math.max(synced, target);
+        }
+    }
+
+    private void sealSegment() throws IOException {
+        if (sync != Sync.NONE) {
+            channel.force(false);
+        }
+        channel.close();
+        sealedSegments.addLast(new Segment(segmentPath, appended));
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        segmentPath = directory.resolve(String.format("payments-%013d-%06d%s",
+                System.currentTimeMillis(), segmentCount++, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer encode(Payment payment) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(payment.getPaymentId());
+            out.writeLong(payment.getCustomerId().getMostSignificantBits());
+            out.writeLong(payment.getCustomerId().getLeastSignificantBits());
+            Money amount = payment.getAmount();
+            out.writeBoolean(amount != null);
+            if (amount != null) {
+                out.writeLong(amount.getMinorUnits());
+                out.writeUTF(amount.getCurrency().name());
+            }
+            writeNullable(out, payment.getSource());
+            writeNullable(out, payment.getDescription());
+            Instant createdAt = payment.getCreatedAt();
+            out.writeBoolean(createdAt != null);
+            if (createdAt != null) {
+                out.writeLong(createdAt.getEpochSecond());
+                out.writeInt(createdAt.getNano());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(LAYOUT << LENGTH_BITS | payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return record;
+    }
+
+    static List<Payment> read(Path segment) {
+        List<Payment> payments = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(segment))) {
+            while (true) {
+                int header = in.readInt();
+                int checksum = in.readInt();
+                int layout = header >>> LENGTH_BITS;
+                int length = header & ((1 << LENGTH_BITS) - 1);
+                if (length == 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                payments.add(decode(layout, payload, segment));
+            }
+        } catch (EOFException e) {
+            // torn tail: the last record was never fully written
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot read payment journal [%s]", segment), e);
+        }
+        return payments;
+    }
+
+    // A record passed its checksum, so one that cannot be decoded is not a torn write and must not be dropped.
+    private static Payment decode(int layout, byte[] payload, Path segment) {
+        Payment payment = null;
+        if (layout == LAYOUT) {
+            payment = decode(payload, true, true);
+        } else if (layout == UNNUMBERED_LAYOUT) {
+            // Newest first. A decimal amount can pass for minor units but not the other way round, as minor units
+            // read as a decimal string come out empty, so the decimal layout is tried before minor units.
+            payment = decode(payload, true, true);
+            if (payment == null) {
+                payment = decode(payload, false, false);
+            }
+            if (payment == null) {
+                payment = decode(payload, true, false);
+            }
+        }
+        if (payment == null) {
+            throw new IllegalStateException(String.format(
+                    "Cannot decode payment journal record with layout [%s] in [%s]", layout, segment));
+        }
+        return payment;
+    }
+
+    // Null unless the payload is exactly one payment in this layout. Unnumbered records held the amount as a decimal
+    // string before minor units, and had no createdAt before it was added.
+    private static Payment decode(byte[] payload, boolean minorUnits, boolean createdAt) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long paymentId = in.readLong();
+            UUID customerId = new UUID(in.readLong(), in.readLong());
+            Money amount;
+            if (minorUnits) {
+                amount = in.readBoolean() ? Money.ofMinor(in.readLong(), Currency.valueOf(in.readUTF())) : null;
+            } else {
+                String decimal = readNullable(in);
+                String currency = readNullable(in);
+                amount = decimal == null || currency == null
+                        ? null : Money.of(new BigDecimal(decimal), Currency.valueOf(currency));
+            }
+            Payment payment = new Payment(paymentId, customerId, amount, readNullable(in), readNullable(in));
+            if (createdAt && in.readBoolean()) {
+                payment.setCreatedAt(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+            }
+            return in.available() == 0 ? payment : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot delete payment journal [%s]", path), e);
+        }
+    }
+
+    private static class Segment {
+
+        private final Path path;
+
+        private final long lastSequence;
+
+        Segment(Path path, long lastSequence) {
+            this.path = path;
+            this.lastSequence = lastSequence;
+        }
+    }
+}
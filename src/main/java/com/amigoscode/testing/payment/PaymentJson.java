@@ -0,0 +1,85 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Reads a {@link Payment} in one pass. Its {@code amount} and {@code currency} fields make up one {@link Money}, which
+ * {@code @JsonUnwrapped} could only read by buffering every token of the payment first.
+ */
+public final class PaymentJson {
+
+    private PaymentJson() {
+    }
+
+    public static class Deserializer extends JsonDeserializer<Payment> implements ResolvableDeserializer {
+
+        private JsonDeserializer<Object> longDeserializer;
+
+        private JsonDeserializer<Object> uuidDeserializer;
+
+        private JsonDeserializer<Object> currencyDeserializer;
+
+        private JsonDeserializer<Object> stringDeserializer;
+
+        // looked up once, as context.readValue would look them up again for every field
+        @Override
+        public void resolve(DeserializationContext context) throws JsonMappingException {
+            longDeserializer = context.findRootValueDeserializer(context.constructType(Long.class));
+            uuidDeserializer = context.findRootValueDeserializer(context.constructType(UUID.class));
+            currencyDeserializer = context.findRootValueDeserializer(context.constructType(Currency.class));
+            stringDeserializer = context.findRootValueDeserializer(context.constructType(String.class));
+        }
+
+        @Override
+        public Payment deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            Payment payment = new Payment();
+            long unscaled = 0;
+            int scale = MoneyJson.NO_AMOUNT;
+            Currency currency = null;
+            JsonToken token = parser.currentToken() == JsonToken.START_OBJECT ? parser.nextToken() : parser.currentToken();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                boolean isNull = parser.nextToken() == JsonToken.VALUE_NULL;
+                switch (field) {
+                    case "paymentId":
+                        payment.setPaymentId(isNull ? null : (Long) longDeserializer.deserialize(parser, context));
+                        break;
+                    case "customerId":
+                        payment.setCustomerId(isNull ? null : (UUID) uuidDeserializer.deserialize(parser, context));
+                        break;
+                    case MoneyJson.AMOUNT:
+                        if (!isNull) {
+                            scale = MoneyJson.readScale(parser, context);
+                            unscaled = MoneyJson.readUnscaled(parser, context);
+                        }
+                        break;
+                    case MoneyJson.CURRENCY:
+                        currency = isNull ? null : (Currency) currencyDeserializer.deserialize(parser, context);
+                        break;
+                    case "source":
+                        payment.setSource(isNull ? null : (String) stringDeserializer.deserialize(parser, context));
+                        break;
+                    case "description":
+                        payment.setDescription(isNull ? null : (String) stringDeserializer.deserialize(parser, context));
+                        break;
+                    case "createdAt":
+                        // set by the service when the card is charged
+                        parser.skipChildren();
+                        break;
+                    default:
+                        context.handleUnknownProperty(parser, this, Payment.class, field);
+                }
+            }
+            payment.setAmount(MoneyJson.toMoney(unscaled, scale, currency, context));
+            return payment;
+        }
+    }
+}
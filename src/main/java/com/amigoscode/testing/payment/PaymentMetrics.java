@@ -0,0 +1,38 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.metrics.ServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class PaymentMetrics extends ServiceMetrics<PaymentMetrics.Phase, PaymentMetrics.Rejection> {
+
+    public enum Phase {
+        CUSTOMER_LOOKUP,
+        VELOCITY_CHECK,
+        CHARGE,
+        PAYMENT_WRITE,
+        NOTIFICATION,
+        TOTAL
+    }
+
+    public enum Rejection {
+        CUSTOMER_NOT_FOUND,
+        UNSUPPORTED_CURRENCY,
+        INVALID_PAYMENT,
+        VELOCITY_LIMIT,
+        WRITE_BACKLOG,
+        CHARGE_FAILED,
+        CARD_NOT_DEBITED
+    }
+
+    @Autowired
+    public PaymentMetrics(@Value("${metrics.latency.highest-trackable-millis}") long highestTrackableMillis,
+                          @Value("${metrics.latency.interval-seconds}") long intervalSeconds) {
+        super("payment", Phase.class, Rejection.class, TimeUnit.MILLISECONDS.toNanos(highestTrackableMillis),
+                TimeUnit.SECONDS.toNanos(intervalSeconds));
+    }
+}
@@ -0,0 +1,14 @@
+package com.amigoscode.testing.payment;
+
+// The card was not debited: the payment was turned away before reaching the card provider, the circuit breaker or
+// bulkhead refused the call, or the provider declined the charge.
+public class PaymentNotChargedException extends IllegalStateException {
+
+    public PaymentNotChargedException(String message) {
+        super(message);
+    }
+
+    public PaymentNotChargedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,6 +1,40 @@
 package com.amigoscode.testing.payment;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface PaymentRepository extends CrudRepository<Payment, Long> {
+
+    // Keyset page: the payments of a customer older than paymentId "before", newest first. Ordering by customerId
+    // as well lets H2 read the page straight off the customer history index and stop after one page.
+    @Query("select p.paymentId as paymentId, p.amount as amount, p.createdAt as createdAt from Payment p " +
+            "where p.customerId = :customerId and p.paymentId < :before " +
+            "and (:currency is null or p.amount.currency = :currency) " +
+            "and (:from is null or p.createdAt >= :from) " +
+            "and (:to is null or p.createdAt < :to) " +
+            "order by p.customerId, p.paymentId desc")
+    List<PaymentHistoryEntry> selectPaymentHistory(@Param("customerId") UUID customerId,
+                                                   @Param("before") long before,
+                                                   @Param("currency") Currency currency,
+                                                   @Param("from") Instant from,
+                                                   @Param("to") Instant to,
+                                                   Pageable pageable);
+
+    // Payments without created_at predate that column and are counted as old.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.customerId as customerId, p.amount.currency as currency, sum(p.amount.minorUnits) as total " +
+            "from Payment p where p.createdAt < :before or p.createdAt is null " +
+            "group by p.customerId, p.amount.currency")
+    Stream<CustomerSpendTotal> streamCustomerSpendTotalsBefore(@Param("before") Instant before);
 }
@@ -1,55 +1,316 @@
 package com.amigoscode.testing.payment;
 
 import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.payment.resilience.ResilientCardPaymentCharger;
+import com.amigoscode.testing.payment.sms.PaymentSmsNotifier;
+import com.amigoscode.testing.payment.velocity.PaymentVelocityLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class PaymentService {
 
-    private static final List<Currency> ACCEPTED_CURRENCIES = List.of(Currency.EUR, Currency.GBP, Currency.USD);
+    private static final Set<Currency> ACCEPTED_CURRENCIES = EnumSet.of(Currency.EUR, Currency.GBP, Currency.USD);
 
-    private final PaymentRepository paymentRepository;
+    private final PaymentWriter paymentWriter;
     private final CustomerRepository customerRepository;
     private final CardPaymentCharger paymentCharger;
+    private final PhoneNumberIndex phoneNumberIndex;
+    private final CustomerSpendCounters spendCounters;
+    private final PaymentSmsNotifier smsNotifier;
+    private final PaymentVelocityLimiter velocityLimiter;
+    private final PaymentMetrics metrics;
+    private final Executor chargeExecutor;
+    private final Clock clock;
+    private final String chargerName;
 
     @Autowired
-    public PaymentService(PaymentRepository paymentRepository, CustomerRepository customerRepository, CardPaymentCharger paymentCharger) {
-        this.paymentRepository = paymentRepository;
+    public PaymentService(PaymentWriter paymentWriter,
+                          CustomerRepository customerRepository,
+                          CardPaymentCharger paymentCharger,
+                          PhoneNumberIndex phoneNumberIndex,
+                          CustomerSpendCounters spendCounters,
+                          PaymentSmsNotifier smsNotifier,
+                          PaymentVelocityLimiter velocityLimiter,
+                          PaymentMetrics metrics,
+                          @Qualifier("paymentChargeExecutor") Executor chargeExecutor) {
+        this(paymentWriter, customerRepository, paymentCharger, phoneNumberIndex, spendCounters, smsNotifier,
+                velocityLimiter, metrics, chargeExecutor, Clock.systemUTC());
+    }
+
+    PaymentService(PaymentWriter paymentWriter,
+                   CustomerRepository customerRepository,
+                   CardPaymentCharger paymentCharger,
+                   PhoneNumberIndex phoneNumberIndex,
+                   CustomerSpendCounters spendCounters,
+                   PaymentSmsNotifier smsNotifier,
+                   PaymentVelocityLimiter velocityLimiter,
+                   PaymentMetrics metrics,
+                   Executor chargeExecutor,
+                   Clock clock) {
+        this.paymentWriter = paymentWriter;
         this.customerRepository = customerRepository;
         this.paymentCharger = paymentCharger;
+        this.phoneNumberIndex = phoneNumberIndex;
+        this.spendCounters = spendCounters;
+        this.smsNotifier = smsNotifier;
+        this.velocityLimiter = velocityLimiter;
+        this.metrics = metrics;
+        this.chargeExecutor = chargeExecutor;
+        this.clock = clock;
+        // The charger is wrapped for resilience, so name what it wraps
+        this.chargerName = paymentCharger instanceof ResilientCardPaymentCharger
+                ? ((ResilientCardPaymentCharger) paymentCharger).getDelegate().getClass().getSimpleName()
+                : paymentCharger.getClass().getSimpleName();
     }
 
     public void chargeCard(UUID customerId, PaymentRequest paymentRequest) {
+        PaymentChargeEvent event = new PaymentChargeEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            chargeCard(customerId, paymentRequest, started, event);
+        } finally {
+            metrics.record(PaymentMetrics.Phase.TOTAL, started);
+            event.end();
+            if (event.shouldCommit()) {
+                Money amount = paymentRequest.getPayment().getAmount();
+                if (amount != null) {
+                    event.currency = amount.getCurrency().name();
+                    event.amountMinorUnits = amount.getMinorUnits();
+                }
+                if (event.outcome == null) {
+                    event.outcome = "ERROR";
+                }
+                event.charger = chargerName;
+                event.commit();
+            }
+        }
+    }
+
+    private void chargeCard(UUID customerId, PaymentRequest paymentRequest, long started, PaymentChargeEvent event) {
 
-        boolean isCustomerPresent = customerRepository.findById(customerId).isPresent();
+        boolean isCustomerPresent = phoneNumberIndex.containsCustomerId(customerId)
+                || customerRepository.findById(customerId).isPresent();
+        long lookedUp = metrics.record(PaymentMetrics.Phase.CUSTOMER_LOOKUP, started);
 
         if (!isCustomerPresent) {
-            throw new IllegalStateException(String.format("Customer does not exist for id [%s]", customerId));
+            reject(PaymentMetrics.Rejection.CUSTOMER_NOT_FOUND, event);
+            throw new PaymentNotChargedException(String.format("Customer does not exist for id [%s]", customerId));
         }
 
         Payment payment = paymentRequest.getPayment();
 
-        boolean isCurrencyAccepted = ACCEPTED_CURRENCIES.stream().anyMatch(currency -> currency.equals(payment.getCurrency()));
+        if (!isCurrencyAccepted(payment.getAmount())) {
+            reject(PaymentMetrics.Rejection.UNSUPPORTED_CURRENCY, event);
+            throw new PaymentNotChargedException(String.format("The currency [%s] is not accepted.", currencyOf(payment)));
+        }
+
+        String invalid = validate(payment);
+        if (invalid != null) {
+            reject(PaymentMetrics.Rejection.INVALID_PAYMENT, event);
+            throw new PaymentNotChargedException(invalid);
+        }
+
+        String velocityRejection = velocityLimiter.tryAcquire(customerId, payment.getSource(), payment.getAmount());
+        long checked = metrics.record(PaymentMetrics.Phase.VELOCITY_CHECK, lookedUp);
 
-        if (!isCurrencyAccepted) {
-            throw new IllegalStateException(String.format("The currency [%s] is not accepted.", payment.getCurrency()));
+        if (velocityRejection != null) {
+            reject(PaymentMetrics.Rejection.VELOCITY_LIMIT, event);
+            throw new PaymentNotChargedException(velocityRejection);
         }
 
-        CardPaymentCharge charge = paymentCharger.chargeCard(payment.getSource(), payment.getAmount(), payment.getCurrency(), payment.getDescription());
+        try {
+            paymentWriter.reserve(1);
+        } catch (RuntimeException e) {
+            velocityLimiter.release(customerId, payment.getSource(), payment.getAmount());
+            reject(PaymentMetrics.Rejection.WRITE_BACKLOG, event);
+            throw new PaymentNotChargedException(e.getMessage(), e);
+        }
+
+        long charged;
+        boolean handedToWriter = false;
+        try {
+            CardPaymentCharge charge;
+            try {
+                charge = paymentCharger.chargeCard(payment.getSource(), payment.getAmount(), payment.getDescription());
+            } catch (RuntimeException e) {
+                metrics.record(PaymentMetrics.Phase.CHARGE, checked);
+                reject(PaymentMetrics.Rejection.CHARGE_FAILED, event);
+                throw e;
+            }
+            charged = metrics.record(PaymentMetrics.Phase.CHARGE, checked);
+
+            if (!charge.isCardDebited()) {
+                reject(PaymentMetrics.Rejection.CARD_NOT_DEBITED, event);
+                throw new PaymentNotChargedException("The card was not debited.");
+            }
 
+            payment.setCustomerId(customerId);
+            payment.setCreatedAt(now());
+
+            handedToWriter = true;
+            paymentWriter.write(payment);
+        } finally {
+            if (!handedToWriter) {
+                paymentWriter.release(1);
+            }
+        }
+        long written = metrics.record(PaymentMetrics.Phase.PAYMENT_WRITE, charged);
+
+        spendCounters.record(payment);
+        smsNotifier.notifyPaymentCompleted(payment);
+        metrics.record(PaymentMetrics.Phase.NOTIFICATION, written);
+        event.outcome = "CHARGED";
+    }
+
+    private void reject(PaymentMetrics.Rejection reason, PaymentChargeEvent event) {
+        metrics.reject(reason);
+        event.outcome = reason.name();
+    }
+
+    // Charges run concurrently on the charge executor, so a batch takes about as long as its slowest charges.
+    // Each payment gets its own result; the debited ones are saved together once every charge has completed.
+    public BatchChargeResult chargeCards(List<Payment> payments) {
+        Set<UUID> existingCustomerIds = findExistingCustomerIds(payments);
+
+        String[] errors = new String[payments.size()];
+        List<Integer> chargeable = new ArrayList<>();
+        for (int i = 0; i < payments.size(); i++) {
+            Payment payment = payments.get(i);
+            if (!existingCustomerIds.contains(payment.getCustomerId())) {
+                metrics.reject(PaymentMetrics.Rejection.CUSTOMER_NOT_FOUND);
+                errors[i] = String.format("Customer does not exist for id [%s]", payment.getCustomerId());
+            } else if (!isCurrencyAccepted(payment.getAmount())) {
+                metrics.reject(PaymentMetrics.Rejection.UNSUPPORTED_CURRENCY);
+                errors[i] = String.format("The currency [%s] is not accepted.", currencyOf(payment));
+            } else if ((errors[i] = validate(payment)) != null) {
+                metrics.reject(PaymentMetrics.Rejection.INVALID_PAYMENT);
+            } else {
+                chargeable.add(i);
+            }
+        }
+
+        try {
+            paymentWriter.reserve(chargeable.size());
+        } catch (RuntimeException e) {
+            metrics.reject(PaymentMetrics.Rejection.WRITE_BACKLOG);
+            throw new PaymentNotChargedException(e.getMessage(), e);
+        }
+        List<CompletableFuture<Void>> charges = new ArrayList<>();
+        for (int index : chargeable) {
+            charges.add(CompletableFuture.runAsync(() -> errors[index] = charge(payments.get(index)), chargeExecutor));
+        }
+        CompletableFuture.allOf(charges.toArray(CompletableFuture<?>[]::new)).join();
+
+        List<Payment> debited = new ArrayList<>();
+        Instant createdAt = now();
+        for (int i = 0; i < payments.size(); i++) {
+            if (errors[i] == null) {
+                payments.get(i).setCreatedAt(createdAt);
+                debited.add(payments.get(i));
+            }
+        }
+        if (debited.size() < chargeable.size()) {
+            paymentWriter.release(chargeable.size() - debited.size());
+        }
+        paymentWriter.writeAll(debited);
+        for (Payment payment : debited) {
+            spendCounters.record(payment);
+            smsNotifier.notifyPaymentCompleted(payment);
+        }
+
+        BatchChargeResult result = new BatchChargeResult();
+        for (int i = 0; i < payments.size(); i++) {
+            result.addItem(errors[i] == null
+                    ? BatchChargeItemResult.charged(i, payments.get(i))
+                    : BatchChargeItemResult.failed(i, payments.get(i), errors[i]));
+        }
+        return result;
+    }
+
+    private String charge(Payment payment) {
+        String velocityRejection = velocityLimiter.tryAcquire(payment.getCustomerId(), payment.getSource(), payment.getAmount());
+        if (velocityRejection != null) {
+            metrics.reject(PaymentMetrics.Rejection.VELOCITY_LIMIT);
+            return velocityRejection;
+        }
+        long started = System.nanoTime();
+        CardPaymentCharge charge;
+        try {
+            charge = paymentCharger.chargeCard(payment.getSource(), payment.getAmount(), payment.getDescription());
+        } catch (RuntimeException e) {
+            metrics.record(PaymentMetrics.Phase.CHARGE, started);
+            metrics.reject(PaymentMetrics.Rejection.CHARGE_FAILED);
+            return String.format("The card charge failed [%s].", e.getMessage());
+        }
+        metrics.record(PaymentMetrics.Phase.CHARGE, started);
         if (!charge.isCardDebited()) {
-            throw new IllegalStateException("The card was not debited.");
+            metrics.reject(PaymentMetrics.Rejection.CARD_NOT_DEBITED);
+            return "The card was not debited.";
         }
+        return null;
+    }
 
-        payment.setCustomerId(customerId);
+    private Set<UUID> findExistingCustomerIds(List<Payment> payments) {
+        Set<UUID> existingCustomerIds = new HashSet<>();
+        Set<UUID> unindexedCustomerIds = new HashSet<>();
+        payments.stream()
+                .map(Payment::getCustomerId)
+                .filter(Objects::nonNull)
+                .forEach(customerId -> {
+                    if (phoneNumberIndex.containsCustomerId(customerId)) {
+                        existingCustomerIds.add(customerId);
+                    } else {
+                        unindexedCustomerIds.add(customerId);
+                    }
+                });
+        if (!unindexedCustomerIds.isEmpty()) {
+            customerRepository.findAllById(unindexedCustomerIds).forEach(customer -> existingCustomerIds.add(customer.getId()));
+        }
+        return existingCustomerIds;
+    }
 
-        paymentRepository.save(payment);
+    // TIMESTAMP columns keep microseconds, so a payment reads back equal to what was written
+    private Instant now() {
+        return clock.instant().truncatedTo(ChronoUnit.MICROS);
+    }
 
-        // TODO: send sms
+    // Checked before charging: the payment table would refuse the row once the card is debited.
+    private static String validate(Payment payment) {
+        if (isTooLong(payment.getSource())) {
+            return String.format("The payment source is longer than [%s] characters.", Payment.MAX_TEXT_LENGTH);
+        }
+        if (isTooLong(payment.getDescription())) {
+            return String.format("The payment description is longer than [%s] characters.", Payment.MAX_TEXT_LENGTH);
+        }
+        return null;
+    }
+
+    private static boolean isTooLong(String value) {
+        return value != null && value.length() > Payment.MAX_TEXT_LENGTH;
+    }
+
+    private static boolean isCurrencyAccepted(Money amount) {
+        return amount != null && ACCEPTED_CURRENCIES.contains(amount.getCurrency());
+    }
 
+    private static Currency currencyOf(Payment payment) {
+        return payment.getAmount() == null ? null : payment.getAmount().getCurrency();
     }
 }
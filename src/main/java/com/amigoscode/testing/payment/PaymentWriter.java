@@ -0,0 +1,21 @@
+package com.amigoscode.testing.payment;
+
+import java.util.List;
+
+public interface PaymentWriter {
+
+    // Claims room for count payments before their cards are charged, so a full writer turns the request away rather
+    // than making it wait once the card is debited. Every reserved payment is then either written or released.
+    void reserve(int count);
+
+    void release(int count);
+
+    // Uses up one reserved payment, whether or not it succeeds.
+    void write(Payment payment);
+
+    // Uses up one reserved payment per payment, whether or not it succeeds.
+    void writeAll(List<Payment> payments);
+
+    // Blocks until every payment written so far is in the database.
+    void flush();
+}
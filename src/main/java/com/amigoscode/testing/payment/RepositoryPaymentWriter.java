@@ -0,0 +1,41 @@
+package com.amigoscode.testing.payment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(value = "payment.write-behind.enabled", havingValue = "false", matchIfMissing = true)
+public class RepositoryPaymentWriter implements PaymentWriter {
+
+    private final PaymentRepository paymentRepository;
+
+    @Autowired
+    public RepositoryPaymentWriter(PaymentRepository paymentRepository) {
+        this.paymentRepository = paymentRepository;
+    }
+
+    @Override
+    public void reserve(int count) {
+    }
+
+    @Override
+    public void release(int count) {
+    }
+
+    @Override
+    public void write(Payment payment) {
+        paymentRepository.save(payment);
+    }
+
+    @Override
+    public void writeAll(List<Payment> payments) {
+        paymentRepository.saveAll(payments);
+    }
+
+    @Override
+    public void flush() {
+    }
+}
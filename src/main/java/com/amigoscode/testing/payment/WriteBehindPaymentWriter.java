@@ -0,0 +1,323 @@
+package com.amigoscode.testing.payment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledges a payment once it is in the local {@link PaymentJournal} and writes it to the database later, in JDBC
+ * batches of up to {@code batch-size} rows or whatever arrived within {@code flush-interval-millis}. Ids come from
+ * {@link PaymentIdAllocator}, so they are known before the row exists. Rows are written with MERGE on the id, which
+ * makes retries and replaying the journal after a crash safe. A row the database refuses for good, such as a value too
+ * long for its column, goes to the journal's dead letters instead of holding up the rows behind it.
+ */
+@Component
+@ConditionalOnProperty(value = "payment.write-behind.enabled", havingValue = "true")
+public class WriteBehindPaymentWriter implements PaymentWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindPaymentWriter.class);
+
+    private static final String MERGE_PAYMENT = "merge into payment " +
+            "(payment_id, customer_id, amount, currency, source, description, created_at) key (payment_id) " +
+            "values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PaymentIdAllocator idAllocator;
+
+    private final PaymentJournal journal;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final long reserveTimeoutMillis;
+
+    private final Semaphore capacity;
+
+    private final BlockingQueue<Payment> queue = new LinkedBlockingQueue<>();
+
+    private final Object appendLock = new Object();
+
+    private final Object flushLock = new Object();
+
+    private final Thread flusher = new Thread(this::flushContinuously, "payment-write-behind");
+
+    private volatile boolean running = true;
+
+    private long appended;
+
+    private long flushed;
+
+    @Autowired
+    public WriteBehindPaymentWriter(JdbcTemplate jdbcTemplate,
+                                    PaymentIdAllocator idAllocator,
+                                    @Value("${payment.write-behind.journal-directory}") String journalDirectory,
+                                    @Value("${payment.write-behind.journal-sync}") PaymentJournal.Sync journalSync,
+                                    @Value("${payment.write-behind.journal-segment-bytes}") long journalSegmentBytes,
+                                    @Value("${payment.write-behind.batch-size}") int batchSize,
+                                    @Value("${payment.write-behind.flush-interval-millis}") long flushIntervalMillis,
+                                    @Value("${payment.write-behind.queue-capacity}") int queueCapacity,
+                                    @Value("${payment.write-behind.reserve-timeout-millis}") long reserveTimeoutMillis) {
+        this(jdbcTemplate, idAllocator, new PaymentJournal(Paths.get(journalDirectory), journalSync, journalSegmentBytes),
+                batchSize, flushIntervalMillis, queueCapacity, reserveTimeoutMillis);
+    }
+
+    WriteBehindPaymentWriter(JdbcTemplate jdbcTemplate, PaymentIdAllocator idAllocator, PaymentJournal journal,
+                             int batchSize, long flushIntervalMillis, int queueCapacity, long reserveTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.reserveTimeoutMillis = reserveTimeoutMillis;
+        this.capacity = new Semaphore(queueCapacity);
+        this.flusher.setDaemon(true);
+    }
+
+    // Payments journaled by a previous process go to the database before new ones start flushing.
+    // First of the ready listeners: whatever rebuilds state from the payment table must see the recovered payments.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        List<Payment> recovered = journal.readRecovered();
+        for (int i = 0; i < recovered.size(); i += batchSize) {
+            mergeOrDeadLetter(recovered.subList(i, Math.min(i + batchSize, recovered.size())));
+        }
+        journal.dropRecovered();
+        if (!recovered.isEmpty()) {
+            LOGGER.info("Recovered {} payments from the write-behind journal", recovered.size());
+        }
+        flusher.start();
+    }
+
+    @Override
+    public void reserve(int count) {
+        boolean reserved;
+        try {
+            reserved = capacity.tryAcquire(count, reserveTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for write-behind capacity", e);
+        }
+        if (!reserved) {
+            throw new IllegalStateException(String.format(
+                    "No write-behind capacity for [%s] payments, the database is not keeping up.", count));
+        }
+    }
+
+    @Override
+    public void release(int count) {
+        capacity.release(count);
+    }
+
+    // Client supplied ids are ignored: the row id must come from the allocator to stay unique.
+    @Override
+    public void write(Payment payment) {
+        journal.awaitDurable(enqueue(payment));
+    }
+
+    @Override
+    public void writeAll(List<Payment> payments) {
+        long sequence = 0;
+        for (int i = 0; i < payments.size(); i++) {
+            try {
+                sequence = enqueue(payments.get(i));
+            } catch (RuntimeException e) {
+                release(payments.size() - i - 1);
+                throw e;
+            }
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void flush() {
+        long target;
+        synchronized (appendLock) {
+            target = appended;
+        }
+        synchronized (flushLock) {
+            while (flushed < target) {
+                try {
+                    flushLock.wait(flushIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while flushing payments", e);
+                }
+            }
+        }
+    }
+
+    // Takes over the payment's reservation: the flusher releases it once the row is written.
+    private long enqueue(Payment payment) {
+        try {
+            payment.setPaymentId(idAllocator.nextId());
+            synchronized (appendLock) {
+                long sequence = journal.append(payment);
+                queue.add(payment);
+                appended++;
+                return sequence;
+            }
+        } catch (RuntimeException e) {
+            release(1);
+            throw e;
+        }
+    }
+
+    private void flushContinuously() {
+        List<Payment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Payment first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Payment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                if (!mergeWithRetries(batch)) {
+                    return;
+                }
+                capacity.release(batch.size());
+                synchronized (flushLock) {
+                    flushed += batch.size();
+                    flushLock.notifyAll();
+                }
+                journal.release(flushed);
+                batch.clear();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private boolean mergeWithRetries(List<Payment> batch) {
+        journal.sync();
+        long delay = flushIntervalMillis;
+        while (true) {
+            try {
+                mergeOrDeadLetter(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    LOGGER.error("Leaving {} payments in the write-behind journal for the next start", batch.size(), e);
+                    return false;
+                }
+                LOGGER.warn("Cannot write {} payments, retrying in {} ms", batch.size(), delay, e);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    // A refused row would fail every retry, so the batch is written row by row and each refused row is dead lettered.
+    private void mergeOrDeadLetter(List<Payment> payments) {
+        try {
+            merge(payments);
+        } catch (DataIntegrityViolationException e) {
+            for (Payment payment : payments) {
+                try {
+                    merge(List.of(payment));
+                } catch (DataIntegrityViolationException refused) {
+                    LOGGER.error("Moving payment [{}] to the write-behind dead letters", payment.getPaymentId(), refused);
+                    journal.deadLetter(payment, refused.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void merge(List<Payment> payments) {
+        jdbcTemplate.batchUpdate(MERGE_PAYMENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Payment payment = payments.get(i);
+                ps.setLong(1, payment.getPaymentId());
+                ps.setBytes(2, toBytes(payment));
+                Money amount = payment.getAmount();
+                if (amount == null) {
+                    ps.setNull(3, Types.BIGINT);
+                    ps.setNull(4, Types.INTEGER);
+                } else {
+                    ps.setLong(3, amount.getMinorUnits());
+                    ps.setInt(4, amount.getCurrency().ordinal());
+                }
+                ps.setString(5, payment.getSource());
+                ps.setString(6, payment.getDescription());
+                ps.setTimestamp(7, payment.getCreatedAt() == null ? null : Timestamp.from(payment.getCreatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return payments.size();
+            }
+        });
+    }
+
+    private static byte[] toBytes(Payment payment) {
+        return ByteBuffer.allocate(16)
+                .putLong(payment.getCustomerId().getMostSignificantBits())
+                .putLong(payment.getCustomerId().getLeastSignificantBits())
+                .array();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher.isAlive()) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        long flushedSequence;
+        synchronized (flushLock) {
+            flushedSequence = flushed;
+        }
+        journal.close(flushedSequence);
+    }
+}
@@ -0,0 +1,140 @@
+package com.amigoscode.testing.payment.resilience;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Limits of one resilient charger. Each value is read from {@code payment.charger.<beanName>.<key>},
+ * falling back to {@code payment.charger.<key>}.
+ */
+public class CardPaymentChargerResilienceConfig {
+
+    private final int maxConcurrentCalls;
+
+    private final long timeoutMillis;
+
+    private final int slidingWindowSize;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long slowCallDurationMillis;
+
+    private final int slowCallRateThreshold;
+
+    private final long openDurationMillis;
+
+    private final int halfOpenCalls;
+
+    public CardPaymentChargerResilienceConfig(int maxConcurrentCalls, long timeoutMillis, int slidingWindowSize,
+                                              int minimumCalls, int failureRateThreshold, long slowCallDurationMillis,
+                                              int slowCallRateThreshold, long openDurationMillis, int halfOpenCalls) {
+        if (maxConcurrentCalls < 1 || timeoutMillis < 1 || slidingWindowSize < 1 || halfOpenCalls < 1
+                || minimumCalls < 1 || minimumCalls > slidingWindowSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid card charger limits [maxConcurrentCalls=%s, timeoutMillis=%s, slidingWindowSize=%s, minimumCalls=%s, halfOpenCalls=%s]",
+                    maxConcurrentCalls, timeoutMillis, slidingWindowSize, minimumCalls, halfOpenCalls));
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.timeoutMillis = timeoutMillis;
+        this.slidingWindowSize = slidingWindowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDurationMillis = slowCallDurationMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    static CardPaymentChargerResilienceConfig from(Environment environment, String beanName) {
+        PropertyReader properties = new PropertyReader(environment, beanName);
+        return new CardPaymentChargerResilienceConfig(
+                properties.getInt("max-concurrent-calls"),
+                properties.getLong("timeout-millis"),
+                properties.getInt("sliding-window-size"),
+                properties.getInt("minimum-calls"),
+                properties.getInt("failure-rate-threshold"),
+                properties.getLong("slow-call-duration-millis"),
+                properties.getInt("slow-call-rate-threshold"),
+                properties.getLong("open-duration-millis"),
+                properties.getInt("half-open-calls"));
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getSlowCallDurationMillis() {
+        return slowCallDurationMillis;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "CardPaymentChargerResilienceConfig{" +
+                "maxConcurrentCalls=" + maxConcurrentCalls +
+                ", timeoutMillis=" + timeoutMillis +
+                ", slidingWindowSize=" + slidingWindowSize +
+                ", minimumCalls=" + minimumCalls +
+                ", failureRateThreshold=" + failureRateThreshold +
+                ", slowCallDurationMillis=" + slowCallDurationMillis +
+                ", slowCallRateThreshold=" + slowCallRateThreshold +
+                ", openDurationMillis=" + openDurationMillis +
+                ", halfOpenCalls=" + halfOpenCalls +
+                '}';
+    }
+
+    private static class PropertyReader {
+
+        private static final String PREFIX = "payment.charger.";
+
+        private final Environment environment;
+
+        private final String beanName;
+
+        PropertyReader(Environment environment, String beanName) {
+            this.environment = environment;
+            this.beanName = beanName;
+        }
+
+        int getInt(String key) {
+            return Integer.parseInt(get(key));
+        }
+
+        long getLong(String key) {
+            return Long.parseLong(get(key));
+        }
+
+        private String get(String key) {
+            String value = environment.getProperty(PREFIX + beanName + "." + key);
+            return value != null ? value : environment.getRequiredProperty(PREFIX + key);
+        }
+    }
+}
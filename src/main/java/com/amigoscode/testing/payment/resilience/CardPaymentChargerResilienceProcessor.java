@@ -0,0 +1,47 @@
+package com.amigoscode.testing.payment.resilience;
+
+import com.amigoscode.testing.payment.CardPaymentCharger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Wraps every CardPaymentCharger bean, so whatever gets the charger injected goes through its limits.
+@Component
+public class CardPaymentChargerResilienceProcessor implements BeanPostProcessor, DisposableBean {
+
+    private final Environment environment;
+
+    private final Map<String, ResilientCardPaymentCharger> chargers = new ConcurrentHashMap<>();
+
+    public CardPaymentChargerResilienceProcessor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof CardPaymentCharger) || bean instanceof ResilientCardPaymentCharger) {
+            return bean;
+        }
+        ResilientCardPaymentCharger charger = new ResilientCardPaymentCharger(beanName, (CardPaymentCharger) bean,
+                CardPaymentChargerResilienceConfig.from(environment, beanName));
+        chargers.put(beanName, charger);
+        return charger;
+    }
+
+    public List<CardPaymentChargerStats> getStats() {
+        return chargers.values().stream()
+                .map(ResilientCardPaymentCharger::getStats)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void destroy() {
+        chargers.values().forEach(ResilientCardPaymentCharger::shutdown);
+    }
+}
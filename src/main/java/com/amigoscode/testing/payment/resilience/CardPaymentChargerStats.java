@@ -0,0 +1,112 @@
+package com.amigoscode.testing.payment.resilience;
+
+public class CardPaymentChargerStats {
+
+    private final String name;
+
+    private final CircuitBreaker.State state;
+
+    private final float failureRate;
+
+    private final float slowCallRate;
+
+    private final int bufferedCalls;
+
+    private final int maxConcurrentCalls;
+
+    private final int availableConcurrentCalls;
+
+    private final long successfulCalls;
+
+    private final long failedCalls;
+
+    private final long timedOutCalls;
+
+    private final long bulkheadRejectedCalls;
+
+    private final long circuitRejectedCalls;
+
+    public CardPaymentChargerStats(String name, CircuitBreaker.State state, float failureRate, float slowCallRate,
+                                   int bufferedCalls, int maxConcurrentCalls, int availableConcurrentCalls,
+                                   long successfulCalls, long failedCalls, long timedOutCalls,
+                                   long bulkheadRejectedCalls, long circuitRejectedCalls) {
+        this.name = name;
+        this.state = state;
+        this.failureRate = failureRate;
+        this.slowCallRate = slowCallRate;
+        this.bufferedCalls = bufferedCalls;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.availableConcurrentCalls = availableConcurrentCalls;
+        this.successfulCalls = successfulCalls;
+        this.failedCalls = failedCalls;
+        this.timedOutCalls = timedOutCalls;
+        this.bulkheadRejectedCalls = bulkheadRejectedCalls;
+        this.circuitRejectedCalls = circuitRejectedCalls;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    public float getFailureRate() {
+        return failureRate;
+    }
+
+    public float getSlowCallRate() {
+        return slowCallRate;
+    }
+
+    public int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getAvailableConcurrentCalls() {
+        return availableConcurrentCalls;
+    }
+
+    public long getSuccessfulCalls() {
+        return successfulCalls;
+    }
+
+    public long getFailedCalls() {
+        return failedCalls;
+    }
+
+    public long getTimedOutCalls() {
+        return timedOutCalls;
+    }
+
+    public long getBulkheadRejectedCalls() {
+        return bulkheadRejectedCalls;
+    }
+
+    public long getCircuitRejectedCalls() {
+        return circuitRejectedCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "CardPaymentChargerStats{" +
+                "name='" + name + '\'' +
+                ", state=" + state +
+                ", failureRate=" + failureRate +
+                ", slowCallRate=" + slowCallRate +
+                ", bufferedCalls=" + bufferedCalls +
+                ", maxConcurrentCalls=" + maxConcurrentCalls +
+                ", availableConcurrentCalls=" + availableConcurrentCalls +
+                ", successfulCalls=" + successfulCalls +
+                ", failedCalls=" + failedCalls +
+                ", timedOutCalls=" + timedOutCalls +
+                ", bulkheadRejectedCalls=" + bulkheadRejectedCalls +
+                ", circuitRejectedCalls=" + circuitRejectedCalls +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package com.amigoscode.testing.payment.resilience;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/payment-chargers")
+public class CardPaymentChargerStatsController {
+
+    private final CardPaymentChargerResilienceProcessor resilienceProcessor;
+
+    @Autowired
+    public CardPaymentChargerStatsController(CardPaymentChargerResilienceProcessor resilienceProcessor) {
+        this.resilienceProcessor = resilienceProcessor;
+    }
+
+    @GetMapping
+    public List<CardPaymentChargerStats> getChargerStats() {
+        return resilienceProcessor.getStats();
+    }
+}
@@ -0,0 +1,142 @@
+package com.amigoscode.testing.payment.resilience;
+
+import java.time.Clock;
+
+/**
+ * Count-based circuit breaker. It opens when, over the last {@code slidingWindowSize} calls, either the failure
+ * rate or the slow call rate reaches its threshold. After {@code openDurationMillis} it lets
+ * {@code halfOpenCalls} trial calls through and closes again only if all of them are fast successes.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final CardPaymentChargerResilienceConfig config;
+
+    private final Clock clock;
+
+    private final boolean[] failedCalls;
+
+    private final boolean[] slowCalls;
+
+    private State state = State.CLOSED;
+
+    private int bufferedCalls;
+
+    private int nextCall;
+
+    private int failedCount;
+
+    private int slowCount;
+
+    private long openUntilMillis;
+
+    private int halfOpenPermits;
+
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(CardPaymentChargerResilienceConfig config) {
+        this(config, Clock.systemUTC());
+    }
+
+    CircuitBreaker(CardPaymentChargerResilienceConfig config, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.failedCalls = new boolean[config.getSlidingWindowSize()];
+        this.slowCalls = new boolean[config.getSlidingWindowSize()];
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && clock.millis() >= openUntilMillis) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (halfOpenPermits < config.getHalfOpenCalls()) {
+                    halfOpenPermits++;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    // Gives back a permission that did not turn into a call.
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized void onResult(boolean failed, long durationMillis) {
+        boolean slow = durationMillis >= config.getSlowCallDurationMillis();
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(failed, slow);
+            if (bufferedCalls >= config.getMinimumCalls()
+                    && (rate(failedCount) >= config.getFailureRateThreshold()
+                    || rate(slowCount) >= config.getSlowCallRateThreshold())) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    public synchronized float getFailureRate() {
+        return rate(failedCount);
+    }
+
+    public synchronized float getSlowCallRate() {
+        return rate(slowCount);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (bufferedCalls == failedCalls.length) {
+            failedCount -= failedCalls[nextCall] ? 1 : 0;
+            slowCount -= slowCalls[nextCall] ? 1 : 0;
+        } else {
+            bufferedCalls++;
+        }
+        failedCalls[nextCall] = failed;
+        slowCalls[nextCall] = slow;
+        failedCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        nextCall = (nextCall + 1) % failedCalls.length;
+    }
+
+    private float rate(int count) {
+        return bufferedCalls == 0 ? 0 : count * 100f / bufferedCalls;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntilMillis = clock.millis() + config.getOpenDurationMillis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        bufferedCalls = 0;
+        nextCall = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+}
@@ -0,0 +1,165 @@
+package com.amigoscode.testing.payment.resilience;
+
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentCharger;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.PaymentNotChargedException;
+
+import java.time.Clock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the delegate on its own pool of at most {@code maxConcurrentCalls} threads, so a slow charger can never hold
+ * more threads than that, and waits for each call at most {@code timeoutMillis}. Calls beyond the limit and calls
+ * while the circuit is open fail immediately instead of queueing.
+ */
+public class ResilientCardPaymentCharger implements CardPaymentCharger {
+
+    private final String name;
+
+    private final CardPaymentCharger delegate;
+
+    private final CardPaymentChargerResilienceConfig config;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final Clock clock;
+
+    private final Semaphore bulkhead;
+
+    private final ExecutorService executor;
+
+    private final LongAdder successfulCalls = new LongAdder();
+
+    private final LongAdder failedCalls = new LongAdder();
+
+    private final LongAdder timedOutCalls = new LongAdder();
+
+    private final LongAdder bulkheadRejectedCalls = new LongAdder();
+
+    private final LongAdder circuitRejectedCalls = new LongAdder();
+
+    public ResilientCardPaymentCharger(String name, CardPaymentCharger delegate, CardPaymentChargerResilienceConfig config) {
+        this(name, delegate, config, new CircuitBreaker(config), Clock.systemUTC(), threadPool(name, config));
+    }
+
+    ResilientCardPaymentCharger(String name, CardPaymentCharger delegate, CardPaymentChargerResilienceConfig config,
+                                CircuitBreaker circuitBreaker, Clock clock, ExecutorService executor) {
+        this.name = name;
+        this.delegate = delegate;
+        this.config = config;
+        this.circuitBreaker = circuitBreaker;
+        this.clock = clock;
+        this.bulkhead = new Semaphore(config.getMaxConcurrentCalls());
+        this.executor = executor;
+    }
+
+    private static ExecutorService threadPool(String name, CardPaymentChargerResilienceConfig config) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(config.getMaxConcurrentCalls(), config.getMaxConcurrentCalls(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        threadPool.allowCoreThreadTimeOut(true);
+        return threadPool;
+    }
+
+    @Override
+    public CardPaymentCharge chargeCard(String cardSource, Money amount, String description) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitRejectedCalls.increment();
+            throw new PaymentNotChargedException(String.format("The card charger [%s] is unavailable, its circuit is open.", name));
+        }
+        // The permit is held until the delegate returns, not until the caller gives up on it.
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            bulkheadRejectedCalls.increment();
+            throw new PaymentNotChargedException(String.format(
+                    "The card charger [%s] is busy with [%s] concurrent calls.", name, config.getMaxConcurrentCalls()));
+        }
+
+        long start = clock.millis();
+        // Whichever of the task and a caller giving up claims the permit first releases it. A task cancelled while
+        // still queued never runs, so the caller must release its permit.
+        AtomicBoolean permitClaimed = new AtomicBoolean();
+        Future<CardPaymentCharge> charge;
+        try {
+            charge = executor.submit(() -> {
+                if (!permitClaimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return delegate.chargeCard(cardSource, amount, description);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.releasePermission();
+            throw e;
+        }
+
+        try {
+            CardPaymentCharge result = charge.get(config.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+            successfulCalls.increment();
+            circuitBreaker.onResult(false, clock.millis() - start);
+            return result;
+        } catch (TimeoutException e) {
+            giveUp(charge, permitClaimed);
+            timedOutCalls.increment();
+            circuitBreaker.onResult(true, clock.millis() - start);
+            throw new IllegalStateException(String.format(
+                    "The card charger [%s] did not answer within [%s] ms.", name, config.getTimeoutMillis()), e);
+        } catch (ExecutionException e) {
+            failedCalls.increment();
+            circuitBreaker.onResult(true, clock.millis() - start);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(String.format("The card charger [%s] failed.", name), e.getCause());
+        } catch (InterruptedException e) {
+            giveUp(charge, permitClaimed);
+            circuitBreaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for the card charger [%s].", name), e);
+        }
+    }
+
+    private void giveUp(Future<CardPaymentCharge> charge, AtomicBoolean permitClaimed) {
+        charge.cancel(true);
+        if (permitClaimed.compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+    }
+
+    public CardPaymentChargerStats getStats() {
+        return new CardPaymentChargerStats(name, circuitBreaker.getState(), circuitBreaker.getFailureRate(),
+                circuitBreaker.getSlowCallRate(), circuitBreaker.getBufferedCalls(),
+                config.getMaxConcurrentCalls(), bulkhead.availablePermits(),
+                successfulCalls.sum(), failedCalls.sum(), timedOutCalls.sum(),
+                bulkheadRejectedCalls.sum(), circuitRejectedCalls.sum());
+    }
+
+    public CardPaymentCharger getDelegate() {
+        return delegate;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,54 @@
+package com.amigoscode.testing.payment.sms;
+
+import com.amigoscode.testing.payment.Money;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class PaymentSmsNotification {
+
+    private final Long paymentId;
+
+    private final UUID customerId;
+
+    private final Money amount;
+
+    private final Instant enqueuedAt;
+
+    public PaymentSmsNotification(Long paymentId, UUID customerId, Money amount, Instant enqueuedAt) {
+        this.paymentId = paymentId;
+        this.customerId = customerId;
+        this.amount = amount;
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public Instant getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    String toText() {
+        return String.format("Your payment [%s] of %s was received.", paymentId, amount);
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentSmsNotification{" +
+                "paymentId=" + paymentId +
+                ", customerId=" + customerId +
+                ", amount=" + amount +
+                ", enqueuedAt=" + enqueuedAt +
+                '}';
+    }
+}
@@ -0,0 +1,348 @@
+package com.amigoscode.testing.payment.sms;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.payment.Payment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the payment SMS off the request path. A completed payment only adds a notification to a bounded queue;
+ * {@code workers} threads take up to {@code batch-size} notifications at a time, look up the phone numbers and hand
+ * the batch to the {@link SmsSender}, retrying with exponential backoff. Notifications that do not fit in the queue
+ * go to an overflow queue of the same size that a spiller thread writes to the {@link PendingPaymentSms} table, as do
+ * the workers with notifications still unsent after {@code max-attempts}; the table is sent when the queue is idle.
+ * Delivery is at least once, unless the overflow queue is full as well: then the notification is dropped and counted
+ * as undeliverable.
+ */
+@Component
+public class PaymentSmsNotifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentSmsNotifier.class);
+
+    private final SmsSender smsSender;
+
+    private final CustomerRepository customerRepository;
+
+    private final PendingPaymentSmsRepository pendingRepository;
+
+    private final BlockingQueue<PaymentSmsNotification> queue;
+
+    private final BlockingQueue<PaymentSmsNotification> overflow;
+
+    private final int queueCapacity;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long retryInitialDelayMillis;
+
+    private final long retryMaxDelayMillis;
+
+    private final long idleMillis;
+
+    private final Clock clock;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Thread spiller;
+
+    private final AtomicBoolean redelivering = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder sent = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    private final LongAdder redelivered = new LongAdder();
+
+    private final LongAdder undeliverable = new LongAdder();
+
+    private final LongAdder deliveryDelayMillis = new LongAdder();
+
+    private final LongAccumulator maxDeliveryDelayMillis = new LongAccumulator(Math::max, 0);
+
+    @Autowired
+    public PaymentSmsNotifier(SmsSender smsSender,
+                              CustomerRepository customerRepository,
+                              PendingPaymentSmsRepository pendingRepository,
+                              @Value("${sms.queue-capacity}") int queueCapacity,
+                              @Value("${sms.workers}") int workers,
+                              @Value("${sms.batch-size}") int batchSize,
+                              @Value("${sms.max-attempts}") int maxAttempts,
+                              @Value("${sms.retry-initial-delay-millis}") long retryInitialDelayMillis,
+                              @Value("${sms.retry-max-delay-millis}") long retryMaxDelayMillis,
+                              @Value("${sms.idle-millis}") long idleMillis) {
+        this(smsSender, customerRepository, pendingRepository, queueCapacity, workers, batchSize, maxAttempts,
+                retryInitialDelayMillis, retryMaxDelayMillis, idleMillis, Clock.systemUTC());
+    }
+
+    PaymentSmsNotifier(SmsSender smsSender, CustomerRepository customerRepository,
+                       PendingPaymentSmsRepository pendingRepository, int queueCapacity, int workers, int batchSize,
+                       int maxAttempts, long retryInitialDelayMillis, long retryMaxDelayMillis, long idleMillis,
+                       Clock clock) {
+        if (queueCapacity < 1 || workers < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid SMS notifier settings [queueCapacity=%s, workers=%s, batchSize=%s, maxAttempts=%s]",
+                    queueCapacity, workers, batchSize, maxAttempts));
+        }
+        this.smsSender = smsSender;
+        this.customerRepository = customerRepository;
+        this.pendingRepository = pendingRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.overflow = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryInitialDelayMillis = retryInitialDelayMillis;
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+        this.idleMillis = idleMillis;
+        this.clock = clock;
+        for (int i = 1; i <= workers; i++) {
+            Thread worker = new Thread(this::deliverContinuously, "payment-sms-" + i);
+            worker.setDaemon(true);
+            this.workers.add(worker);
+        }
+        this.spiller = new Thread(this::spillContinuously, "payment-sms-spiller");
+        this.spiller.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        workers.forEach(Thread::start);
+        spiller.start();
+    }
+
+    // Never fails nor blocks the payment: a full queue hands the notification to the spiller thread, and with the
+    // overflow queue full too the SMS is lost.
+    public void notifyPaymentCompleted(Payment payment) {
+        PaymentSmsNotification notification = new PaymentSmsNotification(payment.getPaymentId(),
+                payment.getCustomerId(), payment.getAmount(), clock.instant());
+        enqueued.increment();
+        if (!queue.offer(notification) && !overflow.offer(notification)) {
+            undeliverable.increment();
+            LOGGER.debug("Dropping {}, the SMS queues are full", notification);
+        }
+    }
+
+    private void spillContinuously() {
+        List<PaymentSmsNotification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PaymentSmsNotification first = overflow.poll(idleMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                overflow.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            spill(batch);
+            batch.clear();
+        }
+    }
+
+    void spillOverflow() {
+        List<PaymentSmsNotification> remaining = new ArrayList<>();
+        overflow.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+
+    private void deliverContinuously() {
+        List<PaymentSmsNotification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PaymentSmsNotification first = queue.poll(idleMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    redeliverPending();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!deliver(batch)) {
+                spill(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    // Sends what was spilled, oldest first, while nothing newer is waiting in the queue.
+    void redeliverPending() {
+        if (!redelivering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (running && queue.isEmpty()) {
+                List<PendingPaymentSms> pending = pendingRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+                if (pending.isEmpty()) {
+                    return;
+                }
+                List<PaymentSmsNotification> notifications = pending.stream()
+                        .map(PendingPaymentSms::toNotification)
+                        .collect(Collectors.toList());
+                if (!deliver(notifications)) {
+                    return;
+                }
+                pendingRepository.deleteAll(pending);
+                redelivered.add(pending.size());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot send pending payment SMS", e);
+        } finally {
+            redelivering.set(false);
+        }
+    }
+
+    // True once the batch is done with: sent, or dropped because the customer no longer exists.
+    boolean deliver(List<PaymentSmsNotification> notifications) {
+        Map<UUID, String> phoneNumbers;
+        try {
+            phoneNumbers = findPhoneNumbers(notifications);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot look up the phone numbers of {} payment SMS", notifications.size(), e);
+            return false;
+        }
+
+        List<PaymentSmsNotification> deliverable = new ArrayList<>(notifications.size());
+        List<SmsMessage> messages = new ArrayList<>(notifications.size());
+        for (PaymentSmsNotification notification : notifications) {
+            String phoneNumber = phoneNumbers.get(notification.getCustomerId());
+            if (phoneNumber == null) {
+                undeliverable.increment();
+                LOGGER.warn("Dropping {}, the customer has no phone number", notification);
+            } else {
+                deliverable.add(notification);
+                messages.add(new SmsMessage(phoneNumber, notification.toText()));
+            }
+        }
+        if (messages.isEmpty()) {
+            return true;
+        }
+        if (!sendWithRetries(messages)) {
+            return false;
+        }
+
+        sent.add(messages.size());
+        batches.increment();
+        long now = clock.millis();
+        for (PaymentSmsNotification notification : deliverable) {
+            long delay = now - notification.getEnqueuedAt().toEpochMilli();
+            deliveryDelayMillis.add(delay);
+            maxDeliveryDelayMillis.accumulate(delay);
+        }
+        return true;
+    }
+
+    private Map<UUID, String> findPhoneNumbers(List<PaymentSmsNotification> notifications) {
+        Set<UUID> customerIds = notifications.stream()
+                .map(PaymentSmsNotification::getCustomerId)
+                .collect(Collectors.toSet());
+        Map<UUID, String> phoneNumbers = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(customerIds)) {
+            phoneNumbers.put(customer.getId(), customer.getPhoneNumber());
+        }
+        return phoneNumbers;
+    }
+
+    private boolean sendWithRetries(List<SmsMessage> messages) {
+        long delay = retryInitialDelayMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                smsSender.send(messages);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !running) {
+                    LOGGER.warn("Cannot send {} payment SMS after {} attempts, keeping them for later",
+                            messages.size(), attempt, e);
+                    return false;
+                }
+                retries.increment();
+                LOGGER.debug("Cannot send {} payment SMS, retrying in {} ms", messages.size(), delay, e);
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            delay = Math.min(delay * 2, retryMaxDelayMillis);
+        }
+    }
+
+    private void spill(List<PaymentSmsNotification> notifications) {
+        try {
+            pendingRepository.saveAll(notifications.stream()
+                    .map(PendingPaymentSms::new)
+                    .collect(Collectors.toList()));
+            spilled.add(notifications.size());
+        } catch (RuntimeException e) {
+            undeliverable.add(notifications.size());
+            LOGGER.error("Lost {} payment SMS, they could not be kept for later", notifications.size(), e);
+        }
+    }
+
+    public PaymentSmsStats getStats() {
+        long delivered = sent.sum();
+        return new PaymentSmsStats(queue.size(), queueCapacity, pendingRepository.count(), enqueued.sum(), delivered,
+                batches.sum(), retries.sum(), spilled.sum(), redelivered.sum(), undeliverable.sum(),
+                delivered == 0 ? 0 : deliveryDelayMillis.sum() / delivered, maxDeliveryDelayMillis.get());
+    }
+
+    // Whatever is still queued goes to the table, so the next start sends it.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            }
+        }
+        if (spiller.isAlive()) {
+            spiller.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        List<PaymentSmsNotification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        overflow.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.amigoscode.testing.payment.sms;
+
+public class PaymentSmsStats {
+
+    private final int queued;
+
+    private final int queueCapacity;
+
+    private final long pending;
+
+    private final long enqueued;
+
+    private final long sent;
+
+    private final long batches;
+
+    private final long retries;
+
+    private final long spilled;
+
+    private final long redelivered;
+
+    private final long undeliverable;
+
+    private final long averageDeliveryDelayMillis;
+
+    private final long maxDeliveryDelayMillis;
+
+    public PaymentSmsStats(int queued, int queueCapacity, long pending, long enqueued, long sent, long batches,
+                           long retries, long spilled, long redelivered, long undeliverable,
+                           long averageDeliveryDelayMillis, long maxDeliveryDelayMillis) {
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.pending = pending;
+        this.enqueued = enqueued;
+        this.sent = sent;
+        this.batches = batches;
+        this.retries = retries;
+        this.spilled = spilled;
+        this.redelivered = redelivered;
+        this.undeliverable = undeliverable;
+        this.averageDeliveryDelayMillis = averageDeliveryDelayMillis;
+        this.maxDeliveryDelayMillis = maxDeliveryDelayMillis;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public long getSpilled() {
+        return spilled;
+    }
+
+    public long getRedelivered() {
+        return redelivered;
+    }
+
+    public long getUndeliverable() {
+        return undeliverable;
+    }
+
+    public long getAverageDeliveryDelayMillis() {
+        return averageDeliveryDelayMillis;
+    }
+
+    public long getMaxDeliveryDelayMillis() {
+        return maxDeliveryDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentSmsStats{" +
+                "queued=" + queued +
+                ", queueCapacity=" + queueCapacity +
+                ", pending=" + pending +
+                ", enqueued=" + enqueued +
+                ", sent=" + sent +
+                ", batches=" + batches +
+                ", retries=" + retries +
+                ", spilled=" + spilled +
+                ", redelivered=" + redelivered +
+                ", undeliverable=" + undeliverable +
+                ", averageDeliveryDelayMillis=" + averageDeliveryDelayMillis +
+                ", maxDeliveryDelayMillis=" + maxDeliveryDelayMillis +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package com.amigoscode.testing.payment.sms;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("api/v1/payment-sms")
+public class PaymentSmsStatsController {
+
+    private final PaymentSmsNotifier smsNotifier;
+
+    @Autowired
+    public PaymentSmsStatsController(PaymentSmsNotifier smsNotifier) {
+        this.smsNotifier = smsNotifier;
+    }
+
+    @GetMapping("stats")
+    public PaymentSmsStats getStats() {
+        return smsNotifier.getStats();
+    }
+}
@@ -0,0 +1,61 @@
+package com.amigoscode.testing.payment.sms;
+
+import com.amigoscode.testing.payment.Money;
+
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import java.time.Instant;
+import java.util.UUID;
+
+// A payment SMS that did not fit in the notifier's queue or could not be sent, kept until it can be.
+@Entity
+public class PendingPaymentSms {
+
+    @Id
+    @SequenceGenerator(name = "pending_payment_sms_id_sequence", sequenceName = "pending_payment_sms_id_sequence",
+            allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pending_payment_sms_id_sequence")
+    private Long id;
+
+    private Long paymentId;
+
+    private UUID customerId;
+
+    @Embedded
+    private Money amount;
+
+    private Instant enqueuedAt;
+
+    public PendingPaymentSms(PaymentSmsNotification notification) {
+        this.paymentId = notification.getPaymentId();
+        this.customerId = notification.getCustomerId();
+        this.amount = notification.getAmount();
+        this.enqueuedAt = notification.getEnqueuedAt();
+    }
+
+    public PendingPaymentSms() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public PaymentSmsNotification toNotification() {
+        return new PaymentSmsNotification(paymentId, customerId, amount, enqueuedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "PendingPaymentSms{" +
+                "id=" + id +
+                ", paymentId=" + paymentId +
+                ", customerId=" + customerId +
+                ", amount=" + amount +
+                ", enqueuedAt=" + enqueuedAt +
+                '}';
+    }
+}
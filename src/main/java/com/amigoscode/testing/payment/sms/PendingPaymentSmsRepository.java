@@ -0,0 +1,11 @@
+package com.amigoscode.testing.payment.sms;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface PendingPaymentSmsRepository extends CrudRepository<PendingPaymentSms, Long> {
+
+    List<PendingPaymentSms> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package com.amigoscode.testing.payment.sms;
+
+import java.util.List;
+
+public interface SmsSender {
+
+    // All or nothing: a failed batch is sent again as a whole, so a provider may see a message more than once.
+    void send(List<SmsMessage> messages);
+}
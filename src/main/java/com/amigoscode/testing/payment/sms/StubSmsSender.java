@@ -0,0 +1,56 @@
+package com.amigoscode.testing.payment.sms;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Stands in for an SMS provider: takes latency-millis per batch and keeps the last retained-messages it was given.
+@Service
+@ConditionalOnProperty(value = "sms.sender", havingValue = "stub")
+public class StubSmsSender implements SmsSender {
+
+    private final long latencyMillis;
+
+    private final int retainedMessages;
+
+    private final Deque<SmsMessage> sent = new ArrayDeque<>();
+
+    @Autowired
+    public StubSmsSender(@Value("${sms.stub.latency-millis}") long latencyMillis,
+                         @Value("${sms.stub.retained-messages}") int retainedMessages) {
+        this.latencyMillis = latencyMillis;
+        this.retainedMessages = retainedMessages;
+    }
+
+    @Override
+    public void send(List<SmsMessage> messages) {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending SMS", e);
+            }
+        }
+        synchronized (sent) {
+            for (SmsMessage message : messages) {
+                sent.addLast(message);
+                if (sent.size() > retainedMessages) {
+                    sent.removeFirst();
+                }
+            }
+        }
+    }
+
+    public List<SmsMessage> getSent() {
+        synchronized (sent) {
+            return new ArrayList<>(sent);
+        }
+    }
+}
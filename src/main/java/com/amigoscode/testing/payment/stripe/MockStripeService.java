@@ -2,19 +2,177 @@ package com.amigoscode.testing.payment.stripe;
 
 import com.amigoscode.testing.payment.CardPaymentCharge;
 import com.amigoscode.testing.payment.CardPaymentCharger;
-import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Stands in for Stripe when {@code stripe.enabled=false}. By default every charge succeeds at once; the
+ * {@code stripe.mock.*} settings make it answer like a remote charger would, with latency drawn from a distribution,
+ * a share of failed and declined charges and 429 throttling, so capacity can be measured without Stripe.
+ */
 @Service
 @ConditionalOnProperty(value = "stripe.enabled", havingValue = "false")
 public class MockStripeService implements CardPaymentCharger {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MockStripeService.class);
+
+    // Standard normal quantile of the 99th percentile
+    private static final double Z_99 = 2.326;
+
+    public enum Latency {
+        FIXED,
+        NORMAL,
+        LONG_TAIL
+    }
+
+    private final Latency latency;
+
+    private final long latencyMillis;
+
+    private final long latencyP99Millis;
+
+    private final double failureRate;
+
+    private final double declineRate;
+
+    private final double throttleRate;
+
+    private final int maxRequestsPerSecond;
+
+    private final Random seededRandom;
+
+    private final Clock clock;
+
+    // The current one second window in the high 32 bits and the requests made in it in the low 32 bits
+    private final AtomicLong requestWindow = new AtomicLong();
+
+    @Autowired
+    public MockStripeService(@Value("${stripe.mock.latency}") Latency latency,
+                             @Value("${stripe.mock.latency-millis}") long latencyMillis,
+                             @Value("${stripe.mock.latency-p99-millis}") long latencyP99Millis,
+                             @Value("${stripe.mock.failure-rate}") double failureRate,
+                             @Value("${stripe.mock.decline-rate}") double declineRate,
+                             @Value("${stripe.mock.throttle-rate}") double throttleRate,
+                             @Value("${stripe.mock.max-requests-per-second}") int maxRequestsPerSecond,
+                             @Value("${stripe.mock.seed:#{null}}") Long seed) {
+        this(latency, latencyMillis, latencyP99Millis, failureRate, declineRate, throttleRate, maxRequestsPerSecond,
+                seed, Clock.systemUTC());
+    }
+
+    MockStripeService(Latency latency, long latencyMillis, long latencyP99Millis, double failureRate,
+                      double declineRate, double throttleRate, int maxRequestsPerSecond, Long seed, Clock clock) {
+        if (latencyMillis < 0 || (latency != Latency.FIXED && latencyP99Millis < latencyMillis)
+                || !isRate(failureRate) || !isRate(declineRate) || !isRate(throttleRate) || maxRequestsPerSecond < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid mock Stripe settings [latency=%s, latencyMillis=%s, latencyP99Millis=%s, failureRate=%s, declineRate=%s, throttleRate=%s, maxRequestsPerSecond=%s]",
+                    latency, latencyMillis, latencyP99Millis, failureRate, declineRate, throttleRate, maxRequestsPerSecond));
+        }
+        this.latency = latency;
+        this.latencyMillis = latencyMillis;
+        this.latencyP99Millis = latencyP99Millis;
+        this.failureRate = failureRate;
+        this.declineRate = declineRate;
+        this.throttleRate = throttleRate;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.seededRandom = seed != null ? new Random(seed) : null;
+        this.clock = clock;
+        LOGGER.info("Simulating Stripe with {}", this);
+    }
+
+    private static boolean isRate(double rate) {
+        return rate >= 0 && rate <= 1;
+    }
+
+    @Override
+    public CardPaymentCharge chargeCard(String cardSource, Money amount, String description) {
+        Random random = random();
+
+        // Stripe turns throttled requests away before doing any work
+        if (isOverRequestLimit() || random.nextDouble() < throttleRate) {
+            throw new IllegalStateException("Cannot make Stripe charge", new RateLimitException(
+                    "Too many requests hit the API too quickly.", null, null, "rate_limit", 429, null));
+        }
+
+        sleep(nextLatencyMillis(random));
+
+        if (random.nextDouble() < failureRate) {
+            throw new IllegalStateException("Cannot make Stripe charge", new ApiException(
+                    "An error occurred with our connection to Stripe.", null, null, 500, null));
+        }
+        return new CardPaymentCharge(random.nextDouble() >= declineRate);
+    }
+
+    long nextLatencyMillis() {
+        return nextLatencyMillis(random());
+    }
+
+    private long nextLatencyMillis(Random random) {
+        switch (latency) {
+            case NORMAL:
+                double standardDeviation = (latencyP99Millis - latencyMillis) / Z_99;
+                return Math.max(0, Math.round(latencyMillis + random.nextGaussian() * standardDeviation));
+            case LONG_TAIL:
+                // Log-normal around the median, so a few calls take far longer than most
+                if (latencyMillis == 0) {
+                    return 0;
+                }
+                double sigma = Math.log((double) latencyP99Millis / latencyMillis) / Z_99;
+                return Math.round(latencyMillis * Math.exp(random.nextGaussian() * sigma));
+            default:
+                return latencyMillis;
+        }
+    }
+
+    private Random random() {
+        return seededRandom != null ? seededRandom : ThreadLocalRandom.current();
+    }
+
+    private boolean isOverRequestLimit() {
+        if (maxRequestsPerSecond == 0) {
+            return false;
+        }
+        long window = clock.millis() / 1000;
+        long state = requestWindow.updateAndGet(current -> current >>> 32 == window
+                ? current + 1
+                : window << 32 | 1);
+        return (state & 0xFFFFFFFFL) > maxRequestsPerSecond;
+    }
+
+    private static void sleep(long millis) {
+        if (millis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating a Stripe charge", e);
+        }
+    }
+
     @Override
-    public CardPaymentCharge chargeCard(String cardSource, BigDecimal amount, Currency currency, String description) {
-        System.out.println("stripe.enabled: false");
-        return new CardPaymentCharge(true);
+    public String toString() {
+        return "MockStripeService{" +
+                "latency=" + latency +
+                ", latencyMillis=" + latencyMillis +
+                ", latencyP99Millis=" + latencyP99Millis +
+                ", failureRate=" + failureRate +
+                ", declineRate=" + declineRate +
+                ", throttleRate=" + throttleRate +
+                ", maxRequestsPerSecond=" + maxRequestsPerSecond +
+                ", seeded=" + (seededRandom != null) +
+                '}';
     }
 }
@@ -2,15 +2,52 @@ package com.amigoscode.testing.payment.stripe;
 
 import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
+import com.stripe.net.ApiResource;
+import com.stripe.net.LiveStripeResponseGetter;
 import com.stripe.net.RequestOptions;
+import com.stripe.net.StripeResponseGetter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 
+// Charge.create would go through the library's static client and API base, so charges are sent through a pooled
+// client of our own to stripe.api-base instead, which tests and benchmarks point at a StripeStubServer.
 @Service
 public class StripeApi {
 
+    private final String chargesUrl;
+
+    private final StripeResponseGetter responseGetter;
+
+    private final int connectTimeoutMillis;
+
+    private final int readTimeoutMillis;
+
+    private final int maxNetworkRetries;
+
+    @Autowired
+    public StripeApi(@Value("${stripe.api-base}") String apiBase,
+                     @Value("${stripe.http.max-connections}") int maxConnections,
+                     @Value("${stripe.http.connect-timeout-millis}") int connectTimeoutMillis,
+                     @Value("${stripe.http.read-timeout-millis}") int readTimeoutMillis,
+                     @Value("${stripe.http.max-network-retries}") int maxNetworkRetries) {
+        this.chargesUrl = apiBase + "/v1/charges";
+        this.responseGetter = new LiveStripeResponseGetter(new StripeHttpClient(maxConnections));
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.maxNetworkRetries = maxNetworkRetries;
+    }
+
+    public RequestOptions.RequestOptionsBuilder requestOptions() {
+        return RequestOptions.builder()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setReadTimeout(readTimeoutMillis)
+                .setMaxNetworkRetries(maxNetworkRetries);
+    }
+
     public Charge create(Map<String, Object> params, RequestOptions options) throws StripeException {
-        return Charge.create(params, options);
+        return responseGetter.request(ApiResource.RequestMethod.POST, chargesUrl, params, Charge.class, options);
     }
 }
@@ -0,0 +1,34 @@
+package com.amigoscode.testing.payment.stripe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.amigoscode.testing.StripeCharge")
+@Label("Stripe Charge")
+@Category({"Testing", "Payment"})
+@Description("One charge request to the Stripe API")
+@StackTrace(false)
+class StripeChargeEvent extends Event {
+
+    @Label("Currency")
+    String currency;
+
+    @Label("Amount")
+    @Description("In the smallest unit of the currency")
+    long amountMinorUnits;
+
+    @Label("Outcome")
+    @Description("PAID, NOT_PAID or FAILED")
+    String outcome;
+
+    @Label("HTTP Status")
+    @Description("Status of the failed request, 0 when it got no answer")
+    int httpStatus;
+
+    @Label("Error Code")
+    String errorCode;
+}
@@ -0,0 +1,65 @@
+package com.amigoscode.testing.payment.stripe;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpURLConnectionClient;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The library's HttpURLConnection client with at most {@code maxConnections} requests in flight. HttpURLConnection
+ * keeps idle connections alive in a JVM-wide cache of {@code http.maxConnections} per host, five by default; a
+ * connection released when the cache is full is closed, so the next request pays a new TCP handshake. Capping the
+ * requests at the cache size keeps every connection reusable. A request that finds every connection busy waits up to
+ * its connect timeout for one.
+ * <p>
+ * The cache reads {@code http.maxConnections} once, when the first connection is made, so {@link StripeKeepAliveListener}
+ * sets it from {@code stripe.http.max-connections} as the application starts.
+ */
+public class StripeHttpClient extends HttpClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StripeHttpClient.class);
+
+    private static final int DEFAULT_KEEP_ALIVE_CONNECTIONS = 5;
+
+    private final HttpClient delegate = new HttpURLConnectionClient();
+
+    private final Semaphore connections;
+
+    public StripeHttpClient(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(String.format("The Stripe connection pool size [%s] must be positive", maxConnections));
+        }
+        int keepAliveConnections = Integer.getInteger(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY, DEFAULT_KEEP_ALIVE_CONNECTIONS);
+        if (keepAliveConnections < maxConnections) {
+            LOGGER.warn("Only {} of {} Stripe connections can be kept alive, start the JVM with -D{}={}",
+                    keepAliveConnections, maxConnections, StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY, maxConnections);
+        }
+        this.connections = new Semaphore(maxConnections);
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        int timeoutMillis = request.options().getConnectTimeout();
+        try {
+            if (!connections.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ApiConnectionException(String.format(
+                        "No Stripe connection became free within [%s] ms", timeoutMillis));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted while waiting for a Stripe connection", e);
+        }
+        try {
+            return delegate.request(request);
+        } finally {
+            connections.release();
+        }
+    }
+}
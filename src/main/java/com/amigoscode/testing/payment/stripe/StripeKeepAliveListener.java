@@ -0,0 +1,27 @@
+package com.amigoscode.testing.payment.stripe;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes the JVM-wide HttpURLConnection keep-alive cache to {@code stripe.http.max-connections}, so every connection
+ * {@link StripeHttpClient} lets through can be reused. Runs once the configuration is read but before any bean can
+ * open a connection, as the cache reads {@code http.maxConnections} only once. A value given at launch is left as is.
+ */
+public class StripeKeepAliveListener implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        sizeKeepAliveCache(event.getEnvironment());
+    }
+
+    static void sizeKeepAliveCache(Environment environment) {
+        String maxConnections = environment.getProperty("stripe.http.max-connections");
+        if (maxConnections != null && System.getProperty(MAX_CONNECTIONS_PROPERTY) == null) {
+            System.setProperty(MAX_CONNECTIONS_PROPERTY, maxConnections);
+        }
+    }
+}
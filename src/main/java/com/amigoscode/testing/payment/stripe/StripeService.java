@@ -2,7 +2,7 @@ package com.amigoscode.testing.payment.stripe;
 
 import com.amigoscode.testing.payment.CardPaymentCharge;
 import com.amigoscode.testing.payment.CardPaymentCharger;
-import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
 import com.stripe.net.RequestOptions;
@@ -10,7 +10,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,30 +19,47 @@ public class StripeService implements CardPaymentCharger {
 
     private final StripeApi stripeApi;
 
-    private final RequestOptions requestOptions = RequestOptions.builder()
-            .setApiKey("sk_test_4eC39HqLyjWDarjtT1zdp7dc")
-            .build();
+    private final RequestOptions requestOptions;
 
     @Autowired
     public StripeService(StripeApi stripeApi) {
         this.stripeApi = stripeApi;
+        this.requestOptions = stripeApi.requestOptions()
+                .setApiKey("sk_test_4eC39HqLyjWDarjtT1zdp7dc")
+                .build();
     }
 
     @Override
-    public CardPaymentCharge chargeCard(String cardSource, BigDecimal amount, Currency currency, String description) {
+    public CardPaymentCharge chargeCard(String cardSource, Money amount, String description) {
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("amount", amount);
-        params.put("currency", currency);
+        // Stripe takes the amount as an integer count of the currency's smallest unit
+        Map<String, Object> params = new HashMap<>(8);
+        params.put("amount", amount.getMinorUnits());
+        params.put("currency", amount.getCurrency());
         params.put("source", cardSource); //  "tok_amex"
         params.put("description", description); //"My First Test Charge (created for API docs)"
 
+        StripeChargeEvent event = new StripeChargeEvent();
+        event.begin();
         try {
             Charge charge = stripeApi.create(params, requestOptions);
             Boolean paid = charge.getPaid();
+            event.outcome = Boolean.TRUE.equals(paid) ? "PAID" : "NOT_PAID";
             return new CardPaymentCharge(paid);
         } catch (StripeException e) {
+            event.httpStatus = e.getStatusCode() == null ? 0 : e.getStatusCode();
+            event.errorCode = e.getCode();
             throw new IllegalStateException("Cannot make Stripe charge", e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.currency = amount.getCurrency().name();
+                event.amountMinorUnits = amount.getMinorUnits();
+                if (event.outcome == null) {
+                    event.outcome = "FAILED";
+                }
+                event.commit();
+            }
         }
     }
 }
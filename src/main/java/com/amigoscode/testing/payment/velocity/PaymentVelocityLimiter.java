@@ -0,0 +1,113 @@
+package com.amigoscode.testing.payment.velocity;
+
+import com.amigoscode.testing.payment.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fraud velocity check run before a card is charged: a customer, and a card source, may only make so many payments,
+ * for so much per currency, within {@code payment.velocity.window-seconds}. Idle keys are evicted every
+ * {@code payment.velocity.eviction-interval-millis} on a background thread.
+ */
+@Component
+public class PaymentVelocityLimiter {
+
+    private final SlidingWindowLimiter<UUID> customers;
+
+    private final SlidingWindowLimiter<String> cards;
+
+    private final long windowSeconds;
+
+    private final Clock clock;
+
+    private final long evictionIntervalMillis;
+
+    private ScheduledExecutorService evictor;
+
+    @Autowired
+    public PaymentVelocityLimiter(Environment environment,
+                                  @Value("${payment.velocity.window-seconds}") long windowSeconds,
+                                  @Value("${payment.velocity.max-keys}") int maxKeys,
+                                  @Value("${payment.velocity.eviction-interval-millis}") long evictionIntervalMillis) {
+        this(VelocityLimits.from(environment, "customer"), VelocityLimits.from(environment, "card"), windowSeconds,
+                maxKeys, evictionIntervalMillis, Clock.systemUTC());
+    }
+
+    PaymentVelocityLimiter(VelocityLimits customerLimits, VelocityLimits cardLimits, long windowSeconds, int maxKeys,
+                           long evictionIntervalMillis, Clock clock) {
+        long windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.customers = new SlidingWindowLimiter<>(customerLimits, windowMillis, maxKeys);
+        this.cards = new SlidingWindowLimiter<>(cardLimits, windowMillis, maxKeys);
+        this.windowSeconds = windowSeconds;
+        this.evictionIntervalMillis = evictionIntervalMillis;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-velocity-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, evictionIntervalMillis, evictionIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    void evictIdle() {
+        long now = clock.millis();
+        customers.evictIdle(now);
+        cards.evictIdle(now);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    // Null when the payment may be charged, otherwise why not. A payment let through counts against both limits.
+    public String tryAcquire(UUID customerId, String source, Money amount) {
+        long now = clock.millis();
+        if (!customers.tryAcquire(customerId, amount, now)) {
+            return String.format("Too many payments for customer [%s] within [%s] seconds.", customerId, windowSeconds);
+        }
+        if (source != null && !cards.tryAcquire(source, amount, now)) {
+            customers.release(customerId, amount, now);
+            return String.format("Too many payments with this card within [%s] seconds.", windowSeconds);
+        }
+        return null;
+    }
+
+    // Takes back a payment let through by tryAcquire just now, when it is turned away before reaching the card.
+    public void release(UUID customerId, String source, Money amount) {
+        long now = clock.millis();
+        customers.release(customerId, amount, now);
+        if (source != null) {
+            cards.release(source, amount, now);
+        }
+    }
+
+    public long getCustomerRejections() {
+        return customers.getRejected();
+    }
+
+    public long getCardRejections() {
+        return cards.getRejected();
+    }
+
+    public long getUntrackedPayments() {
+        return customers.getTableFull() + cards.getTableFull();
+    }
+}
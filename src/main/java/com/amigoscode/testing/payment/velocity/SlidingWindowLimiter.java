@@ -0,0 +1,178 @@
+package com.amigoscode.testing.payment.velocity;
+
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding window counter per key: the payments and amounts of the last {@code windowMillis} are estimated from the
+ * current fixed window plus the share of the previous one that still overlaps the sliding window, so each key costs
+ * two sets of counters instead of a log of its payments. A key locks only its own counters, so different keys never
+ * contend.
+ * <p>
+ * Memory is bounded: {@link #evictIdle} drops keys with nothing in the current or previous window and is meant to be
+ * run off the request path, and while {@code maxKeys} keys are tracked a new key is let through uncounted and counted
+ * in {@link #getTableFull}, so filling the table with junk keys cannot turn away every other customer.
+ */
+public class SlidingWindowLimiter<K> {
+
+    private static final int CURRENCIES = Currency.values().length;
+
+    // Per window: the count, then the amount in each currency. The previous window comes first, then the current one.
+    private static final int SLOTS = 1 + CURRENCIES;
+
+    private final VelocityLimits limits;
+
+    private final long windowMillis;
+
+    private final int maxKeys;
+
+    private final Map<K, Window> windows = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder tableFull = new LongAdder();
+
+    public SlidingWindowLimiter(VelocityLimits limits, long windowMillis, int maxKeys) {
+        if (windowMillis < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid sliding window [windowMillis=%s, maxKeys=%s]", windowMillis, maxKeys));
+        }
+        this.limits = limits;
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+    }
+
+    public boolean tryAcquire(K key, Money amount, long nowMillis) {
+        long index = nowMillis / windowMillis;
+        double previousWeight = 1 - (double) (nowMillis % windowMillis) / windowMillis;
+        int currency = 1 + amount.getCurrency().ordinal();
+        long maxMinorUnits = limits.getMaxMinorUnits(amount.getCurrency());
+
+        while (true) {
+            Window window = windowFor(key, nowMillis);
+            if (window == null) {
+                tableFull.increment();
+                return true;
+            }
+            synchronized (window) {
+                if (window.evicted) {
+                    continue;
+                }
+                window.roll(index);
+                long[] counters = window.counters;
+                if (counters[0] * previousWeight + counters[SLOTS] + 1 > limits.getMaxCount()
+                        || counters[currency] * previousWeight + counters[SLOTS + currency] + amount.getMinorUnits() > maxMinorUnits) {
+                    rejected.increment();
+                    return false;
+                }
+                counters[SLOTS]++;
+                counters[SLOTS + currency] += amount.getMinorUnits();
+                return true;
+            }
+        }
+    }
+
+    // Takes back a payment acquired at acquiredAtMillis, from whichever window it is in by now.
+    public void release(K key, Money amount, long acquiredAtMillis) {
+        Window window = windows.get(key);
+        if (window == null) {
+            return;
+        }
+        long index = acquiredAtMillis / windowMillis;
+        int currency = 1 + amount.getCurrency().ordinal();
+        synchronized (window) {
+            int offset;
+            if (window.index == index) {
+                offset = SLOTS;
+            } else if (window.index == index + 1) {
+                offset = 0;
+            } else {
+                return;
+            }
+            window.counters[offset]--;
+            window.counters[offset + currency] -= amount.getMinorUnits();
+        }
+    }
+
+    // Null once maxKeys keys are tracked. The size is reserved before the window is added, so racing new keys cannot
+    // push it past maxKeys.
+    private Window windowFor(K key, long nowMillis) {
+        Window window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (size.incrementAndGet() > maxKeys) {
+            size.decrementAndGet();
+            return null;
+        }
+        Window created = new Window(nowMillis / windowMillis);
+        window = windows.putIfAbsent(key, created);
+        if (window != null) {
+            size.decrementAndGet();
+            return window;
+        }
+        return created;
+    }
+
+    // Drops keys with nothing in the current or previous window. Walks every key, so it belongs on a background thread.
+    public void evictIdle(long nowMillis) {
+        long index = nowMillis / windowMillis;
+        windows.values().removeIf(window -> {
+            boolean idle;
+            synchronized (window) {
+                idle = window.index < index - 1;
+                window.evicted = idle;
+            }
+            if (idle) {
+                size.decrementAndGet();
+            }
+            return idle;
+        });
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTableFull() {
+        return tableFull.sum();
+    }
+
+    private static final class Window {
+
+        private final long[] counters = new long[2 * SLOTS];
+
+        private long index;
+
+        private boolean evicted;
+
+        private Window(long index) {
+            this.index = index;
+        }
+
+        private void roll(long newIndex) {
+            if (newIndex <= index) {
+                return;
+            }
+            if (newIndex == index + 1) {
+                System.arraycopy(counters, SLOTS, counters, 0, SLOTS);
+            } else {
+                Arrays.fill(counters, 0, SLOTS, 0);
+            }
+            Arrays.fill(counters, SLOTS, 2 * SLOTS, 0);
+            index = newIndex;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.amigoscode.testing.payment.velocity;
+
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * How many payments, and how much per currency, one key may make within the window. Read from
+ * {@code payment.velocity.<name>.max-count} and {@code payment.velocity.<name>.max-amount.<currency>}; a currency
+ * without a maximum amount is only limited by count.
+ */
+public class VelocityLimits {
+
+    private static final String PREFIX = "payment.velocity.";
+
+    private final int maxCount;
+
+    private final long[] maxMinorUnits;
+
+    public VelocityLimits(int maxCount, long[] maxMinorUnits) {
+        if (maxCount < 1 || maxMinorUnits.length != Currency.values().length) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid velocity limits [maxCount=%s, maxMinorUnits=%s]", maxCount, Arrays.toString(maxMinorUnits)));
+        }
+        this.maxCount = maxCount;
+        this.maxMinorUnits = maxMinorUnits.clone();
+    }
+
+    static VelocityLimits from(Environment environment, String name) {
+        long[] maxMinorUnits = new long[Currency.values().length];
+        for (Currency currency : Currency.values()) {
+            String maxAmount = environment.getProperty(PREFIX + name + ".max-amount." + currency);
+            maxMinorUnits[currency.ordinal()] = maxAmount == null
+                    ? Long.MAX_VALUE
+                    : Money.of(new BigDecimal(maxAmount), currency).getMinorUnits();
+        }
+        return new VelocityLimits(environment.getRequiredProperty(PREFIX + name + ".max-count", Integer.class),
+                maxMinorUnits);
+    }
+
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    public long getMaxMinorUnits(Currency currency) {
+        return maxMinorUnits[currency.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "VelocityLimits{" +
+                "maxCount=" + maxCount +
+                ", maxMinorUnits=" + Arrays.toString(maxMinorUnits) +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package com.amigoscode.testing.profiling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the flight recording endpoints, which can write a dump of up to {@code profiling.jfr.max-size-mb} per call:
+ * a request must carry {@code profiling.access-token} in {@code profiling.access-header}. With no token configured the
+ * endpoints are off. It runs before the rate and concurrency limits so refused requests cost nothing.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FlightRecordingAccessFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PREFIX = "/api/v1/profiling/";
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final String accessHeader;
+
+    private final byte[] accessToken;
+
+    @Autowired
+    public FlightRecordingAccessFilter(@Value("${profiling.access-header}") String accessHeader,
+                                       @Value("${profiling.access-token}") String accessToken) {
+        this.accessHeader = accessHeader;
+        this.accessToken = accessToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Decoded and cleaned the way request mappings see it, so "//" or ";" in the URI cannot slip past.
+        String path = urlPathHelper.getPathWithinApplication(request) + "/";
+        if (path.startsWith(PATH_PREFIX)) {
+            if (accessToken.length == 0) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            if (!isAuthorized(request.getHeader(accessHeader))) {
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Compared in constant time, so the token cannot be guessed a byte at a time.
+    private boolean isAuthorized(String token) {
+        return token != null && MessageDigest.isEqual(accessToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,39 @@
+package com.amigoscode.testing.profiling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("api/v1/profiling/recording")
+public class FlightRecordingController {
+
+    private final FlightRecordings flightRecordings;
+
+    @Autowired
+    public FlightRecordingController(FlightRecordings flightRecordings) {
+        this.flightRecordings = flightRecordings;
+    }
+
+    @GetMapping
+    public FlightRecordingStatus getStatus() {
+        return flightRecordings.getStatus();
+    }
+
+    @PostMapping("/start")
+    public FlightRecordingStatus start() {
+        return flightRecordings.start();
+    }
+
+    @PostMapping("/dump")
+    public FlightRecordingStatus dump() {
+        return flightRecordings.dump();
+    }
+
+    @PostMapping("/stop")
+    public FlightRecordingStatus stop() {
+        return flightRecordings.stop();
+    }
+}
@@ -0,0 +1,62 @@
+package com.amigoscode.testing.profiling;
+
+public class FlightRecordingStatus {
+
+    private final boolean running;
+
+    private final String settings;
+
+    private final long maxAgeSeconds;
+
+    private final long maxSizeBytes;
+
+    private final long sizeBytes;
+
+    private final String lastDump;
+
+    public FlightRecordingStatus(boolean running, String settings, long maxAgeSeconds, long maxSizeBytes,
+                                 long sizeBytes, String lastDump) {
+        this.running = running;
+        this.settings = settings;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.maxSizeBytes = maxSizeBytes;
+        this.sizeBytes = sizeBytes;
+        this.lastDump = lastDump;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getLastDump() {
+        return lastDump;
+    }
+
+    @Override
+    public String toString() {
+        return "FlightRecordingStatus{" +
+                "running=" + running +
+                ", settings='" + settings + '\'' +
+                ", maxAgeSeconds=" + maxAgeSeconds +
+                ", maxSizeBytes=" + maxSizeBytes +
+                ", sizeBytes=" + sizeBytes +
+                ", lastDump='" + lastDump + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,171 @@
+package com.amigoscode.testing.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs one bounded JDK Flight Recording at a time, with the JVM's own events plus the payment, Stripe, registration
+ * and repository events. The recording keeps only the last {@code max-age-seconds} or {@code max-size-mb}, whichever
+ * is smaller, so it can stay on in production; a dump writes what it holds to {@code dump-directory} for JDK Mission
+ * Control or {@code jfr print}, and only the last {@code max-dumps} dumps are kept there.
+ */
+@Component
+public class FlightRecordings {
+
+    private static final DateTimeFormatter DUMP_NAME =
+            DateTimeFormatter.ofPattern("'recording-'yyyyMMdd-HHmmss-SSS'.jfr'").withZone(ZoneOffset.UTC);
+
+    private static final Pattern DUMP_FILE = Pattern.compile("recording-\\d{8}-\\d{6}-\\d{3}\\.jfr");
+
+    private final String settings;
+
+    private final Duration maxAge;
+
+    private final long maxSizeBytes;
+
+    private final Path dumpDirectory;
+
+    private final int maxDumps;
+
+    private final boolean startOnStartup;
+
+    private final Clock clock;
+
+    private Recording recording;
+
+    private Path lastDump;
+
+    @Autowired
+    public FlightRecordings(@Value("${profiling.jfr.settings}") String settings,
+                            @Value("${profiling.jfr.max-age-seconds}") long maxAgeSeconds,
+                            @Value("${profiling.jfr.max-size-mb}") long maxSizeMb,
+                            @Value("${profiling.jfr.dump-directory}") String dumpDirectory,
+                            @Value("${profiling.jfr.max-dumps}") int maxDumps,
+                            @Value("${profiling.jfr.start-on-startup}") boolean startOnStartup) {
+        this(settings, Duration.ofSeconds(maxAgeSeconds), maxSizeMb * 1024 * 1024, Paths.get(dumpDirectory), maxDumps,
+                startOnStartup, Clock.systemUTC());
+    }
+
+    FlightRecordings(String settings, Duration maxAge, long maxSizeBytes, Path dumpDirectory, int maxDumps,
+                     boolean startOnStartup, Clock clock) {
+        if (maxDumps < 1) {
+            throw new IllegalArgumentException(String.format("Invalid max dumps [%s]", maxDumps));
+        }
+        this.settings = settings;
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeBytes;
+        this.dumpDirectory = dumpDirectory;
+        this.maxDumps = maxDumps;
+        this.startOnStartup = startOnStartup;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (startOnStartup) {
+            start();
+        }
+    }
+
+    public synchronized FlightRecordingStatus start() {
+        if (recording != null) {
+            throw new IllegalStateException(String.format("A flight recording [%s] is already running.",
+                    recording.getName()));
+        }
+        Recording started = new Recording(configuration());
+        started.setName("testing");
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSizeBytes);
+        started.start();
+        recording = started;
+        return getStatus();
+    }
+
+    public synchronized FlightRecordingStatus dump() {
+        Recording running = running();
+        Path path = dumpDirectory.resolve(DUMP_NAME.format(clock.instant()));
+        try {
+            Files.createDirectories(dumpDirectory);
+            running.dump(path);
+            lastDump = path;
+            deleteOldDumps();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not dump the flight recording to [%s].", path), e);
+        }
+        return getStatus();
+    }
+
+    // The recording is closed even when its last dump fails, so it never outlives the stop.
+    public synchronized FlightRecordingStatus stop() {
+        try {
+            dump();
+        } finally {
+            close();
+        }
+        return getStatus();
+    }
+
+    public synchronized FlightRecordingStatus getStatus() {
+        return new FlightRecordingStatus(recording != null, settings, maxAge.getSeconds(), maxSizeBytes,
+                recording != null ? recording.getSize() : 0, lastDump != null ? lastDump.toString() : null);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Recording running() {
+        if (recording == null) {
+            throw new IllegalStateException("No flight recording is running.");
+        }
+        return recording;
+    }
+
+    // Dump names sort by time, so the oldest come first.
+    private void deleteOldDumps() throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            dumps = files.filter(file -> DUMP_FILE.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path dump : dumps.subList(0, Math.max(0, dumps.size() - maxDumps))) {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private Configuration configuration() {
+        try {
+            return Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException(String.format("Could not load flight recorder settings [%s].", settings),
+                    e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.amigoscode.testing.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.amigoscode.testing.RepositoryCall")
+@Label("Repository Call")
+@Category({"Testing", "Repository"})
+@StackTrace(false)
+class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Outcome")
+    @Description("OK, or the class of the exception thrown")
+    String outcome;
+}
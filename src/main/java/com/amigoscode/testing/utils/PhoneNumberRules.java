@@ -0,0 +1,248 @@
+package com.amigoscode.testing.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable prefix trie of country calling codes. Each node that terminates a calling code holds the
+ * national number rules for it: an inclusive length range and an optional leading digits range.
+ * Everything is stored in flat int arrays so that {@link #test(String)} neither allocates nor uses regex.
+ */
+public final class PhoneNumberRules {
+
+    private static final int MAX_CALLING_CODE_LENGTH = 3;
+
+    // children[node * 10 + digit] is the child node or -1
+    private final int[] children;
+
+    // rules of a node are rules[ruleStart[node]] .. rules[ruleStart[node + 1] - 1]
+    private final int[] ruleStart;
+
+    private final int[] minLength;
+    private final int[] maxLength;
+    private final int[] prefixLength;
+    private final int[] prefixFrom;
+    private final int[] prefixTo;
+
+    private final int size;
+
+    private PhoneNumberRules(int[] children, int[] ruleStart, int[] minLength, int[] maxLength,
+                             int[] prefixLength, int[] prefixFrom, int[] prefixTo, int size) {
+        this.children = children;
+        this.ruleStart = ruleStart;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.prefixLength = prefixLength;
+        this.prefixFrom = prefixFrom;
+        this.prefixTo = prefixTo;
+        this.size = size;
+    }
+
+    public boolean test(String phoneNumber) {
+        if (phoneNumber == null) {
+            return false;
+        }
+        int length = phoneNumber.length();
+        if (length < 2 || phoneNumber.charAt(0) != '+') {
+            return false;
+        }
+
+        int node = 0;
+        for (int i = 1; i < length && i <= MAX_CALLING_CODE_LENGTH; i++) {
+            int digit = phoneNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            node = children[node * 10 + digit];
+            if (node < 0) {
+                return false;
+            }
+            if (ruleStart[node] != ruleStart[node + 1]) {
+                return matchesNationalNumber(node, phoneNumber, i + 1);
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesNationalNumber(int node, String phoneNumber, int start) {
+        int nationalLength = phoneNumber.length() - start;
+        for (int i = start; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+
+        for (int rule = ruleStart[node]; rule < ruleStart[node + 1]; rule++) {
+            if (nationalLength < minLength[rule] || nationalLength > maxLength[rule]) {
+                continue;
+            }
+            if (prefixLength[rule] == 0) {
+                return true;
+            }
+            int prefix = 0;
+            for (int i = 0; i < prefixLength[rule]; i++) {
+                prefix = prefix * 10 + (phoneNumber.charAt(start + i) - '0');
+            }
+            if (prefix >= prefixFrom[rule] && prefix <= prefixTo[rule]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Reads rules from lines of {@code calling code,region,min length,max length[,leading digit ranges]}
+     * where leading digit ranges are space separated, e.g. {@code 33,FR,9,9,1-9}. Blank lines and lines
+     * starting with {@code #} are ignored.
+     */
+    public static PhoneNumberRules load(InputStream inputStream) throws IOException {
+        Builder builder = new Builder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split(",", -1);
+                if (columns.length < 4) {
+                    throw new IllegalArgumentException(String.format("Invalid phone number rule at line [%s]: %s", lineNumber, line));
+                }
+                try {
+                    String callingCode = columns[0].trim();
+                    int min = Integer.parseInt(columns[2].trim());
+                    int max = Integer.parseInt(columns[3].trim());
+                    String ranges = columns.length > 4 ? columns[4].trim() : "";
+                    if (ranges.isEmpty()) {
+                        builder.add(callingCode, min, max, "", "");
+                    } else {
+                        for (String range : ranges.split("\\s+")) {
+                            int dash = range.indexOf('-');
+                            builder.add(callingCode, min, max,
+                                    dash < 0 ? range : range.substring(0, dash),
+                                    dash < 0 ? range : range.substring(dash + 1));
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(String.format("Invalid phone number rule at line [%s]: %s", lineNumber, line), e);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static class Builder {
+
+        private final List<int[]> nodes = new ArrayList<>();
+
+        private final List<List<int[]>> nodeRules = new ArrayList<>();
+
+        private int size;
+
+        public Builder() {
+            newNode();
+        }
+
+        public Builder add(String callingCode, int minLength, int maxLength, String prefixFrom, String prefixTo) {
+            if (callingCode.isEmpty() || callingCode.length() > MAX_CALLING_CODE_LENGTH || !isDigits(callingCode)) {
+                throw new IllegalArgumentException(String.format("Calling code [%s] must be 1 to 3 digits.", callingCode));
+            }
+            if (minLength <= 0 || maxLength < minLength) {
+                throw new IllegalArgumentException(String.format("Length range [%s-%s] is not valid.", minLength, maxLength));
+            }
+            if (prefixFrom.length() != prefixTo.length() || !isDigits(prefixFrom) || !isDigits(prefixTo)
+                    || prefixFrom.length() > minLength || prefixFrom.compareTo(prefixTo) > 0) {
+                throw new IllegalArgumentException(String.format("Leading digits range [%s-%s] is not valid.", prefixFrom, prefixTo));
+            }
+
+            int node = 0;
+            for (int i = 0; i < callingCode.length(); i++) {
+                int digit = callingCode.charAt(i) - '0';
+                if (i > 0 && !nodeRules.get(node).isEmpty()) {
+                    throw new IllegalArgumentException(String.format("Calling code [%s] is shadowed by a shorter calling code.", callingCode));
+                }
+                int child = nodes.get(node)[digit];
+                if (child < 0) {
+                    child = newNode();
+                    nodes.get(node)[digit] = child;
+                }
+                node = child;
+            }
+            if (!isLeaf(node)) {
+                throw new IllegalArgumentException(String.format("Calling code [%s] shadows a longer calling code.", callingCode));
+            }
+
+            int from = prefixFrom.isEmpty() ? 0 : Integer.parseInt(prefixFrom);
+            int to = prefixTo.isEmpty() ? 0 : Integer.parseInt(prefixTo);
+            nodeRules.get(node).add(new int[]{minLength, maxLength, prefixFrom.length(), from, to});
+            size++;
+            return this;
+        }
+
+        public PhoneNumberRules build() {
+            int nodeCount = nodes.size();
+            int[] children = new int[nodeCount * 10];
+            int[] ruleStart = new int[nodeCount + 1];
+            int[] minLength = new int[size];
+            int[] maxLength = new int[size];
+            int[] prefixLength = new int[size];
+            int[] prefixFrom = new int[size];
+            int[] prefixTo = new int[size];
+
+            int rule = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                System.arraycopy(nodes.get(node), 0, children, node * 10, 10);
+                ruleStart[node] = rule;
+                for (int[] r : nodeRules.get(node)) {
+                    minLength[rule] = r[0];
+                    maxLength[rule] = r[1];
+                    prefixLength[rule] = r[2];
+                    prefixFrom[rule] = r[3];
+                    prefixTo[rule] = r[4];
+                    rule++;
+                }
+            }
+            ruleStart[nodeCount] = rule;
+            return new PhoneNumberRules(children, ruleStart, minLength, maxLength, prefixLength, prefixFrom, prefixTo, size);
+        }
+
+        private int newNode() {
+            int[] children = new int[10];
+            Arrays.fill(children, -1);
+            nodes.add(children);
+            nodeRules.add(new ArrayList<>());
+            return nodes.size() - 1;
+        }
+
+        private boolean isLeaf(int node) {
+            for (int child : nodes.get(node)) {
+                if (child >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isDigits(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.amigoscode.testing.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the phone number rules endpoints, which swap the rules every registration is validated against: a request
+ * must carry {@code phone-number.rules.access-token} in {@code phone-number.rules.access-header}. With no token
+ * configured the endpoints are off.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PhoneNumberRulesAccessFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PREFIX = "/api/v1/phone-number-rules/";
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final String accessHeader;
+
+    private final byte[] accessToken;
+
+    @Autowired
+    public PhoneNumberRulesAccessFilter(@Value("${phone-number.rules.access-header}") String accessHeader,
+                                        @Value("${phone-number.rules.access-token}") String accessToken) {
+        this.accessHeader = accessHeader;
+        this.accessToken = accessToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = urlPathHelper.getPathWithinApplication(request) + "/";
+        if (path.startsWith(PATH_PREFIX)) {
+            if (accessToken.length == 0) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            String token = request.getHeader(accessHeader);
+            if (token == null || !MessageDigest.isEqual(accessToken, token.getBytes(StandardCharsets.UTF_8))) {
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
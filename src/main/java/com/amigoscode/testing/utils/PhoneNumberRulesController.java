@@ -0,0 +1,24 @@
+package com.amigoscode.testing.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("api/v1/phone-number-rules")
+public class PhoneNumberRulesController {
+
+    private final PhoneNumberValidator phoneNumberValidator;
+
+    @Autowired
+    public PhoneNumberRulesController(PhoneNumberValidator phoneNumberValidator) {
+        this.phoneNumberValidator = phoneNumberValidator;
+    }
+
+    @PostMapping("/reload")
+    public int reloadRules() {
+        return phoneNumberValidator.reload().size();
+    }
+
+}
@@ -1,15 +1,59 @@
 package com.amigoscode.testing.utils;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
 @Service
 public class PhoneNumberValidator implements Predicate<String> {
 
+    private final Resource rulesResource;
+
+    private final AtomicReference<PhoneNumberRules> rules;
+
+    public PhoneNumberValidator() {
+        this(new ClassPathResource("phone-number-rules.csv"));
+    }
+
+    @Autowired
+    public PhoneNumberValidator(@Value("${phone-number.rules:classpath:phone-number-rules.csv}") Resource rulesResource) {
+        this.rulesResource = rulesResource;
+        this.rules = new AtomicReference<>(load(rulesResource));
+    }
+
     @Override
     public boolean test(String phoneNumber) {
+        return rules.get().test(phoneNumber);
+    }
+
+    // Rules are immutable, so swapping the reference is enough for in-flight validations to stay consistent.
+    public PhoneNumberRules reload() {
+        PhoneNumberRules loaded = load(rulesResource);
+        rules.set(loaded);
+        return loaded;
+    }
+
+    public void replaceRules(PhoneNumberRules newRules) {
+        rules.set(Objects.requireNonNull(newRules));
+    }
+
+    public PhoneNumberRules getRules() {
+        return rules.get();
+    }
 
-        return phoneNumber.length() == 12 && phoneNumber.startsWith("+33");
+    private static PhoneNumberRules load(Resource resource) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return PhoneNumberRules.load(inputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Cannot load phone number rules from [%s]", resource), e);
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerETagCacheTest {
+
+    @Test
+    void itShouldEvictLeastRecentlyUsedPhoneNumber() {
+        // Given
+        CustomerETagCache underTest = new CustomerETagCache(2, 1);
+        underTest.put("+33600000000", "\"0\"");
+        underTest.put("+33600000001", "\"1\"");
+        underTest.get("+33600000000");
+
+        // When
+        underTest.put("+33600000002", "\"2\"");
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(2);
+        assertThat(underTest.get("+33600000000")).isEqualTo("\"0\"");
+        assertThat(underTest.get("+33600000001")).isNull();
+        assertThat(underTest.get("+33600000002")).isEqualTo("\"2\"");
+    }
+
+    @Test
+    void itShouldNotGrowBeyondMaxSizeAcrossSegments() {
+        // Given
+        CustomerETagCache underTest = new CustomerETagCache(100);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            underTest.put("+336" + i, "\"" + i + "\"");
+        }
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(100);
+        assertThat(underTest.get("+336999")).isEqualTo("\"999\"");
+    }
+
+    @Test
+    void itShouldRejectNonPositiveMaxSize() {
+        // Given
+        // When
+        // Then
+        assertThatThrownBy(() -> new CustomerETagCache(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid ETag cache [maxSize=0, maxSegments=16]");
+    }
+}
@@ -0,0 +1,92 @@
+package com.amigoscode.testing.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+class CustomerExportServiceTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void itShouldExportAllCustomersAcrossKeysetPagesAsNdjson() throws IOException {
+        // Given
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            customers.add(new Customer(UUID.randomUUID(), "Customer " + i, "+3360000000" + i));
+        }
+        customerRepository.saveAll(customers);
+        customerRepository.flush();
+
+        CustomerExportService underTest = new CustomerExportService(jdbcTemplate, objectMapper, 2);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exported = underTest.exportCustomers(outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        List<Customer> exportedCustomers = Arrays.stream(lines)
+                .map(this::readCustomer)
+                .collect(Collectors.toList());
+
+        assertThat(exported).isEqualTo(5);
+        assertThat(exportedCustomers)
+                .usingElementComparatorOnFields("id", "name", "phoneNumber")
+                .containsExactlyInAnyOrderElementsOf(customers);
+        assertThat(exportedCustomers).extracting(Customer::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void itShouldExportNothingWhenThereAreNoCustomers() throws IOException {
+        // Given
+        CustomerExportService underTest = new CustomerExportService(jdbcTemplate, objectMapper, 2);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long exported = underTest.exportCustomers(outputStream);
+
+        // Then
+        assertThat(exported).isZero();
+        assertThat(outputStream.size()).isZero();
+    }
+
+    @Test
+    void itShouldRejectPageSizeBelowOne() {
+        // Given
+        // When
+        // Then
+        assertThatThrownBy(() -> new CustomerExportService(jdbcTemplate, objectMapper, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid customer export page size [0]");
+    }
+
+    private Customer readCustomer(String line) {
+        try {
+            return objectMapper.readValue(line, Customer.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+class CustomerLookupServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private CustomerETagCache eTagCache;
+
+    private CustomerLookupService underTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        eTagCache = new CustomerETagCache(1);
+        underTest = new CustomerLookupService(customerRepository, eTagCache);
+    }
+
+    @Test
+    void itShouldCacheETagOfFoundCustomer() {
+        // Given
+        CustomerDto customer = new CustomerDto(UUID.randomUUID(), "Juan", "+33600000000", 3);
+        given(customerRepository.selectCustomerDtoByPhoneNumber("+33600000000")).willReturn(Optional.of(customer));
+
+        // When
+        Optional<CustomerDto> found = underTest.findCustomerByPhoneNumber("+33600000000");
+
+        // Then
+        assertThat(found).hasValue(customer);
+        assertThat(underTest.getCachedETag("+33600000000")).hasValue("\"" + customer.getId() + "-3\"");
+    }
+
+    @Test
+    void itShouldEvictETagWhenCustomerIsGone() {
+        // Given
+        eTagCache.put("+33600000000", "\"stale\"");
+        given(customerRepository.selectCustomerDtoByPhoneNumber("+33600000000")).willReturn(Optional.empty());
+
+        // When
+        Optional<CustomerDto> found = underTest.findCustomerByPhoneNumber("+33600000000");
+
+        // Then
+        assertThat(found).isEmpty();
+        assertThat(underTest.getCachedETag("+33600000000")).isEmpty();
+    }
+
+    @Test
+    void itShouldEvictOldestETagWhenCacheIsFull() {
+        // Given
+        given(customerRepository.selectCustomerDtoByPhoneNumber("+33600000000"))
+                .willReturn(Optional.of(new CustomerDto(UUID.randomUUID(), "Juan", "+33600000000", 0)));
+        given(customerRepository.selectCustomerDtoByPhoneNumber("+33600000001"))
+                .willReturn(Optional.of(new CustomerDto(UUID.randomUUID(), "Maria", "+33600000001", 0)));
+
+        // When
+        underTest.findCustomerByPhoneNumber("+33600000000");
+        underTest.findCustomerByPhoneNumber("+33600000001");
+
+        // Then
+        assertThat(eTagCache.size()).isEqualTo(1);
+        assertThat(underTest.getCachedETag("+33600000000")).isEmpty();
+        assertThat(underTest.getCachedETag("+33600000001")).isPresent();
+    }
+}
@@ -7,16 +7,23 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 
 class CustomerRegistrationServiceTest {
 
@@ -26,15 +33,28 @@ class CustomerRegistrationServiceTest {
     @Mock
     private PhoneNumberValidator phoneNumberValidator;
 
+    @Mock
+    private PhoneNumberIndex phoneNumberIndex;
+
     @Captor
     private ArgumentCaptor<Customer> customerArgumentCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<Customer>> customersArgumentCaptor;
+
+    private PhoneNumberBloomFilter phoneNumberFilter;
+
+    private CustomerRegistrationMetrics metrics;
+
     private CustomerRegistrationService underTest;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
-        underTest = new CustomerRegistrationService(customerRepository, phoneNumberValidator);
+        phoneNumberFilter = new PhoneNumberBloomFilter(1000, 0.01);
+        metrics = new CustomerRegistrationMetrics(60_000, 60);
+        underTest = new CustomerRegistrationService(customerRepository, phoneNumberValidator, phoneNumberFilter, phoneNumberIndex,
+                new TimeOrderedCustomerIdGenerator(), new CustomerETagCache(100), metrics);
     }
 
     @Test
@@ -54,9 +74,12 @@ class CustomerRegistrationServiceTest {
         underTest.registerNewCustomer(request);
 
         // Then
-        then(customerRepository).should().save(customerArgumentCaptor.capture());
+        then(customerRepository).should().insert(customerArgumentCaptor.capture());
         Customer customerArgumentCaptorValue = customerArgumentCaptor.getValue();
         assertThat(customerArgumentCaptorValue).isEqualTo(customer);
+        for (CustomerRegistrationMetrics.Phase phase : CustomerRegistrationMetrics.Phase.values()) {
+            assertThat(metrics.getLatency(phase).getCount()).isEqualTo(1);
+        }
     }
 
     @Test
@@ -76,6 +99,9 @@ class CustomerRegistrationServiceTest {
 
         // Then
         then(customerRepository).shouldHaveNoInteractions();
+        assertThat(metrics.getRejections(CustomerRegistrationMetrics.Rejection.INVALID_PHONE_NUMBER)).isEqualTo(1);
+        assertThat(metrics.getLatency(CustomerRegistrationMetrics.Phase.VALIDATION).getCount()).isZero();
+        assertThat(metrics.getLatency(CustomerRegistrationMetrics.Phase.TOTAL).getCount()).isEqualTo(1);
     }
 
     @Test
@@ -96,7 +122,7 @@ class CustomerRegistrationServiceTest {
 
         // Then
         // Option 1: when we know the exactly methods that will be called
-        then(customerRepository).should(never()).save(any());
+        then(customerRepository).should(never()).insert(any());
 
         // Option 2: if we don't know the exactly methods that will not be called
         // then(customerRepository).should().selectCustomerByPhoneNumber(phoneNumber);
@@ -122,7 +148,8 @@ class CustomerRegistrationServiceTest {
         assertThatThrownBy(() -> underTest.registerNewCustomer(request))
                 .hasMessage("The phone number [000033] belongs to another customer.")
                 .isInstanceOf(IllegalArgumentException.class);
-        then(customerRepository).should(never()).save(any());
+        then(customerRepository).should(never()).insert(any());
+        assertThat(metrics.getRejections(CustomerRegistrationMetrics.Rejection.PHONE_NUMBER_TAKEN)).isEqualTo(1);
     }
 
     @Test
@@ -142,10 +169,287 @@ class CustomerRegistrationServiceTest {
         underTest.registerNewCustomer(request);
 
         // Then
-        then(customerRepository).should().save(customerArgumentCaptor.capture());
+        then(customerRepository).should().insert(customerArgumentCaptor.capture());
         Customer customerArgumentCaptorValue = customerArgumentCaptor.getValue();
         assertThat(customerArgumentCaptorValue).isEqualToIgnoringGivenFields(customer, "id");
         assertThat(customerArgumentCaptorValue.getId()).isNotNull();
     }
 
+    @Test
+    void itShouldResolveExistingCustomerFromIndex() {
+        // Given
+        String phoneNumber = "+33600000001";
+        UUID id = UUID.randomUUID();
+        Customer customer = new Customer(id, "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+
+        // ... number is already indexed for the same customer
+        given(phoneNumberIndex.findCustomerId(phoneNumber)).willReturn(Optional.of(UUID.fromString(id.toString())));
+
+        // When
+        underTest.registerNewCustomer(request);
+
+        // Then
+        then(customerRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void itShouldThrowWhenIndexedPhoneNumberBelongsToAnotherCustomer() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        given(phoneNumberIndex.findCustomerId(phoneNumber)).willReturn(Optional.of(UUID.randomUUID()));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerNewCustomer(request))
+                .hasMessage("The phone number [+33600000001] belongs to another customer.")
+                .isInstanceOf(IllegalArgumentException.class);
+        then(customerRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void itShouldIndexSavedCustomer() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        given(customerRepository.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.empty());
+
+        // When
+        underTest.registerNewCustomer(request);
+
+        // Then
+        then(customerRepository).should().insert(customer);
+        then(phoneNumberIndex).should().put(phoneNumber, customer.getId());
+    }
+
+    @Test
+    void itShouldSkipLookupWhenPhoneNumberIsDefinitelyNotRegistered() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        // ... validate phone number
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+
+        // ... filter is loaded and has never seen the number
+        phoneNumberFilter.markReady();
+
+        // When
+        underTest.registerNewCustomer(request);
+
+        // Then
+        then(customerRepository).should(never()).selectCustomerByPhoneNumber(any());
+        then(customerRepository).should().insert(customer);
+        assertThat(phoneNumberFilter.mightContain(phoneNumber)).isTrue();
+    }
+
+    @Test
+    void itShouldThrowWhenUniqueConstraintRejectsNumberMissedByFilter() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        phoneNumberFilter.markReady();
+
+        // ... the number was registered by another node
+        doThrow(new DataIntegrityViolationException("unique")).when(customerRepository).insert(customer);
+        given(customerRepository.selectCustomerByPhoneNumber(phoneNumber))
+                .willReturn(Optional.of(new Customer(UUID.randomUUID(), "Alberto", phoneNumber)));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerNewCustomer(request))
+                .hasMessage("The phone number [+33600000001] belongs to another customer.")
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(phoneNumberFilter.mightContain(phoneNumber)).isTrue();
+    }
+
+    @Test
+    void itShouldThrowWhenCustomerIdIsTakenByAnotherPhoneNumber() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        given(customerRepository.selectCustomerByPhoneNumber(phoneNumber)).willReturn(Optional.empty());
+        doThrow(new DataIntegrityViolationException("primary key")).when(customerRepository).insert(customer);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerNewCustomer(request))
+                .hasMessage(String.format("Customer [%s] is already registered with another phone number.", customer.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        then(phoneNumberIndex).should(never()).put(any(), any());
+    }
+
+    @Test
+    void itShouldRegisterNewCustomerWithSingleUpsert() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(null, "Juan", phoneNumber);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(customer);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        given(customerRepository.insertOrSelectCustomerIdByPhoneNumber(any(), any(), any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        underTest.registerNewCustomerIdempotently(request);
+
+        // Then
+        assertThat(customer.getId()).isNotNull();
+        then(customerRepository).should().insertOrSelectCustomerIdByPhoneNumber(customer.getId(), "Juan", phoneNumber);
+        then(customerRepository).shouldHaveNoMoreInteractions();
+        then(phoneNumberIndex).should().put(phoneNumber, customer.getId());
+    }
+
+    @Test
+    void itShouldReturnSilentlyWhenUpsertFindsSameCustomer() {
+        // Given
+        String phoneNumber = "+33600000001";
+        UUID id = UUID.randomUUID();
+        Customer customer = new Customer(id, "Juan", phoneNumber);
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        given(customerRepository.insertOrSelectCustomerIdByPhoneNumber(id, "Juan", phoneNumber))
+                .willReturn(UUID.fromString(id.toString()));
+
+        // When
+        underTest.registerNewCustomerIdempotently(new CustomerRegistrationRequest(customer));
+
+        // Then
+        then(customerRepository).should(never()).insert(any());
+    }
+
+    @Test
+    void itShouldThrowWhenUpsertFindsAnotherCustomer() {
+        // Given
+        String phoneNumber = "+33600000001";
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", phoneNumber);
+        UUID ownerId = UUID.randomUUID();
+
+        given(phoneNumberValidator.test(phoneNumber)).willReturn(true);
+        given(customerRepository.insertOrSelectCustomerIdByPhoneNumber(any(), any(), any())).willReturn(ownerId);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerNewCustomerIdempotently(new CustomerRegistrationRequest(customer)))
+                .hasMessage("The phone number [+33600000001] belongs to another customer.")
+                .isInstanceOf(IllegalArgumentException.class);
+        then(phoneNumberIndex).should().put(phoneNumber, ownerId);
+    }
+
+    @Test
+    void itShouldNotUpsertWhenPhoneNumberIsInvalid() {
+        // Given
+        Customer customer = new Customer(UUID.randomUUID(), "Juan", "0000");
+        given(phoneNumberValidator.test("0000")).willReturn(false);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.registerNewCustomerIdempotently(new CustomerRegistrationRequest(customer)))
+                .hasMessage("Phone number [0000] is not valid.")
+                .isInstanceOf(IllegalStateException.class);
+        then(customerRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void itShouldBulkInsertNewCustomersAndReportErrorsPerRow() {
+        // Given
+        UUID takenId = UUID.randomUUID();
+        Customer valid = new Customer(null, "Juan", "+33600000001");
+        Customer invalidPhone = new Customer(null, "Maria", "0000");
+        Customer duplicated = new Customer(null, "Pedro", "+33600000001");
+        Customer taken = new Customer(UUID.randomUUID(), "Alberto", "+33600000002");
+        Customer alreadyRegistered = new Customer(takenId, "Ana", "+33600000003");
+
+        // ... validate phone numbers
+        given(phoneNumberValidator.test(any())).willAnswer(invocation -> invocation.<String>getArgument(0).startsWith("+33"));
+
+        // ... one set-based lookup for the chunk
+        given(customerRepository.selectCustomersByPhoneNumbers(anyCollection())).willReturn(List.of(
+                new Customer(UUID.randomUUID(), "Other", "+33600000002"),
+                new Customer(takenId, "Ana", "+33600000003")));
+
+        // When
+        BulkRegistrationResult result = underTest.registerNewCustomers(
+                List.of(valid, invalidPhone, duplicated, taken, alreadyRegistered).iterator());
+
+        // Then
+        then(customerRepository).should().insertAll(customersArgumentCaptor.capture());
+        then(customerRepository).should(never()).insert(any());
+        assertThat(customersArgumentCaptor.getValue()).containsExactly(valid);
+        assertThat(valid.getId()).isNotNull();
+
+        assertThat(result.getRegistered()).isEqualTo(1);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getErrors())
+                .extracting(BulkRegistrationError::getRow, BulkRegistrationError::getMessage)
+                .containsExactly(
+                        tuple(1L, "Phone number [0000] is not valid."),
+                        tuple(2L, "The phone number [+33600000001] is duplicated in the request."),
+                        tuple(3L, "The phone number [+33600000002] belongs to another customer."));
+    }
+
+    @Test
+    void itShouldQueryOncePerChunkWhenBulkRegistering() {
+        // Given
+        int rows = CustomerRegistrationService.BULK_CHUNK_SIZE + 1;
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            customers.add(new Customer(null, "Juan", String.format("+33%09d", i)));
+        }
+
+        given(phoneNumberValidator.test(any())).willReturn(true);
+        given(customerRepository.selectCustomersByPhoneNumbers(anyCollection())).willReturn(List.of());
+
+        // When
+        BulkRegistrationResult result = underTest.registerNewCustomers(customers.iterator());
+
+        // Then
+        then(customerRepository).should(times(2)).selectCustomersByPhoneNumbers(anyCollection());
+        then(customerRepository).should(times(2)).insertAll(any());
+        assertThat(result.getRegistered()).isEqualTo(rows);
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    void itShouldFallBackToRowByRowWhenBulkInsertHitsUniqueConstraint() {
+        // Given
+        Customer first = new Customer(null, "Juan", "+33600000001");
+        Customer second = new Customer(null, "Maria", "+33600000002");
+
+        given(phoneNumberValidator.test(any())).willReturn(true);
+        given(customerRepository.selectCustomersByPhoneNumbers(anyCollection())).willReturn(List.of());
+
+        // ... a concurrent registration took the second phone number
+        doThrow(new DataIntegrityViolationException("unique")).when(customerRepository).insertAll(any());
+        given(customerRepository.selectCustomerByPhoneNumber("+33600000001")).willReturn(Optional.empty());
+        given(customerRepository.selectCustomerByPhoneNumber("+33600000002"))
+                .willReturn(Optional.of(new Customer(UUID.randomUUID(), "Other", "+33600000002")));
+
+        // When
+        BulkRegistrationResult result = underTest.registerNewCustomers(List.of(first, second).iterator());
+
+        // Then
+        then(customerRepository).should().insert(first);
+        assertThat(result.getRegistered()).isEqualTo(1);
+        assertThat(result.getErrors())
+                .extracting(BulkRegistrationError::getRow, BulkRegistrationError::getMessage)
+                .containsExactly(tuple(1L, "The phone number [+33600000002] belongs to another customer."));
+    }
+
 }
\ No newline at end of file
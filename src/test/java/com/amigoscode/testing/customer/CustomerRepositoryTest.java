@@ -3,8 +3,10 @@ package com.amigoscode.testing.customer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,6 +19,9 @@ class CustomerRepositoryTest {
     @Autowired
     private CustomerRepository underTest;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void itShouldSelectCustomerByPhoneNumber() {
         // Given
@@ -96,5 +101,124 @@ class CustomerRepositoryTest {
                 .isInstanceOf(DataIntegrityViolationException.class);
     }
 
+    @Test
+    void itShouldSelectCustomersByPhoneNumbers() {
+        // Given
+        Customer felipe = new Customer(UUID.randomUUID(), "Felipe", "1111");
+        Customer juan = new Customer(UUID.randomUUID(), "Juan", "2222");
+        underTest.save(felipe);
+        underTest.save(juan);
+
+        // When
+        List<Customer> customers = underTest.selectCustomersByPhoneNumbers(List.of("1111", "2222", "3333"));
+
+        // Then
+        assertThat(customers)
+                .extracting(Customer::getId)
+                .containsExactlyInAnyOrder(felipe.getId(), juan.getId());
+    }
+
+    @Test
+    void itShouldInsertAllCustomers() {
+        // Given
+        Customer felipe = new Customer(UUID.randomUUID(), "Felipe", "1111");
+        Customer juan = new Customer(UUID.randomUUID(), "Juan", "2222");
+
+        // When
+        underTest.insertAll(List.of(felipe, juan));
+
+        // Then
+        assertThat(underTest.findAllById(List.of(felipe.getId(), juan.getId())))
+                .extracting(Customer::getPhoneNumber)
+                .containsExactlyInAnyOrder("1111", "2222");
+    }
+
+    @Test
+    void itShouldInsertCustomerWhenPhoneNumberIsFree() {
+        // Given
+        UUID id = UUID.randomUUID();
+
+        // When
+        UUID ownerId = underTest.insertOrSelectCustomerIdByPhoneNumber(id, "Juan", "1111");
+
+        // Then
+        assertThat(ownerId).isEqualTo(id);
+        assertThat(underTest.selectCustomerByPhoneNumber("1111"))
+                .hasValueSatisfying(c -> {
+                    assertThat(c.getId()).isEqualTo(id);
+                    assertThat(c.getName()).isEqualTo("Juan");
+                });
+    }
 
-}
\ No newline at end of file
+    @Test
+    void itShouldReturnExistingOwnerWhenPhoneNumberIsTaken() {
+        // Given
+        Customer existing = new Customer(UUID.randomUUID(), "Felipe", "1111");
+        underTest.saveAndFlush(existing);
+
+        // When
+        UUID ownerId = underTest.insertOrSelectCustomerIdByPhoneNumber(UUID.randomUUID(), "Juan", "1111");
+
+        // Then
+        assertThat(ownerId).isEqualTo(existing.getId());
+        assertThat(underTest.count()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldLeaveExistingOwnerUntouchedWhenPhoneNumberIsTaken() {
+        // Given
+        Customer existing = underTest.saveAndFlush(new Customer(UUID.randomUUID(), "Felipe", "1111"));
+        Long version = underTest.selectCustomerByPhoneNumber("1111").map(Customer::getVersion).orElseThrow();
+
+        // When
+        underTest.insertOrSelectCustomerIdByPhoneNumber(UUID.randomUUID(), "Juan", "1111");
+        entityManager.clear();
+
+        // Then
+        assertThat(underTest.selectCustomerByPhoneNumber("1111"))
+                .hasValueSatisfying(c -> {
+                    assertThat(c.getId()).isEqualTo(existing.getId());
+                    assertThat(c.getName()).isEqualTo("Felipe");
+                    assertThat(c.getVersion()).isEqualTo(version);
+                });
+    }
+
+    @Test
+    void itShouldChangeFingerprintWhenCustomerIsReplacedKeepingCount() {
+        // Given
+        Customer deleted = new Customer(UUID.randomUUID(), "Felipe", "1111");
+        underTest.saveAndFlush(deleted);
+        underTest.saveAndFlush(new Customer(UUID.randomUUID(), "Juan", "2222"));
+        CustomerTableFingerprint before = underTest.fingerprintCustomerPhoneNumbers();
+
+        // When
+        underTest.delete(deleted);
+        underTest.flush();
+        underTest.saveAndFlush(new Customer(UUID.randomUUID(), "Felipe", "1111"));
+        CustomerTableFingerprint after = underTest.fingerprintCustomerPhoneNumbers();
+
+        // Then
+        assertThat(after.getCount().longValue()).isEqualTo(before.getCount().longValue()).isEqualTo(2);
+        assertThat(after.getChecksum()).isNotEqualTo(before.getChecksum());
+        assertThat(underTest.fingerprintCustomerPhoneNumbers().getChecksum()).isEqualTo(after.getChecksum());
+    }
+
+    @Test
+    void itShouldSelectCustomerDtoWithVersionByPhoneNumber() {
+        // Given
+        Customer customer = new Customer(UUID.randomUUID(), "Felipe", "1111");
+        underTest.saveAndFlush(customer);
+
+        // When
+        Optional<CustomerDto> customerDto = underTest.selectCustomerDtoByPhoneNumber("1111");
+
+        // Then
+        assertThat(customerDto).hasValueSatisfying(c -> {
+            assertThat(c.getId()).isEqualTo(customer.getId());
+            assertThat(c.getName()).isEqualTo("Felipe");
+            assertThat(c.getPhoneNumber()).isEqualTo("1111");
+            assertThat(c.getVersion()).isZero();
+            assertThat(c.getETag()).isEqualTo("\"" + customer.getId() + "-0\"");
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.amigoscode.testing.customer;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not transactional, so that every repository call commits and reaches the second-level cache.
+@DataJpaTest( properties = {"spring.jpa.properties.javax.persistence.validation.mode=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerSecondLevelCacheTest {
+
+    @Autowired
+    private CustomerRepository underTest;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.deleteAll();
+    }
+
+    @Test
+    void itShouldServeFindByIdFromSecondLevelCache() {
+        // Given
+        UUID id = UUID.randomUUID();
+        underTest.save(new Customer(id, "Juan", "+33600000000"));
+
+        // When
+        boolean first = underTest.findById(id).isPresent();
+        boolean second = underTest.findById(id).isPresent();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        CustomerCacheStats.RegionStats stats = CustomerCacheStats.of(statistics).getCustomers();
+        assertThat(stats.getHitCount()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldServeRepeatedPhoneNumberLookupsFromNaturalIdCache() {
+        // Given
+        UUID id = UUID.randomUUID();
+        underTest.save(new Customer(id, "Juan", "+33600000000"));
+
+        // When
+        underTest.selectCustomerDtoByPhoneNumber("+33600000000");
+        Optional<CustomerDto> customer = underTest.selectCustomerDtoByPhoneNumber("+33600000000");
+
+        // Then
+        assertThat(customer).hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(id));
+        CustomerCacheStats.RegionStats stats = CustomerCacheStats.of(statistics).getCustomersByPhoneNumber();
+        assertThat(stats.getHitCount()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldInvalidateCachedLookupWhenCustomerIsSaved() {
+        // Given
+        assertThat(underTest.selectCustomerDtoByPhoneNumber("+33600000000")).isEmpty();
+
+        // When
+        UUID id = UUID.randomUUID();
+        underTest.save(new Customer(id, "Juan", "+33600000000"));
+
+        // Then
+        assertThat(underTest.selectCustomerDtoByPhoneNumber("+33600000000"))
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(id));
+    }
+
+    @Test
+    void itShouldLookUpCustomerByNewPhoneNumberOnceChanged() {
+        // Given
+        Customer customer = underTest.save(new Customer(UUID.randomUUID(), "Juan", "+33600000000"));
+        underTest.selectCustomerDtoByPhoneNumber("+33600000000");
+
+        // When
+        customer.setPhoneNumber("+33600000001");
+        underTest.save(customer);
+
+        // Then
+        assertThat(underTest.selectCustomerDtoByPhoneNumber("+33600000000")).isEmpty();
+        assertThat(underTest.selectCustomerDtoByPhoneNumber("+33600000001"))
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(customer.getId()));
+    }
+
+    @Test
+    void itShouldSeeUpsertedCustomerAfterLookingItUp() {
+        // Given
+        assertThat(underTest.selectCustomerDtoByPhoneNumber("+33600000000")).isEmpty();
+        UUID id = UUID.randomUUID();
+
+        // When
+        underTest.insertOrSelectCustomerIdByPhoneNumber(id, "Juan", "+33600000000");
+
+        // Then
+        assertThat(underTest.selectCustomerDtoByPhoneNumber("+33600000000"))
+                .hasValueSatisfying(c -> assertThat(c.getId()).isEqualTo(id));
+    }
+
+    @Test
+    void itShouldKeepOtherPhoneNumbersCachedWhenCustomerIsUpserted() {
+        // Given
+        underTest.save(new Customer(UUID.randomUUID(), "Juan", "+33600000000"));
+        underTest.selectCustomerDtoByPhoneNumber("+33600000000");
+        underTest.insertOrSelectCustomerIdByPhoneNumber(UUID.randomUUID(), "Ana", "+33600000001");
+        statistics.clear();
+
+        // When
+        Optional<CustomerDto> customer = underTest.selectCustomerDtoByPhoneNumber("+33600000000");
+
+        // Then
+        assertThat(customer).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
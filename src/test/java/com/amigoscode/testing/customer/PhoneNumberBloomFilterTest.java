@@ -0,0 +1,77 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhoneNumberBloomFilterTest {
+
+    private PhoneNumberBloomFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new PhoneNumberBloomFilter(10_000, 0.01);
+    }
+
+    @Test
+    void itShouldReportEveryNumberAsPossiblyPresentUntilReady() {
+        // When
+        boolean mightContain = underTest.mightContain("+33600000000");
+
+        // Then
+        assertThat(underTest.isReady()).isFalse();
+        assertThat(mightContain).isTrue();
+    }
+
+    @Test
+    void itShouldNeverReturnFalseNegatives() {
+        // Given
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put(String.format("+33%09d", i));
+        }
+        underTest.markReady();
+
+        // When
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(underTest.mightContain(String.format("+33%09d", i))).isTrue();
+        }
+    }
+
+    @Test
+    void itShouldKeepFalsePositiveRateCloseToConfiguredProbability() {
+        // Given
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put(String.format("+33%09d", i));
+        }
+        underTest.markReady();
+
+        // When
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (underTest.mightContain(String.format("+33%09d", i))) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(underTest.getFalsePositiveProbability()).isBetween(0.005, 0.015);
+        assertThat(underTest.getFillRatio()).isBetween(0.4, 0.6);
+        assertThat(underTest.getInsertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void itShouldRejectInvalidSizing() {
+        // When
+        // Then
+        assertThatThrownBy(() -> new PhoneNumberBloomFilter(0, 0.01))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected insertions [0] must be positive.");
+        assertThatThrownBy(() -> new PhoneNumberBloomFilter(10, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("False positive probability [1.0] must be between 0 and 1.");
+    }
+}
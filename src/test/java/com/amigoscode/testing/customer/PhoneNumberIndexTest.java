@@ -0,0 +1,236 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhoneNumberIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private String file;
+
+    private PhoneNumberIndex underTest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("index.bin").toString();
+        underTest = new PhoneNumberIndex(file, 16);
+        underTest.markVerified();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        underTest.close();
+    }
+
+    @Test
+    void itShouldFindIndexedCustomerId() {
+        // Given
+        UUID id = UUID.randomUUID();
+
+        // When
+        boolean indexed = underTest.put("+33600000000", id);
+
+        // Then
+        assertThat(indexed).isTrue();
+        assertThat(underTest.findCustomerId("+33600000000")).hasValue(id);
+        assertThat(underTest.findCustomerId("+33600000001")).isEmpty();
+        assertThat(underTest.containsCustomerId(id)).isTrue();
+        assertThat(underTest.containsCustomerId(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void itShouldReplaceCustomerIdForSamePhoneNumber() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        underTest.put("+33600000000", first);
+
+        // When
+        underTest.put("+33600000000", second);
+
+        // Then
+        assertThat(underTest.findCustomerId("+33600000000")).hasValue(second);
+        assertThat(underTest.size()).isEqualTo(1);
+        assertThat(underTest.containsCustomerId(first)).isFalse();
+        assertThat(underTest.containsCustomerId(second)).isTrue();
+    }
+
+    @Test
+    void itShouldKeepOtherCustomerIdsWhenRemappedIdsAreRemoved() {
+        // Given
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(UUID.randomUUID());
+            underTest.put(String.format("+3360000%04d", i), ids.get(i));
+        }
+
+        // When
+        // ... every other number moves to a new customer, leaving holes in the probe runs
+        List<UUID> remapped = new ArrayList<>();
+        for (int i = 0; i < 12; i += 2) {
+            remapped.add(UUID.randomUUID());
+            underTest.put(String.format("+3360000%04d", i), remapped.get(remapped.size() - 1));
+        }
+
+        // Then
+        for (int i = 0; i < 12; i++) {
+            assertThat(underTest.containsCustomerId(ids.get(i))).isEqualTo(i % 2 == 1);
+        }
+        assertThat(remapped).allMatch(underTest::containsCustomerId);
+    }
+
+    @Test
+    void itShouldKeepFingerprintUntilChanged() throws IOException {
+        // Given
+        underTest.put("+33600000000", UUID.randomUUID());
+        underTest.setFingerprint(42);
+        underTest.close();
+        underTest = new PhoneNumberIndex(file, 16);
+        assertThat(underTest.hasFingerprint(42)).isTrue();
+        assertThat(underTest.hasFingerprint(43)).isFalse();
+
+        // When
+        underTest.put("+33600000001", UUID.randomUUID());
+
+        // Then
+        assertThat(underTest.hasFingerprint(42)).isFalse();
+    }
+
+    @Test
+    void itShouldStartWarmAfterCleanClose() throws IOException {
+        // Given
+        UUID id = UUID.randomUUID();
+        underTest.put("+33600000000", id);
+        underTest.close();
+
+        // When
+        underTest = new PhoneNumberIndex(file, 16);
+
+        // Then
+        assertThat(underTest.isWarm()).isTrue();
+        assertThat(underTest.size()).isEqualTo(1);
+        underTest.markVerified();
+        assertThat(underTest.findCustomerId("+33600000000")).hasValue(id);
+        assertThat(underTest.containsCustomerId(id)).isTrue();
+    }
+
+    @Test
+    void itShouldMissUntilVerified() throws IOException {
+        // Given
+        UUID id = UUID.randomUUID();
+        underTest.put("+33600000000", id);
+        underTest.close();
+
+        // When
+        underTest = new PhoneNumberIndex(file, 16);
+
+        // Then
+        assertThat(underTest.isVerified()).isFalse();
+        assertThat(underTest.findCustomerId("+33600000000")).isEmpty();
+        assertThat(underTest.containsCustomerId(id)).isFalse();
+    }
+
+    @Test
+    void itShouldStartColdWhenPreviousInstanceWasNotClosed() throws IOException {
+        // Given
+        underTest.put("+33600000000", UUID.randomUUID());
+
+        // When
+        PhoneNumberIndex reopened = new PhoneNumberIndex(file, 16);
+
+        // Then
+        assertThat(reopened.isWarm()).isFalse();
+        reopened.markVerified();
+        assertThat(reopened.findCustomerId("+33600000000")).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void itShouldStartColdWhenCapacityChanges() throws IOException {
+        // Given
+        underTest.put("+33600000000", UUID.randomUUID());
+        underTest.close();
+
+        // When
+        underTest = new PhoneNumberIndex(file, 32);
+
+        // Then
+        assertThat(underTest.isWarm()).isFalse();
+        assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void itShouldRejectEntriesOnceLoadFactorIsReached() {
+        // Given
+        for (int i = 0; i < 12; i++) {
+            assertThat(underTest.put(String.format("+3360000%04d", i), UUID.randomUUID())).isTrue();
+        }
+
+        // When
+        boolean indexed = underTest.put("+33699999999", UUID.randomUUID());
+
+        // Then
+        assertThat(indexed).isFalse();
+        assertThat(underTest.findCustomerId("+33699999999")).isEmpty();
+    }
+
+    @Test
+    void itShouldClearAllEntries() {
+        // Given
+        UUID id = UUID.randomUUID();
+        underTest.put("+33600000000", id);
+
+        // When
+        underTest.clear();
+
+        // Then
+        assertThat(underTest.size()).isZero();
+        assertThat(underTest.findCustomerId("+33600000000")).isEmpty();
+        assertThat(underTest.containsCustomerId(id)).isFalse();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "+33600000000, +33600000000",
+            "0033600000000, 0033600000000",
+            "+33 6 00 00 00 00, ",
+            "(0033) 600-000.000, ",
+            "+33+600, ",
+            "+33abc, ",
+            "+123456789012345678901234, "
+    })
+    void itShouldKeyOnlyPlainPhoneNumbers(String phoneNumber, String expected) {
+        // When
+        String key = PhoneNumberIndex.key(phoneNumber);
+
+        // Then
+        assertThat(key).isEqualTo(expected);
+    }
+
+    @Test
+    void itShouldNotMatchPhoneNumberWrittenWithSeparators() {
+        // Given
+        underTest.put("+447700900000", UUID.randomUUID());
+
+        // When
+        Optional<UUID> customerId = underTest.findCustomerId("+44 7700 900000");
+
+        // Then
+        assertThat(customerId).isEmpty();
+    }
+}
@@ -0,0 +1,92 @@
+package com.amigoscode.testing.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedCustomerIdGeneratorTest {
+
+    @Test
+    void itShouldGenerateVersion7Ids() {
+        // Given
+        Instant now = Instant.parse("2026-10-18T10:15:30.123Z");
+        TimeOrderedCustomerIdGenerator underTest =
+                new TimeOrderedCustomerIdGenerator(Clock.fixed(now, ZoneOffset.UTC), new Random(42));
+
+        // When
+        UUID id = underTest.generate();
+
+        // Then
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(now.toEpochMilli());
+    }
+
+    @Test
+    void itShouldGenerateStrictlyIncreasingIdsWithinTheSameMillisecond() {
+        // Given
+        TimeOrderedCustomerIdGenerator underTest = new TimeOrderedCustomerIdGenerator(
+                Clock.fixed(Instant.parse("2026-10-18T10:15:30Z"), ZoneOffset.UTC), new Random(42));
+
+        // When
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(underTest.generate());
+        }
+
+        // Then
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(Long.compareUnsigned(ids.get(i).getMostSignificantBits(), ids.get(i - 1).getMostSignificantBits()))
+                    .isPositive();
+        }
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void itShouldStayMonotonicWhenClockGoesBackwards() {
+        // Given
+        MutableClock clock = new MutableClock(Instant.parse("2026-10-18T10:15:30Z"));
+        TimeOrderedCustomerIdGenerator underTest = new TimeOrderedCustomerIdGenerator(clock, new Random(42));
+        UUID first = underTest.generate();
+
+        // When
+        clock.instant = Instant.parse("2026-10-18T10:15:29Z");
+        UUID second = underTest.generate();
+
+        // Then
+        assertThat(second.getMostSignificantBits()).isGreaterThan(first.getMostSignificantBits());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
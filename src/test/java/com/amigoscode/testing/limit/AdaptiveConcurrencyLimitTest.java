@@ -0,0 +1,124 @@
+package com.amigoscode.testing.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void itShouldRejectRequestsOverLimit() {
+        // Given
+        AdaptiveConcurrencyLimit underTest = limit(2, 1, 10);
+
+        // When
+        boolean first = underTest.tryAcquire();
+        boolean second = underTest.tryAcquire();
+        boolean third = underTest.tryAcquire();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(underTest.getStats().getRejectedRequests()).isEqualTo(1);
+        assertThat(underTest.getStats().getAcceptedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldAcceptAgainOnceReleased() {
+        // Given
+        AdaptiveConcurrencyLimit underTest = limit(1, 1, 10);
+        underTest.tryAcquire();
+
+        // When
+        underTest.release(FAST);
+
+        // Then
+        assertThat(underTest.tryAcquire()).isTrue();
+        assertThat(underTest.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRaiseLimitWhileLatencyIsSteady() {
+        // Given
+        AdaptiveConcurrencyLimit underTest = limit(10, 1, 100);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            runAtLimit(underTest, FAST);
+        }
+
+        // Then
+        assertThat(underTest.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void itShouldLowerLimitWhenLatencyRises() {
+        // Given
+        AdaptiveConcurrencyLimit underTest = limit(40, 1, 100);
+        for (int i = 0; i < 5; i++) {
+            runAtLimit(underTest, FAST);
+        }
+        int steadyLimit = underTest.getLimit();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            runAtLimit(underTest, SLOW);
+        }
+
+        // Then
+        assertThat(underTest.getLimit()).isLessThan(steadyLimit);
+        assertThat(underTest.getStats().getShortRttMillis()).isEqualTo(100);
+    }
+
+    @Test
+    void itShouldNotLowerLimitBelowMinimum() {
+        // Given
+        AdaptiveConcurrencyLimit underTest = limit(10, 8, 100);
+        runAtLimit(underTest, FAST);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            runAtLimit(underTest, SLOW * (i + 2));
+        }
+
+        // Then
+        assertThat(underTest.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void itShouldNotRaiseLimitThatIsNotUsed() {
+        // Given
+        AdaptiveConcurrencyLimit underTest = limit(10, 1, 100);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            underTest.tryAcquire();
+            underTest.release(FAST);
+        }
+
+        // Then
+        assertThat(underTest.getLimit()).isEqualTo(10);
+    }
+
+    private static void runAtLimit(AdaptiveConcurrencyLimit limit, long rttNanos) {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.release(rttNanos);
+        }
+    }
+
+    private static AdaptiveConcurrencyLimit limit(int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimit("test",
+                new AdaptiveConcurrencyLimitConfig(initialLimit, minLimit, maxLimit, 1, 1000, 1.5, 0.2));
+    }
+}
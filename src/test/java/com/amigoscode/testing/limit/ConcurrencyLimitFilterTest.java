@@ -0,0 +1,110 @@
+package com.amigoscode.testing.limit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimitFilter underTest;
+
+    private AdaptiveConcurrencyLimit paymentLimit;
+
+    private AdaptiveConcurrencyLimit registrationLimit;
+
+    @BeforeEach
+    void setUp() {
+        paymentLimit = limit("payment");
+        registrationLimit = limit("customer-registration");
+        underTest = new ConcurrencyLimitFilter(List.of(paymentLimit, registrationLimit),
+                List.of("/api/v1/payment", "/api/v1/customer-registration"), 2);
+    }
+
+    @Test
+    void itShouldRejectRequestOverLimitWithRetryAfter() throws Exception {
+        // Given
+        MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        // ... the second payment arrives while the first one is in flight
+        FilterChain firstChain = (request, response) ->
+                underTest.doFilter(post("/api/v1/payment/batch"), rejectedResponse, rejectedChain);
+
+        // When
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        underTest.doFilter(post("/api/v1/payment/7d2d2ee4-9d62-4b21-9c8e-1b0a3a3c1f3a"), firstResponse, firstChain);
+
+        // Then
+        assertThat(firstResponse.getStatus()).isEqualTo(200);
+        assertThat(rejectedResponse.getStatus()).isEqualTo(503);
+        assertThat(rejectedResponse.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejectedChain.getRequest()).isNull();
+        assertThat(paymentLimit.getInFlight()).isZero();
+        assertThat(paymentLimit.getStats().getRejectedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldKeepSeparatePoolsPerController() throws Exception {
+        // Given
+        MockHttpServletResponse registrationResponse = new MockHttpServletResponse();
+        MockFilterChain registrationChain = new MockFilterChain();
+        FilterChain paymentChain = (request, response) ->
+                underTest.doFilter(put("/api/v1/customer-registration"), registrationResponse, registrationChain);
+
+        // When
+        underTest.doFilter(post("/api/v1/payment/batch"), new MockHttpServletResponse(), paymentChain);
+
+        // Then
+        assertThat(registrationResponse.getStatus()).isEqualTo(200);
+        assertThat(registrationChain.getRequest()).isNotNull();
+        assertThat(registrationLimit.getStats().getAcceptedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldNotLimitOtherPaths() throws Exception {
+        // Given
+        paymentLimit.tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        underTest.doFilter(post("/api/v1/payment-history/customer"), new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(paymentLimit.getStats().getAcceptedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldReleaseWhenRequestFails() {
+        // Given
+        FilterChain failingChain = (request, response) -> {
+            throw new IllegalStateException("failed");
+        };
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.doFilter(post("/api/v1/payment/batch"), new MockHttpServletResponse(), failingChain))
+                .hasMessage("failed");
+        assertThat(paymentLimit.getInFlight()).isZero();
+    }
+
+    private static MockHttpServletRequest post(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+
+    private static MockHttpServletRequest put(String uri) {
+        return new MockHttpServletRequest("PUT", uri);
+    }
+
+    private static AdaptiveConcurrencyLimit limit(String name) {
+        return new AdaptiveConcurrencyLimit(name, new AdaptiveConcurrencyLimitConfig(1, 1, 10, 10, 10, 1.5, 0.2));
+    }
+}
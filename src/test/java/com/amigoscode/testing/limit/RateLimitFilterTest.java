@@ -0,0 +1,120 @@
+package com.amigoscode.testing.limit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, RateLimitConfig> configs = new LinkedHashMap<>();
+        configs.put("payment", new RateLimitConfig(0.1, 2));
+        configs.put("customer-registration", new RateLimitConfig(0.1, 1));
+        underTest = new RateLimitFilter(configs, "X-Api-Key", Set.of("partner", "other partner"), 100,
+                TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void itShouldRejectClientOverItsRateWithRetryAfter() throws Exception {
+        // Given
+        filter(request("/api/v1/payment/batch", "partner"));
+        filter(request("/api/v1/payment/batch", "partner"));
+
+        // When
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        underTest.doFilter(request("/api/v1/payment/batch", "partner"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(1L, 10L);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(underTest.getStats().get(0).getRejectedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldNotLimitOtherClients() throws Exception {
+        // Given
+        filter(request("/api/v1/payment/batch", "partner"));
+        filter(request("/api/v1/payment/batch", "partner"));
+
+        // When
+        MockHttpServletResponse otherPartner = filter(request("/api/v1/payment/batch", "other partner"));
+        MockHttpServletResponse noApiKey = filter(request("/api/v1/payment/batch", null));
+
+        // Then
+        assertThat(otherPartner.getStatus()).isEqualTo(200);
+        assertThat(noApiKey.getStatus()).isEqualTo(200);
+        assertThat(underTest.getStats().get(0).getOccupiedSlots()).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldLimitUnknownApiKeysByAddress() throws Exception {
+        // Given
+        filter(request("/api/v1/payment/batch", "made up 1"));
+        filter(request("/api/v1/payment/batch", "made up 2"));
+
+        // When
+        MockHttpServletResponse response = filter(request("/api/v1/payment/batch", "made up 3"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(underTest.getStats().get(0).getOccupiedSlots()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldLimitEachEndpointSeparately() throws Exception {
+        // Given
+        filter(request("/api/v1/customer-registration", "partner"));
+
+        // When
+        MockHttpServletResponse registration = filter(request("/api/v1/customer-registration", "partner"));
+        MockHttpServletResponse payment = filter(request("/api/v1/payment/batch", "partner"));
+
+        // Then
+        assertThat(registration.getStatus()).isEqualTo(429);
+        assertThat(payment.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void itShouldNotLimitOtherPaths() throws Exception {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            filter(request("/api/v1/payment-history/customer", "partner"));
+        }
+
+        // When
+        MockHttpServletResponse response = filter(request("/api/v1/payment-history/customer", "partner"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(underTest.getStats()).allSatisfy(stats -> assertThat(stats.getOccupiedSlots()).isZero());
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        underTest.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (apiKey != null) {
+            request.addHeader("X-Api-Key", apiKey);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,132 @@
+package com.amigoscode.testing.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void itShouldAllowBurstThenReject() {
+        // Given
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 3, 100, SECOND, 0);
+
+        // When
+        long first = underTest.tryAcquire("client", 0);
+        long second = underTest.tryAcquire("client", 0);
+        long third = underTest.tryAcquire("client", 0);
+        long fourth = underTest.tryAcquire("client", 0);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(fourth).isEqualTo(SECOND / 10);
+        assertThat(underTest.getAllowed()).isEqualTo(3);
+        assertThat(underTest.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRefillOneTokenPerInterval() {
+        // Given
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 1, 100, SECOND, 0);
+        underTest.tryAcquire("client", 0);
+
+        // When
+        long tooEarly = underTest.tryAcquire("client", SECOND / 20);
+        long refilled = underTest.tryAcquire("client", SECOND / 10);
+
+        // Then
+        assertThat(tooEarly).isEqualTo(SECOND / 20);
+        assertThat(refilled).isZero();
+    }
+
+    @Test
+    void itShouldNotSaveUpMoreThanBurst() {
+        // Given
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 2, 100, SECOND, 0);
+
+        // When
+        long first = underTest.tryAcquire("client", 10 * SECOND);
+        long second = underTest.tryAcquire("client", 10 * SECOND);
+        long third = underTest.tryAcquire("client", 10 * SECOND);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isPositive();
+    }
+
+    @Test
+    void itShouldLimitClientsSeparately() {
+        // Given
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 1, 100, SECOND, 0);
+        underTest.tryAcquire("first", 0);
+
+        // When
+        long acquired = underTest.tryAcquire("second", 0);
+
+        // Then
+        assertThat(acquired).isZero();
+    }
+
+    @Test
+    void itShouldRejectNewClientsUntilASlotGoesIdleWhenFull() {
+        // Given
+        // ... two slots
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 1, 1, SECOND, 0);
+        underTest.tryAcquire("first", 0);
+        underTest.tryAcquire("second", 0);
+
+        // When
+        long acquired = underTest.tryAcquire("third", 0);
+        long acquiredAgain = underTest.tryAcquire("third", 0);
+
+        // Then
+        // ... both buckets are full again at 100 ms, and idle a second later
+        assertThat(acquired).isEqualTo(SECOND + SECOND / 10);
+        assertThat(acquiredAgain).isEqualTo(SECOND + SECOND / 10);
+        assertThat(underTest.getSlots()).isEqualTo(2);
+        assertThat(underTest.getOccupiedSlots()).isEqualTo(2);
+        assertThat(underTest.getTableFull()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldGiveSlotsOfIdleClientsToNewClients() {
+        // Given
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 1, 1, SECOND, 0);
+        underTest.tryAcquire("first", 0);
+        underTest.tryAcquire("second", 0);
+
+        // When
+        // ... both buckets have been full for a second
+        long acquired = underTest.tryAcquire("third", SECOND + SECOND / 10);
+        long acquiredAgain = underTest.tryAcquire("third", SECOND + SECOND / 10);
+
+        // Then
+        assertThat(acquired).isZero();
+        assertThat(acquiredAgain).isPositive();
+        assertThat(underTest.getOccupiedSlots()).isEqualTo(2);
+        assertThat(underTest.getTableFull()).isZero();
+    }
+
+    @Test
+    void itShouldWorkAcrossNanoTimeOverflow() {
+        // Given
+        long now = Long.MAX_VALUE - 10;
+        TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(10, 1, 100, SECOND, now);
+        underTest.tryAcquire("client", now);
+
+        // When
+        long tooEarly = underTest.tryAcquire("client", now + SECOND / 20);
+        long refilled = underTest.tryAcquire("client", now + SECOND / 10);
+
+        // Then
+        assertThat(tooEarly).isEqualTo(SECOND / 20);
+        assertThat(refilled).isZero();
+    }
+}
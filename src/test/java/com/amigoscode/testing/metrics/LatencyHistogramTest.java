@@ -0,0 +1,124 @@
+package com.amigoscode.testing.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(60);
+
+    private LatencyHistogram underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new LatencyHistogram(TimeUnit.SECONDS.toNanos(60), 6, INTERVAL, 0);
+    }
+
+    @Test
+    void itShouldReportPercentilesWithinPrecision() {
+        // Given
+        for (int millis = 1; millis <= 1000; millis++) {
+            underTest.record(TimeUnit.MILLISECONDS.toNanos(millis), 0);
+        }
+
+        // When
+        LatencySummary summary = underTest.getSummary(0);
+
+        // Then
+        assertThat(summary.getCount()).isEqualTo(1000);
+        assertThat(summary.getWindowCount()).isEqualTo(1000);
+        assertThat(summary.getP50Millis()).isCloseTo(500, within(500 / 64.0));
+        assertThat(summary.getP90Millis()).isCloseTo(900, within(900 / 64.0));
+        assertThat(summary.getP99Millis()).isCloseTo(990, within(990 / 64.0));
+        assertThat(summary.getMaxMillis()).isCloseTo(1000, within(1000 / 64.0));
+        assertThat(summary.getMeanMillis()).isCloseTo(500.5, within(500.5 / 64.0));
+    }
+
+    @Test
+    void itShouldMapEveryValueToABucketThatHoldsIt() {
+        // Given
+        long[] values = {0, 1, 63, 64, 65, 127, 128, 129, 1_000, 123_456_789, TimeUnit.SECONDS.toNanos(60)};
+
+        for (long value : values) {
+            // When
+            int bucket = underTest.bucketOf(value);
+
+            // Then
+            assertThat(underTest.lowestValueOf(bucket)).isLessThanOrEqualTo(value);
+            assertThat(underTest.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+            assertThat(underTest.highestValueOf(bucket) - underTest.lowestValueOf(bucket)).isLessThanOrEqualTo(value / 64);
+        }
+    }
+
+    @Test
+    void itShouldCountValuesAboveHighestTrackableAsHighestTrackable() {
+        // Given
+        underTest.record(TimeUnit.HOURS.toNanos(1), 0);
+
+        // When
+        LatencySummary summary = underTest.getSummary(0);
+
+        // Then
+        assertThat(summary.getMaxMillis()).isEqualTo(60_000);
+    }
+
+    @Test
+    void itShouldKeepLastCompleteIntervalAndForgetOlderOnes() {
+        // Given
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(500), 0);
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(1), INTERVAL);
+
+        // When
+        LatencySummary secondInterval = underTest.getSummary(INTERVAL);
+        LatencySummary thirdInterval = underTest.getSummary(2 * INTERVAL);
+        LatencySummary fourthInterval = underTest.getSummary(3 * INTERVAL);
+
+        // Then
+        assertThat(secondInterval.getWindowCount()).isEqualTo(2);
+        assertThat(thirdInterval.getWindowCount()).isEqualTo(1);
+        assertThat(thirdInterval.getMaxMillis()).isCloseTo(1, within(1 / 64.0));
+        assertThat(fourthInterval.getWindowCount()).isZero();
+        assertThat(fourthInterval.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldClearReusedTableWhenIntervalsAreSkipped() {
+        // Given
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(500), 0);
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(400), INTERVAL);
+
+        // When
+        underTest.record(TimeUnit.MILLISECONDS.toNanos(1), 5 * INTERVAL);
+
+        // Then
+        LatencySummary summary = underTest.getSummary(5 * INTERVAL);
+        assertThat(summary.getWindowCount()).isEqualTo(1);
+        assertThat(summary.getP999Millis()).isCloseTo(1, within(1 / 64.0));
+    }
+
+    @Test
+    void itShouldReportZerosWhenNothingWasRecorded() {
+        // When
+        LatencySummary summary = underTest.getSummary(0);
+
+        // Then
+        assertThat(summary.getWindowCount()).isZero();
+        assertThat(summary.getP99Millis()).isZero();
+        assertThat(summary.getMaxMillis()).isZero();
+    }
+
+    @Test
+    void itShouldRejectInvalidSettings() {
+        // When
+        // Then
+        assertThatThrownBy(() -> new LatencyHistogram(10, 6, INTERVAL, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("highestTrackableNanos=10");
+    }
+}
@@ -0,0 +1,64 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerSpendCountersTest {
+
+    private final CustomerSpendCounters underTest = new CustomerSpendCounters(
+            Clock.fixed(Instant.parse("2020-01-01T00:00:00.123456789Z"), ZoneOffset.UTC));
+
+    @Test
+    void itShouldTotalSpendPerCustomerAndCurrency() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        UUID otherCustomerId = UUID.randomUUID();
+
+        // When
+        underTest.record(new Payment(null, customerId, Money.ofMinor(1050, Currency.EUR), "card", "first"));
+        underTest.record(new Payment(null, customerId, Money.ofMinor(950, Currency.EUR), "card", "second"));
+        underTest.record(new Payment(null, customerId, Money.ofMinor(500, Currency.GBP), "card", "third"));
+        underTest.add(otherCustomerId, Money.ofMinor(100, Currency.USD));
+
+        // Then
+        assertThat(underTest.getTotals(customerId))
+                .containsExactly(Money.ofMinor(500, Currency.GBP), Money.ofMinor(2000, Currency.EUR));
+        assertThat(underTest.getTotals(otherCustomerId)).containsExactly(Money.ofMinor(100, Currency.USD));
+        assertThat(underTest.getTotals(UUID.randomUUID())).isEmpty();
+        assertThat(underTest.customers()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldNotLoseConcurrentCharges() throws InterruptedException {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            executor.execute(() -> underTest.add(customerId, Money.ofMinor(1, Currency.EUR)));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(underTest.getTotals(customerId)).containsExactly(Money.ofMinor(10_000, Currency.EUR));
+    }
+
+    @Test
+    void itShouldCountFromMicrosecondPrecisionStart() {
+        // Given
+        // When
+        // Then
+        assertThat(underTest.getCountedSince()).isEqualTo(Instant.parse("2020-01-01T00:00:00.123456Z"));
+    }
+}
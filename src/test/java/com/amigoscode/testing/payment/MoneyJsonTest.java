@@ -0,0 +1,120 @@
+package com.amigoscode.testing.payment;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void itShouldWriteAndReadMoney() throws Exception {
+        // Given
+        Money amount = Money.of(new BigDecimal("10.50"), Currency.EUR);
+
+        // When
+        String json = objectMapper.writeValueAsString(amount);
+
+        // Then
+        assertThat(json).isEqualTo("{\"amount\":10.50,\"currency\":\"EUR\"}");
+        assertThat(objectMapper.readValue(json, Money.class)).isEqualTo(amount);
+    }
+
+    @Test
+    void itShouldKeepAmountAndCurrencyAsPaymentFields() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Payment payment = new Payment(1L, customerId, Money.of(new BigDecimal("10.5"), Currency.GBP), "card", "json");
+
+        // When
+        String json = objectMapper.writeValueAsString(payment);
+
+        // Then
+        assertThat(json).contains("\"amount\":10.50,\"currency\":\"GBP\"");
+        assertThat(objectMapper.readValue(json, Payment.class)).isEqualTo(payment);
+    }
+
+    @Test
+    void itShouldReadTheExactDecimalSent() throws Exception {
+        // Given
+        String json = "{\"payment\":{\"customerId\":null,\"amount\":0.29,\"currency\":\"USD\",\"source\":\"card\"}}";
+
+        // When
+        PaymentRequest request = objectMapper.readValue(json, PaymentRequest.class);
+
+        // Then
+        assertThat(request.getPayment().getAmount()).isEqualTo(Money.ofMinor(29, Currency.USD));
+        assertThat(request.getPayment().getSource()).isEqualTo("card");
+    }
+
+    @Test
+    void itShouldReadAmountsWrittenWithTrailingZerosExponentsOrAsStrings() throws Exception {
+        // Given
+        // When
+        Money trailingZeros = objectMapper.readValue("{\"amount\":10.500,\"currency\":\"EUR\"}", Money.class);
+        Money exponent = objectMapper.readValue("{\"amount\":1.05E1,\"currency\":\"EUR\"}", Money.class);
+        Money string = objectMapper.readValue("{\"currency\":\"EUR\",\"amount\":\"-10.5\"}", Money.class);
+        Money whole = objectMapper.readValue("{\"amount\":10,\"currency\":\"EUR\"}", Money.class);
+
+        // Then
+        assertThat(trailingZeros).isEqualTo(Money.ofMinor(1050, Currency.EUR));
+        assertThat(exponent).isEqualTo(Money.ofMinor(1050, Currency.EUR));
+        assertThat(string).isEqualTo(Money.ofMinor(-1050, Currency.EUR));
+        assertThat(whole).isEqualTo(Money.ofMinor(1000, Currency.EUR));
+    }
+
+    @Test
+    void itShouldRejectAmountThatIsNotANumber() {
+        // Given
+        String json = "{\"amount\":\"ten\",\"currency\":\"EUR\"}";
+
+        // When
+        // Then
+        assertThatThrownBy(() -> objectMapper.readValue(json, Money.class))
+                .isInstanceOf(JsonMappingException.class)
+                .hasMessageContaining("The amount [ten] is not a number");
+    }
+
+    @Test
+    void itShouldReadPaymentWithoutAmount() throws Exception {
+        // Given
+        String json = "{\"paymentId\":1,\"source\":\"card\"}";
+
+        // When
+        Payment payment = objectMapper.readValue(json, Payment.class);
+
+        // Then
+        assertThat(payment.getAmount()).isNull();
+    }
+
+    @Test
+    void itShouldRejectAmountFinerThanTheMinorUnit() {
+        // Given
+        String json = "{\"amount\":10.001,\"currency\":\"EUR\"}";
+
+        // When
+        // Then
+        assertThatThrownBy(() -> objectMapper.readValue(json, Payment.class))
+                .isInstanceOf(JsonMappingException.class)
+                .hasMessageContaining("The amount [10.001] is not a whole number of [EUR] minor units");
+    }
+
+    @Test
+    void itShouldRejectAmountWithoutCurrency() {
+        // Given
+        String json = "{\"amount\":10.00}";
+
+        // When
+        // Then
+        assertThatThrownBy(() -> objectMapper.readValue(json, Money.class))
+                .isInstanceOf(JsonMappingException.class)
+                .hasMessageContaining("An amount needs both [amount] and [currency]");
+    }
+}
@@ -0,0 +1,94 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void itShouldCountAmountsInMinorUnitsOfTheCurrency() {
+        // Given
+        BigDecimal amount = new BigDecimal("1500.25");
+
+        // When
+        Money euros = Money.of(amount, Currency.EUR);
+        Money pesos = Money.of(amount, Currency.COP);
+
+        // Then
+        assertThat(euros.getMinorUnits()).isEqualTo(150025);
+        assertThat(pesos.getMinorUnits()).isEqualTo(150025);
+        assertThat(euros.toBigDecimal()).isEqualTo(new BigDecimal("1500.25"));
+        assertThat(pesos.toBigDecimal()).isEqualTo(new BigDecimal("1500.25"));
+        assertThat(euros).isNotEqualTo(pesos);
+    }
+
+    @Test
+    void itShouldBeEqualWhateverTheScaleOfTheAmount() {
+        // Given
+        // When
+        Money ten = Money.of(new BigDecimal("10"), Currency.EUR);
+        Money tenWithCents = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+        // Then
+        assertThat(ten).isEqualTo(tenWithCents);
+        assertThat(ten.hashCode()).isEqualTo(tenWithCents.hashCode());
+        assertThat(ten.toBigDecimal()).isEqualTo(new BigDecimal("10.00"));
+        assertThat(ten).hasToString("10.00 EUR");
+    }
+
+    @Test
+    void itShouldNotRoundAmountsFinerThanTheMinorUnit() {
+        // Given
+        BigDecimal amount = new BigDecimal("10.005");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> Money.of(amount, Currency.EUR))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("The amount [10.005] is not a whole number of [EUR] minor units or is too large.");
+    }
+
+    @Test
+    void itShouldDoExactArithmetic() {
+        // Given
+        Money amount = Money.of(new BigDecimal("0.10"), Currency.GBP);
+
+        // When
+        Money total = amount.times(3).plus(Money.ofMinor(70, Currency.GBP)).minus(Money.ofMinor(1, Currency.GBP));
+
+        // Then
+        assertThat(total).isEqualTo(Money.of(new BigDecimal("0.99"), Currency.GBP));
+        assertThat(total.compareTo(amount)).isPositive();
+        assertThat(total.isPositive()).isTrue();
+    }
+
+    @Test
+    void itShouldThrowOnOverflow() {
+        // Given
+        Money amount = Money.ofMinor(Long.MAX_VALUE, Currency.USD);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> amount.plus(Money.ofMinor(1, Currency.USD)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> amount.times(2))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void itShouldNotCombineDifferentCurrencies() {
+        // Given
+        Money euros = Money.ofMinor(100, Currency.EUR);
+        Money dollars = Money.ofMinor(100, Currency.USD);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> euros.plus(dollars))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot combine amounts in [EUR] and [USD].");
+    }
+}
@@ -0,0 +1,96 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+
+class PaymentHistoryServiceTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    private PaymentHistoryService underTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        underTest = new PaymentHistoryService(paymentRepository, 2, 3);
+    }
+
+    @Test
+    void itShouldReturnNextBeforeWhenThereIsAnotherPage() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        List<PaymentHistoryEntry> history = entries(30, 20, 10);
+        given(paymentRepository.selectPaymentHistory(eq(customerId), eq(Long.MAX_VALUE), any(), any(), any(), any()))
+                .willReturn(history);
+
+        // When
+        PaymentHistoryPage page = underTest.findPayments(customerId, null, null, null, null, null);
+
+        // Then
+        assertThat(page.getPayments()).extracting(PaymentHistoryEntry::getPaymentId).containsExactly(30L, 20L);
+        assertThat(page.getNextBefore()).isEqualTo(20L);
+        then(paymentRepository).should().selectPaymentHistory(
+                customerId, Long.MAX_VALUE, null, null, null, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void itShouldEndOnLastPage() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Instant from = Instant.parse("2020-01-01T00:00:00Z");
+        Instant to = Instant.parse("2020-02-01T00:00:00Z");
+        List<PaymentHistoryEntry> history = entries(10);
+        given(paymentRepository.selectPaymentHistory(customerId, 20L, Currency.EUR, from, to, PageRequest.of(0, 3)))
+                .willReturn(history);
+
+        // When
+        PaymentHistoryPage page = underTest.findPayments(customerId, 20L, Currency.EUR, from, to, 2);
+
+        // Then
+        assertThat(page.getPayments()).extracting(PaymentHistoryEntry::getPaymentId).containsExactly(10L);
+        assertThat(page.getNextBefore()).isNull();
+    }
+
+    @Test
+    void itShouldCapPageSize() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        given(paymentRepository.selectPaymentHistory(any(), any(Long.class), any(), any(), any(), any()))
+                .willReturn(List.of());
+
+        // When
+        underTest.findPayments(customerId, null, null, null, null, 1000);
+        underTest.findPayments(customerId, null, null, null, null, 0);
+
+        // Then
+        then(paymentRepository).should().selectPaymentHistory(
+                customerId, Long.MAX_VALUE, null, null, null, PageRequest.of(0, 4));
+        then(paymentRepository).should().selectPaymentHistory(
+                customerId, Long.MAX_VALUE, null, null, null, PageRequest.of(0, 2));
+    }
+
+    private static List<PaymentHistoryEntry> entries(long... paymentIds) {
+        return LongStream.of(paymentIds).mapToObj(paymentId -> {
+            PaymentHistoryEntry entry = mock(PaymentHistoryEntry.class);
+            given(entry.getPaymentId()).willReturn(paymentId);
+            return entry;
+        }).collect(Collectors.toList());
+    }
+}
@@ -2,24 +2,35 @@ package com.amigoscode.testing.payment;
 
 import com.amigoscode.testing.customer.Customer;
 import com.amigoscode.testing.customer.CustomerRegistrationRequest;
+import com.amigoscode.testing.payment.sms.SmsMessage;
+import com.amigoscode.testing.payment.sms.StubSmsSender;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -29,9 +40,15 @@ public class PaymentIT {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentWriter paymentWriter;
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private StubSmsSender smsSender;
+
     @Test
     void itShouldCreatePaymentSuccessfully() throws Exception {
         // Given
@@ -40,19 +57,32 @@ public class PaymentIT {
 
         Customer customer = new Customer(customerId, "Juan", "+33600000000");
 
-        Payment payment = new Payment(paymentId, customerId, new BigDecimal("10.00"),
-                Currency.EUR, "source", "destination");
-
         // .. Requesting PUT endpoint
         ResultActions customerRegResultActions = mockMvc.perform(put("/api/v1/customer-registration")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(Objects.requireNonNull(objectToJson(new CustomerRegistrationRequest(customer)))));
 
-        // TODO: create an endpoint to retrieve customers by phone number and use their customerId when creating the payment object
+        // ... Retrieve the registered customer by phone number and use its id for the payment
+        MvcResult customerResult = mockMvc.perform(get("/api/v1/customer-registration/phone-numbers/{phoneNumber}", "+33600000000"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        UUID registeredCustomerId = UUID.fromString(
+                new ObjectMapper().readTree(customerResult.getResponse().getContentAsString()).get("id").asText());
+        assertThat(registeredCustomerId).isEqualTo(customerId);
+
+        // ... Repeating the lookup with the ETag is answered with 304
+        mockMvc.perform(get("/api/v1/customer-registration/phone-numbers/{phoneNumber}", "+33600000000")
+                .header(HttpHeaders.IF_NONE_MATCH, customerResult.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        Payment payment = new Payment(paymentId, registeredCustomerId,
+                Money.of(new BigDecimal("10.00"), Currency.EUR), "source", "destination");
 
         // ... Requesting POST endpoint
         // When payment is sent
-        ResultActions paymentResultActions = mockMvc.perform(post("/api/v1/payment/{customerId}", customerId)
+        ResultActions paymentResultActions = mockMvc.perform(post("/api/v1/payment/{customerId}", registeredCustomerId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(Objects.requireNonNull(objectToJson(new PaymentRequest(payment)))));
 
@@ -60,14 +90,114 @@ public class PaymentIT {
         customerRegResultActions.andExpect(status().isOk());
         paymentResultActions.andExpect(status().isOk());
 
-        // ... Payment is stored in DB
-        // TODO: Do not use paymentRepository instead create an endpoint to retrieve payments for customers
-        assertThat(paymentRepository.findById(paymentId))
-                .isPresent()
-                .hasValueSatisfying(p -> assertThat(p).isEqualToComparingFieldByField(payment));
+        // ... Payment is in the customer's history once the write-behind stage has flushed, under a server allocated id
+        paymentWriter.flush();
+        mockMvc.perform(get("/api/v1/payment-history/{customerId}", registeredCustomerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payments.length()").value(1))
+                .andExpect(jsonPath("$.payments[0].paymentId").isNumber())
+                .andExpect(jsonPath("$.payments[0].amount").value(10.0))
+                .andExpect(jsonPath("$.payments[0].currency").value("EUR"))
+                .andExpect(jsonPath("$.payments[0].createdAt").isString())
+                .andExpect(jsonPath("$.nextBefore").isEmpty());
+
+        // ... and in the customer's spend totals, which are served from memory
+        mockMvc.perform(get("/api/v1/customer-spend/{customerId}", registeredCustomerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totals.length()").value(1))
+                .andExpect(jsonPath("$.totals[0].amount").value(10.0))
+                .andExpect(jsonPath("$.totals[0].currency").value("EUR"));
+
+        // ... and the customer gets an SMS for it, sent after the response
+        assertThat(awaitSmsTo("+33600000000"))
+                .hasValueSatisfying(sms -> assertThat(sms.getText()).contains("10.00 EUR"));
+    }
 
-        // TODO: Ensure sms is delivered
+    @Test
+    void itShouldChargeBatchOfPaymentsWithPerItemResults() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        mockMvc.perform(put("/api/v1/customer-registration")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(Objects.requireNonNull(objectToJson(
+                        new CustomerRegistrationRequest(new Customer(customerId, "Maria", "+33600000001"))))))
+                .andExpect(status().isOk());
+
+        Payment accepted = new Payment(null, customerId, Money.of(new BigDecimal("10.00"), Currency.EUR), "source", "first");
+        Payment rejected = new Payment(null, customerId, Money.of(new BigDecimal("10.00"), Currency.COP), "source", "second");
 
+        // When
+        ResultActions batchResultActions = mockMvc.perform(post("/api/v1/payment/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(Objects.requireNonNull(objectToJson(new BatchChargeRequest(List.of(accepted, rejected))))));
+
+        // Then
+        batchResultActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.charged").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].charged").value(true))
+                .andExpect(jsonPath("$.items[0].paymentId").isNumber())
+                .andExpect(jsonPath("$.items[1].message").value("The currency [COP] is not accepted."));
+    }
+
+    @Test
+    void itShouldRejectBatchLargerThanMaxSize() throws Exception {
+        // Given
+        Payment payment = new Payment(null, UUID.randomUUID(), Money.of(new BigDecimal("10.00"), Currency.EUR), "source", "batch");
+        List<Payment> payments = Collections.nCopies(1001, payment);
+        long paymentsBefore = paymentRepository.count();
+
+        // When
+        ResultActions batchResultActions = mockMvc.perform(post("/api/v1/payment/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(Objects.requireNonNull(objectToJson(new BatchChargeRequest(payments)))));
+
+        // Then
+        batchResultActions.andExpect(status().isBadRequest());
+        assertThat(paymentRepository.count()).isEqualTo(paymentsBefore);
+    }
+
+    @Test
+    void itShouldReplayPaymentRetriedWithSameIdempotencyKey() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        mockMvc.perform(put("/api/v1/customer-registration")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(Objects.requireNonNull(objectToJson(
+                        new CustomerRegistrationRequest(new Customer(customerId, "Ana", "+33600000002"))))))
+                .andExpect(status().isOk());
+        long paymentsBefore = paymentRepository.count();
+        String paymentJson = objectToJson(new PaymentRequest(
+                new Payment(null, customerId, Money.of(new BigDecimal("10.00"), Currency.EUR), "source", "retried")));
+
+        // When
+        ResultActions first = mockMvc.perform(post("/api/v1/payment/{customerId}", customerId)
+                .header("Idempotency-Key", "retried-payment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(Objects.requireNonNull(paymentJson)));
+        ResultActions retry = mockMvc.perform(post("/api/v1/payment/{customerId}", customerId)
+                .header("Idempotency-Key", "retried-payment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(Objects.requireNonNull(paymentJson)));
+
+        // Then
+        paymentWriter.flush();
+        first.andExpect(status().isOk()).andExpect(header().string("Idempotent-Replayed", "false"));
+        retry.andExpect(status().isOk()).andExpect(header().string("Idempotent-Replayed", "true"));
+        assertThat(paymentRepository.count()).isEqualTo(paymentsBefore + 1);
+    }
+
+    private Optional<SmsMessage> awaitSmsTo(String phoneNumber) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            Optional<SmsMessage> sms = smsSender.getSent().stream()
+                    .filter(message -> message.getPhoneNumber().equals(phoneNumber))
+                    .findFirst();
+            if (sms.isPresent()) {
+                return sms;
+            }
+            Thread.sleep(100);
+        }
+        return Optional.empty();
     }
 
     private String objectToJson(Object o) {
@@ -0,0 +1,48 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(
+        properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"}
+)
+class PaymentIdempotencyKeyRepositoryTest {
+
+    @Autowired
+    private PaymentIdempotencyKeyRepository underTest;
+
+    @Test
+    void itShouldCompleteStoredKey() {
+        // Given
+        PaymentIdempotencyKey key = underTest.save(new PaymentIdempotencyKey(
+                "key-1", "fingerprint", PaymentIdempotencyKey.Status.IN_PROGRESS, Instant.now()));
+
+        // When
+        key.setStatus(PaymentIdempotencyKey.Status.COMPLETED);
+        underTest.save(key);
+
+        // Then
+        assertThat(underTest.findById("key-1"))
+                .hasValueSatisfying(k -> assertThat(k.getStatus()).isEqualTo(PaymentIdempotencyKey.Status.COMPLETED));
+    }
+
+    @Test
+    void itShouldNotOverwriteKeyInsertedConcurrently() {
+        // Given
+        underTest.save(new PaymentIdempotencyKey(
+                "key-1", "fingerprint", PaymentIdempotencyKey.Status.IN_PROGRESS, Instant.now()));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.save(new PaymentIdempotencyKey(
+                "key-1", "other", PaymentIdempotencyKey.Status.IN_PROGRESS, Instant.now())))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
@@ -0,0 +1,231 @@
+package com.amigoscode.testing.payment;
+
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.payment.sms.PaymentSmsNotifier;
+import com.amigoscode.testing.payment.velocity.PaymentVelocityLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+class PaymentIdempotencyServiceTest {
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private PaymentIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Clock clock;
+
+    private PaymentIdempotencyService underTest;
+
+    private final UUID customerId = UUID.randomUUID();
+
+    private final PaymentRequest paymentRequest = new PaymentRequest(
+            new Payment(null, customerId, Money.of(new BigDecimal("10.00"), Currency.EUR), "source", "description"));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        clock = mock(Clock.class);
+        given(clock.millis()).willReturn(0L);
+        given(idempotencyKeyRepository.findById(any())).willReturn(Optional.empty());
+        given(idempotencyKeyRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+        underTest = new PaymentIdempotencyService(paymentService, idempotencyKeyRepository, 60, 10, 5000, clock);
+    }
+
+    @Test
+    void itShouldChargeOnceAndMarkKeyCompleted() {
+        // Given
+        // When
+        boolean replayed = underTest.chargeCard("key", customerId, paymentRequest);
+
+        // Then
+        assertThat(replayed).isFalse();
+        then(paymentService).should().chargeCard(customerId, paymentRequest);
+        then(idempotencyKeyRepository).should(times(2)).save(any());
+    }
+
+    @Test
+    void itShouldReplayRepeatedKeyFromMemoryWithoutCharging() {
+        // Given
+        underTest.chargeCard("key", customerId, paymentRequest);
+
+        // When
+        boolean replayed = underTest.chargeCard("key", customerId, paymentRequest);
+
+        // Then
+        assertThat(replayed).isTrue();
+        then(paymentService).should(times(1)).chargeCard(any(), any());
+        then(idempotencyKeyRepository).should(times(1)).findById("key");
+    }
+
+    @Test
+    void itShouldReplayCompletedKeyFromTableWithoutCharging() {
+        // Given
+        String fingerprint = PaymentIdempotencyService.fingerprint(customerId, paymentRequest.getPayment());
+        given(idempotencyKeyRepository.findById("key")).willReturn(Optional.of(new PaymentIdempotencyKey(
+                "key", fingerprint, PaymentIdempotencyKey.Status.COMPLETED, Instant.EPOCH)));
+
+        // When
+        boolean replayed = underTest.chargeCard("key", customerId, paymentRequest);
+
+        // Then
+        assertThat(replayed).isTrue();
+        then(paymentService).shouldHaveNoInteractions();
+        then(idempotencyKeyRepository).should(never()).save(any());
+    }
+
+    @Test
+    void itShouldChargeAgainOnceStoredKeyHasExpired() {
+        // Given
+        String fingerprint = PaymentIdempotencyService.fingerprint(customerId, paymentRequest.getPayment());
+        PaymentIdempotencyKey expired = new PaymentIdempotencyKey(
+                "key", fingerprint, PaymentIdempotencyKey.Status.COMPLETED, Instant.EPOCH);
+        given(idempotencyKeyRepository.findById("key")).willReturn(Optional.of(expired));
+        given(clock.millis()).willReturn(TimeUnit.SECONDS.toMillis(60));
+
+        // When
+        boolean replayed = underTest.chargeCard("key", customerId, paymentRequest);
+
+        // Then
+        assertThat(replayed).isFalse();
+        then(idempotencyKeyRepository).should().delete(expired);
+        then(paymentService).should().chargeCard(customerId, paymentRequest);
+    }
+
+    @Test
+    void itShouldRejectKeyReusedForDifferentPayment() {
+        // Given
+        underTest.chargeCard("key", customerId, paymentRequest);
+        PaymentRequest otherRequest = new PaymentRequest(
+                new Payment(null, customerId, Money.of(new BigDecimal("99.00"), Currency.EUR), "source", "description"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("key", customerId, otherRequest))
+                .hasMessage("The idempotency key [key] was already used for a different payment.")
+                .isInstanceOf(IllegalArgumentException.class);
+        then(paymentService).should(never()).chargeCard(customerId, otherRequest);
+    }
+
+    @Test
+    void itShouldReleaseKeyWhenPaymentIsNotCharged() {
+        // Given
+        willThrow(new PaymentNotChargedException("The card was not debited.")).willDoNothing()
+                .given(paymentService).chargeCard(customerId, paymentRequest);
+        assertThatThrownBy(() -> underTest.chargeCard("key", customerId, paymentRequest))
+                .hasMessage("The card was not debited.");
+
+        // When
+        boolean replayed = underTest.chargeCard("key", customerId, paymentRequest);
+
+        // Then
+        assertThat(replayed).isFalse();
+        then(idempotencyKeyRepository).should().delete(any());
+        then(paymentService).should(times(2)).chargeCard(customerId, paymentRequest);
+    }
+
+    @Test
+    void itShouldKeepKeyWhenPaymentFailsAfterCharge() {
+        // Given
+        PaymentWriter paymentWriter = mock(PaymentWriter.class);
+        CardPaymentCharger cardPaymentCharger = mock(CardPaymentCharger.class);
+        PhoneNumberIndex phoneNumberIndex = mock(PhoneNumberIndex.class);
+        given(phoneNumberIndex.containsCustomerId(customerId)).willReturn(true);
+        given(cardPaymentCharger.chargeCard(any(), any(), any())).willReturn(new CardPaymentCharge(true));
+        willThrow(new IllegalStateException("Cannot append to payment journal")).given(paymentWriter).write(any());
+        PaymentService realPaymentService = new PaymentService(paymentWriter, mock(CustomerRepository.class),
+                cardPaymentCharger, phoneNumberIndex, new CustomerSpendCounters(), mock(PaymentSmsNotifier.class),
+                mock(PaymentVelocityLimiter.class), new PaymentMetrics(60_000, 60), Runnable::run);
+        underTest = new PaymentIdempotencyService(realPaymentService, idempotencyKeyRepository, 60, 10, 5000, clock);
+        assertThatThrownBy(() -> underTest.chargeCard("key", customerId, paymentRequest))
+                .hasMessage("Cannot append to payment journal");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("key", customerId, paymentRequest))
+                .hasMessage("The payment with idempotency key [key] failed after its card was charged, it must not be retried.")
+                .isInstanceOf(IllegalStateException.class);
+        then(cardPaymentCharger).should(times(1)).chargeCard(any(), any(), any());
+        then(idempotencyKeyRepository).should(never()).delete(any());
+        then(idempotencyKeyRepository).should(times(2)).save(argThat(
+                key -> key.getStatus() == PaymentIdempotencyKey.Status.FAILED_AFTER_CHARGE));
+    }
+
+    @Test
+    void itShouldNotChargeKeyStoredAsFailedAfterCharge() {
+        // Given
+        String fingerprint = PaymentIdempotencyService.fingerprint(customerId, paymentRequest.getPayment());
+        given(idempotencyKeyRepository.findById("key")).willReturn(Optional.of(new PaymentIdempotencyKey(
+                "key", fingerprint, PaymentIdempotencyKey.Status.FAILED_AFTER_CHARGE, Instant.EPOCH)));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("key", customerId, paymentRequest))
+                .hasMessage("The payment with idempotency key [key] failed after its card was charged, it must not be retried.");
+        then(paymentService).shouldHaveNoInteractions();
+        then(idempotencyKeyRepository).should(never()).delete(any());
+    }
+
+    @Test
+    void itShouldMakeConcurrentDuplicateWaitForInFlightCharge() throws Exception {
+        // Given
+        CountDownLatch charging = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            charging.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).given(paymentService).chargeCard(customerId, paymentRequest);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(
+                () -> underTest.chargeCard("key", customerId, paymentRequest));
+        assertThat(charging.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<Boolean> duplicate = CompletableFuture.supplyAsync(
+                () -> underTest.chargeCard("key", customerId, paymentRequest));
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isTrue();
+        then(paymentService).should(times(1)).chargeCard(customerId, paymentRequest);
+    }
+
+    @Test
+    void itShouldBoundKeysKeptInMemory() {
+        // Given
+        // When
+        for (int i = 0; i < 20; i++) {
+            underTest.chargeCard("key-" + i, customerId, paymentRequest);
+        }
+
+        // Then
+        assertThat(underTest.inMemoryKeys()).isLessThanOrEqualTo(10);
+    }
+}
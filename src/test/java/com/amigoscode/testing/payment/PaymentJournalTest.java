@@ -0,0 +1,200 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void itShouldRecoverPaymentsLeftByPreviousProcess() {
+        // Given
+        PaymentJournal journal = new PaymentJournal(directory, PaymentJournal.Sync.ALWAYS, 1 << 20);
+        Payment payment = payment(1L);
+        Payment withNulls = new Payment(2L, UUID.randomUUID(), null, null, null);
+        journal.awaitDurable(journal.append(payment));
+        journal.awaitDurable(journal.append(withNulls));
+        journal.close(0);
+
+        // When
+        PaymentJournal reopened = new PaymentJournal(directory, PaymentJournal.Sync.ALWAYS, 1 << 20);
+        List<Payment> recovered = reopened.readRecovered();
+
+        // Then
+        assertThat(recovered).hasSize(2);
+        assertThat(recovered.get(0)).isEqualTo(payment);
+        assertThat(recovered.get(1)).isEqualToComparingFieldByField(withNulls);
+        reopened.dropRecovered();
+        assertThat(reopened.readRecovered()).isEmpty();
+        reopened.close(0);
+    }
+
+    @Test
+    void itShouldDropTornRecordAtTheTail() throws IOException {
+        // Given
+        PaymentJournal journal = new PaymentJournal(directory, PaymentJournal.Sync.NONE, 1 << 20);
+        journal.append(payment(1L));
+        journal.append(payment(2L));
+        journal.close(0);
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        // When
+        List<Payment> recovered = PaymentJournal.read(segment);
+
+        // Then
+        assertThat(recovered).extracting(Payment::getPaymentId).containsExactly(1L);
+    }
+
+    @Test
+    void itShouldReadRecordsWrittenBeforeLayoutsWereNumbered() throws IOException {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2026-10-18T10:15:30.123456789Z");
+        ByteArrayOutputStream segment = new ByteArrayOutputStream();
+        segment.write(record(0, out -> {
+            writeIds(out, 1L, customerId);
+            out.writeBoolean(true);
+            out.writeUTF("10.50");
+            out.writeBoolean(true);
+            out.writeUTF("EUR");
+            writeSourceAndDescription(out);
+        }));
+        segment.write(record(0, out -> {
+            writeIds(out, 2L, customerId);
+            out.writeBoolean(true);
+            out.writeLong(1050);
+            out.writeUTF("EUR");
+            writeSourceAndDescription(out);
+        }));
+        segment.write(record(0, out -> {
+            writeIds(out, 3L, customerId);
+            out.writeBoolean(true);
+            out.writeLong(1050);
+            out.writeUTF("EUR");
+            writeSourceAndDescription(out);
+            out.writeBoolean(true);
+            out.writeLong(createdAt.getEpochSecond());
+            out.writeInt(createdAt.getNano());
+        }));
+        Path path = Files.write(directory.resolve("payments-0000000000000-000000.journal"), segment.toByteArray());
+
+        // When
+        List<Payment> recovered = PaymentJournal.read(path);
+
+        // Then
+        Money amount = Money.of(new BigDecimal("10.50"), Currency.EUR);
+        assertThat(recovered).extracting(Payment::getPaymentId).containsExactly(1L, 2L, 3L);
+        assertThat(recovered).extracting(Payment::getAmount).containsOnly(amount);
+        assertThat(recovered).extracting(Payment::getCreatedAt).containsExactly(null, null, createdAt);
+    }
+
+    @Test
+    void itShouldRefuseRecordInUnknownLayout() throws IOException {
+        // Given
+        Path path = Files.write(directory.resolve("payments-0000000000000-000000.journal"),
+                record(7, out -> writeIds(out, 1L, UUID.randomUUID())));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> PaymentJournal.read(path))
+                .hasMessage(String.format("Cannot decode payment journal record with layout [7] in [%s]", path))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void itShouldDeleteSealedSegmentsOnceFlushed() throws IOException {
+        // Given
+        PaymentJournal journal = new PaymentJournal(directory, PaymentJournal.Sync.BATCH, 60);
+        for (long id = 1; id <= 4; id++) {
+            journal.append(payment(id));
+        }
+        assertThat(journal.segments()).isEqualTo(5);
+
+        // When
+        journal.release(2);
+
+        // Then
+        assertThat(journal.segments()).isEqualTo(3);
+        assertThat(segments()).hasSize(3);
+        journal.close(4);
+        assertThat(segments()).isEmpty();
+    }
+
+    @Test
+    void itShouldRefuseDirectoryAlreadyInUse() {
+        // Given
+        PaymentJournal journal = new PaymentJournal(directory, PaymentJournal.Sync.NONE, 1 << 20);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> new PaymentJournal(directory, PaymentJournal.Sync.NONE, 1 << 20))
+                .hasMessage(String.format("Payment journal [%s] is already in use", directory))
+                .isInstanceOf(IllegalStateException.class);
+        journal.close(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] record(int layout, PayloadWriter writer) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            writer.write(out);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeInt(layout << 24 | payload.size());
+            out.writeInt((int) crc.getValue());
+            payload.writeTo(out);
+        }
+        return record.toByteArray();
+    }
+
+    private static void writeIds(DataOutputStream out, long paymentId, UUID customerId) throws IOException {
+        out.writeLong(paymentId);
+        out.writeLong(customerId.getMostSignificantBits());
+        out.writeLong(customerId.getLeastSignificantBits());
+    }
+
+    private static void writeSourceAndDescription(DataOutputStream out) throws IOException {
+        out.writeBoolean(true);
+        out.writeUTF("card");
+        out.writeBoolean(false);
+    }
+
+    interface PayloadWriter {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static Payment payment(long id) {
+        return new Payment(id, UUID.randomUUID(), Money.of(new BigDecimal("10.50"), Currency.EUR), "card", "journal");
+    }
+}
@@ -1,15 +1,21 @@
 package com.amigoscode.testing.payment;
 
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest(
         properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"}
@@ -19,20 +25,107 @@ class PaymentRepositoryTest {
     @Autowired
     private PaymentRepository underTest;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     void itShouldInsertPayment() {
         // Given
         long paymentId = 1L;
         Payment payment = new Payment(
-                paymentId, UUID.randomUUID(), new BigDecimal(10), Currency.EUR, "Card123", "Donation");
+                paymentId, UUID.randomUUID(), Money.of(new BigDecimal(10), Currency.EUR), "Card123", "Donation");
 
         // When
-        underTest.save(payment);
+        Payment saved = underTest.save(payment);
 
-        // Then
-        Optional<Payment> byId = underTest.findById(paymentId);
+        // Then ids come from the pooled sequence, whatever the request carried
+        Optional<Payment> byId = underTest.findById(saved.getPaymentId());
         assertThat(byId).hasValueSatisfying(p -> {
-            assertThat(p).isEqualTo(payment);
+            assertThat(p).isEqualToIgnoringGivenFields(payment, "paymentId");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void itShouldPageCustomerHistoryNewestFirst() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Payment first = save(customerId, Currency.EUR, "2020-01-01T00:00:00Z");
+        Payment second = save(customerId, Currency.EUR, "2020-01-02T00:00:00Z");
+        Payment third = save(customerId, Currency.EUR, "2020-01-03T00:00:00Z");
+        save(UUID.randomUUID(), Currency.EUR, "2020-01-04T00:00:00Z");
+
+        // When
+        List<PaymentHistoryEntry> firstPage = underTest.selectPaymentHistory(
+                customerId, Long.MAX_VALUE, null, null, null, PageRequest.of(0, 2));
+        List<PaymentHistoryEntry> secondPage = underTest.selectPaymentHistory(
+                customerId, firstPage.get(1).getPaymentId(), null, null, null, PageRequest.of(0, 2));
+
+        // Then
+        assertThat(firstPage).extracting(PaymentHistoryEntry::getPaymentId)
+                .containsExactly(third.getPaymentId(), second.getPaymentId());
+        assertThat(firstPage.get(0).getAmount()).isEqualTo(third.getAmount());
+        assertThat(firstPage.get(0).getCreatedAt()).isEqualTo(third.getCreatedAt());
+        assertThat(secondPage).extracting(PaymentHistoryEntry::getPaymentId)
+                .containsExactly(first.getPaymentId());
+    }
+
+    @Test
+    void itShouldFilterCustomerHistoryByCurrencyAndDate() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        save(customerId, Currency.EUR, "2020-01-01T00:00:00Z");
+        Payment inRange = save(customerId, Currency.EUR, "2020-01-02T00:00:00Z");
+        save(customerId, Currency.GBP, "2020-01-02T12:00:00Z");
+        save(customerId, Currency.EUR, "2020-01-03T00:00:00Z");
+
+        // When
+        List<PaymentHistoryEntry> history = underTest.selectPaymentHistory(customerId, Long.MAX_VALUE, Currency.EUR,
+                Instant.parse("2020-01-02T00:00:00Z"), Instant.parse("2020-01-03T00:00:00Z"), PageRequest.of(0, 10));
+
+        // Then
+        assertThat(history).extracting(PaymentHistoryEntry::getPaymentId).containsExactly(inRange.getPaymentId());
+    }
+
+    @Test
+    void itShouldReadCustomerHistoryPageFromTheIndexInOrder() {
+        // Given
+        String page = "select payment_id, amount, currency, created_at from payment " +
+                "where customer_id = ? and payment_id < ? order by customer_id, payment_id desc limit 50";
+
+        // When
+        String plan = (String) entityManager.createNativeQuery("explain " + page)
+                .setParameter(1, UUID.randomUUID())
+                .setParameter(2, Long.MAX_VALUE)
+                .getSingleResult();
+
+        // Then
+        assertThat(plan).containsIgnoringCase(Payment.CUSTOMER_HISTORY_INDEX).contains("index sorted");
+    }
+
+    @Test
+    void itShouldTotalSpendPerCustomerAndCurrencyBeforeInstant() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        save(customerId, Currency.EUR, "2020-01-01T00:00:00Z");
+        save(customerId, Currency.EUR, "2020-01-02T00:00:00Z");
+        save(customerId, Currency.GBP, "2020-01-02T00:00:00Z");
+        save(customerId, Currency.EUR, "2020-01-03T00:00:00Z");
+
+        // When
+        List<CustomerSpendTotal> totals;
+        try (Stream<CustomerSpendTotal> stream =
+                     underTest.streamCustomerSpendTotalsBefore(Instant.parse("2020-01-03T00:00:00Z"))) {
+            totals = stream.filter(total -> total.getCustomerId().equals(customerId)).collect(Collectors.toList());
+        }
+
+        // Then
+        assertThat(totals).extracting(CustomerSpendTotal::getCurrency, CustomerSpendTotal::getTotal)
+                .containsExactlyInAnyOrder(tuple(Currency.EUR, 2000L), tuple(Currency.GBP, 1000L));
+    }
+
+    private Payment save(UUID customerId, Currency currency, String createdAt) {
+        Payment payment = new Payment(null, customerId, Money.of(BigDecimal.TEN, currency), "card", "history");
+        payment.setCreatedAt(Instant.parse(createdAt));
+        return underTest.save(payment);
+    }
+}
@@ -2,6 +2,9 @@ package com.amigoscode.testing.payment;
 
 import com.amigoscode.testing.customer.Customer;
 import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.customer.PhoneNumberIndex;
+import com.amigoscode.testing.payment.sms.PaymentSmsNotifier;
+import com.amigoscode.testing.payment.velocity.PaymentVelocityLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -10,14 +13,24 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 
@@ -26,7 +39,7 @@ class PaymentServiceTest {
     private PaymentService underTest;
 
     @Mock
-    private PaymentRepository paymentRepository;
+    private PaymentWriter paymentWriter;
 
     @Mock
     private CustomerRepository customerRepository;
@@ -34,13 +47,29 @@ class PaymentServiceTest {
     @Mock
     private CardPaymentCharger cardPaymentCharger;
 
+    @Mock
+    private PhoneNumberIndex phoneNumberIndex;
+
+    @Mock
+    private PaymentSmsNotifier smsNotifier;
+
+    @Mock
+    private PaymentVelocityLimiter velocityLimiter;
+
     @Captor
     private ArgumentCaptor<Payment> paymentArgumentCaptor;
 
+    private CustomerSpendCounters spendCounters;
+
+    private PaymentMetrics metrics;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
-        underTest = new PaymentService(paymentRepository, customerRepository, cardPaymentCharger);
+        spendCounters = new CustomerSpendCounters();
+        metrics = new PaymentMetrics(60_000, 60);
+        underTest = new PaymentService(paymentWriter, customerRepository, cardPaymentCharger, phoneNumberIndex, spendCounters,
+                smsNotifier, velocityLimiter, metrics, Runnable::run);
 
     }
 
@@ -52,15 +81,15 @@ class PaymentServiceTest {
         given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
 
         // ... payment request
-        BigDecimal amount = new BigDecimal(10);
-        Payment payment = new Payment(null, null, amount, Currency.EUR, "source", "description");
+        Money amount = Money.of(new BigDecimal(10), Currency.EUR);
+        Payment payment = new Payment(null, null, amount, "source", "description");
         PaymentRequest paymentRequest = new PaymentRequest(payment);
 
         CardPaymentCharge paymentCharge = new CardPaymentCharge(true);
 
         // ... Card is charged successfully
         given(cardPaymentCharger
-                .chargeCard(payment.getSource(), payment.getAmount(), payment.getCurrency(), payment.getDescription()))
+                .chargeCard(payment.getSource(), payment.getAmount(), payment.getDescription()))
                 .willReturn(paymentCharge);
 
         // When
@@ -69,25 +98,49 @@ class PaymentServiceTest {
         // Then
         ArgumentCaptor<UUID> uuidArgumentCaptor = ArgumentCaptor.forClass(UUID.class);
 
-        then(paymentRepository).should().save(paymentArgumentCaptor.capture());
+        then(paymentWriter).should().write(paymentArgumentCaptor.capture());
         Payment paymentArgumentCaptorValue = paymentArgumentCaptor.getValue();
 
         assertThat(paymentArgumentCaptorValue.getCustomerId()).isEqualTo(customerId);
         assertThat(paymentArgumentCaptorValue).isEqualTo(payment);
+        assertThat(spendCounters.getTotals(customerId)).containsExactly(amount);
+        then(smsNotifier).should().notifyPaymentCompleted(payment);
+        for (PaymentMetrics.Phase phase : PaymentMetrics.Phase.values()) {
+            assertThat(metrics.getLatency(phase).getCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void itShouldResolveCustomerFromIndexWithoutQueryingDatabase() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        // ... customer is indexed
+        given(phoneNumberIndex.containsCustomerId(customerId)).willReturn(true);
+
+        Payment payment = new Payment(null, null, Money.of(new BigDecimal(10), Currency.EUR), "source", "description");
+        given(cardPaymentCharger
+                .chargeCard(payment.getSource(), payment.getAmount(), payment.getDescription()))
+                .willReturn(new CardPaymentCharge(true));
+
+        // When
+        underTest.chargeCard(customerId, new PaymentRequest(payment));
+
+        // Then
+        then(customerRepository).shouldHaveNoInteractions();
+        then(paymentWriter).should().write(payment);
     }
 
     @Test
     void itShouldThrowWhenCardIsNotCharged() {
         // Given
         UUID customerId = UUID.randomUUID();
-        Payment payment = new Payment(null, null, new BigDecimal(100), Currency.EUR, "source", "description");
+        Payment payment = new Payment(null, null, Money.of(new BigDecimal(100), Currency.EUR), "source", "description");
         PaymentRequest paymentRequest = new PaymentRequest(payment);
 
         given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
         given(cardPaymentCharger.chargeCard(
                 paymentRequest.getPayment().getSource(),
                 paymentRequest.getPayment().getAmount(),
-                paymentRequest.getPayment().getCurrency(),
                 paymentRequest.getPayment().getDescription())).willReturn(new CardPaymentCharge(false));
 
         // When
@@ -95,27 +148,97 @@ class PaymentServiceTest {
         assertThatThrownBy(() -> underTest.chargeCard(customerId, paymentRequest))
                 .hasMessage("The card was not debited.")
                 .isInstanceOf(IllegalStateException.class);
-        then(paymentRepository).should(never()).save(any());
+        then(paymentWriter).should(never()).write(any());
+        then(paymentWriter).should().release(1);
+        assertThat(spendCounters.getTotals(customerId)).isEmpty();
+        then(smsNotifier).shouldHaveNoInteractions();
+        assertThat(metrics.getRejections(PaymentMetrics.Rejection.CARD_NOT_DEBITED)).isEqualTo(1);
+        assertThat(metrics.getLatency(PaymentMetrics.Phase.CHARGE).getCount()).isEqualTo(1);
+        assertThat(metrics.getLatency(PaymentMetrics.Phase.PAYMENT_WRITE).getCount()).isZero();
+        assertThat(metrics.getLatency(PaymentMetrics.Phase.TOTAL).getCount()).isEqualTo(1);
     }
 
     @Test
     void itShouldNotChargeAndThrowWhenCurrencyIsNotAccepted() {
         // Given
         UUID customerId = UUID.randomUUID();
-        Payment payment = new Payment(null, null, new BigDecimal(100),
-                Currency.COP, "source", "description");
+        Payment payment = new Payment(null, null, Money.of(new BigDecimal(100), Currency.COP), "source", "description");
+        PaymentRequest paymentRequest = new PaymentRequest(payment);
+
+        given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard(customerId, paymentRequest))
+                .hasMessage(String.format("The currency [%s] is not accepted.", payment.getAmount().getCurrency()))
+                .isInstanceOf(IllegalStateException.class);
+
+        then(cardPaymentCharger).shouldHaveNoInteractions();
+        then(paymentWriter).shouldHaveNoInteractions();
+        assertThat(metrics.getRejections(PaymentMetrics.Rejection.UNSUPPORTED_CURRENCY)).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldNotChargeAndThrowWhenDescriptionIsTooLong() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Payment payment = new Payment(null, null, Money.of(new BigDecimal(100), Currency.EUR), "source", "x".repeat(256));
+        PaymentRequest paymentRequest = new PaymentRequest(payment);
+
+        given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard(customerId, paymentRequest))
+                .hasMessage("The payment description is longer than [255] characters.")
+                .isInstanceOf(IllegalStateException.class);
+
+        then(cardPaymentCharger).shouldHaveNoInteractions();
+        then(paymentWriter).shouldHaveNoInteractions();
+        assertThat(metrics.getRejections(PaymentMetrics.Rejection.INVALID_PAYMENT)).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldNotChargeAndThrowWhenPaymentWriterIsFull() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Payment payment = new Payment(null, null, Money.of(new BigDecimal(100), Currency.EUR), "source", "description");
         PaymentRequest paymentRequest = new PaymentRequest(payment);
 
         given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+        willThrow(new IllegalStateException("No write-behind capacity")).given(paymentWriter).reserve(1);
 
         // When
         // Then
         assertThatThrownBy(() -> underTest.chargeCard(customerId, paymentRequest))
-                .hasMessage(String.format("The currency [%s] is not accepted.", payment.getCurrency()))
+                .hasMessage("No write-behind capacity")
                 .isInstanceOf(IllegalStateException.class);
 
         then(cardPaymentCharger).shouldHaveNoInteractions();
-        then(paymentRepository).shouldHaveNoInteractions();
+        then(paymentWriter).should(never()).write(any());
+        assertThat(metrics.getRejections(PaymentMetrics.Rejection.WRITE_BACKLOG)).isEqualTo(1);
+        then(velocityLimiter).should().release(customerId, payment.getSource(), payment.getAmount());
+    }
+
+    @Test
+    void itShouldNotChargeAndThrowWhenVelocityLimitIsReached() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Payment payment = new Payment(null, null, Money.of(new BigDecimal(100), Currency.EUR), "source", "description");
+        PaymentRequest paymentRequest = new PaymentRequest(payment);
+
+        given(customerRepository.findById(customerId)).willReturn(Optional.of(mock(Customer.class)));
+        given(velocityLimiter.tryAcquire(customerId, payment.getSource(), payment.getAmount()))
+                .willReturn("Too many payments");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard(customerId, paymentRequest))
+                .hasMessage("Too many payments")
+                .isInstanceOf(IllegalStateException.class);
+
+        then(cardPaymentCharger).shouldHaveNoInteractions();
+        then(paymentWriter).shouldHaveNoInteractions();
     }
 
     @Test
@@ -134,7 +257,108 @@ class PaymentServiceTest {
 
         // ... no interactions with cardPaymentCharger
         then(cardPaymentCharger).shouldHaveNoInteractions();
-        // ... no interactions with paymentRepository
-        then(paymentRepository).shouldHaveNoInteractions();
+        // ... no interactions with paymentWriter
+        then(paymentWriter).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void itShouldChargeBatchAndSaveDebitedPaymentsTogether() {
+        // Given
+        UUID indexedCustomerId = UUID.randomUUID();
+        UUID customerId = UUID.randomUUID();
+        Customer customer = new Customer(customerId, "Juan", "+33600000000");
+        given(phoneNumberIndex.containsCustomerId(indexedCustomerId)).willReturn(true);
+        given(customerRepository.findAllById(Set.of(customerId))).willReturn(List.of(customer));
+
+        Payment first = new Payment(null, indexedCustomerId, Money.of(new BigDecimal(10), Currency.EUR), "first", "description");
+        Payment second = new Payment(null, customerId, Money.of(new BigDecimal(20), Currency.GBP), "second", "description");
+        given(cardPaymentCharger.chargeCard(any(), any(), any())).willReturn(new CardPaymentCharge(true));
+
+        // When
+        BatchChargeResult result = underTest.chargeCards(List.of(first, second));
+
+        // Then
+        assertThat(result.getCharged()).isEqualTo(2);
+        assertThat(result.getFailed()).isZero();
+        assertThat(result.getItems()).extracting(BatchChargeItemResult::isCharged).containsExactly(true, true);
+        then(customerRepository).should().findAllById(Set.of(customerId));
+        then(customerRepository).shouldHaveNoMoreInteractions();
+        then(paymentWriter).should().reserve(2);
+        then(paymentWriter).should().writeAll(List.of(first, second));
+        then(paymentWriter).shouldHaveNoMoreInteractions();
+        assertThat(spendCounters.getTotals(indexedCustomerId)).containsExactly(first.getAmount());
+        assertThat(spendCounters.getTotals(customerId)).containsExactly(second.getAmount());
+        then(smsNotifier).should().notifyPaymentCompleted(first);
+        then(smsNotifier).should().notifyPaymentCompleted(second);
+    }
+
+    @Test
+    void itShouldReportPerItemFailuresWithoutFailingTheBatch() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        UUID unknownCustomerId = UUID.randomUUID();
+        given(phoneNumberIndex.containsCustomerId(customerId)).willReturn(true);
+        given(customerRepository.findAllById(anyIterable())).willReturn(List.of());
+
+        Payment unknownCustomer = new Payment(null, unknownCustomerId, Money.of(new BigDecimal(10), Currency.EUR), "unknown", "description");
+        Payment rejectedCurrency = new Payment(null, customerId, Money.of(new BigDecimal(10), Currency.COP), "currency", "description");
+        Payment declined = new Payment(null, customerId, Money.of(new BigDecimal(10), Currency.EUR), "declined", "description");
+        Payment failing = new Payment(null, customerId, Money.of(new BigDecimal(10), Currency.EUR), "failing", "description");
+        Payment debited = new Payment(null, customerId, Money.of(new BigDecimal(10), Currency.EUR), "debited", "description");
+
+        given(cardPaymentCharger.chargeCard(eq("declined"), any(), any())).willReturn(new CardPaymentCharge(false));
+        given(cardPaymentCharger.chargeCard(eq("failing"), any(), any())).willThrow(new IllegalStateException("timeout"));
+        given(cardPaymentCharger.chargeCard(eq("debited"), any(), any())).willReturn(new CardPaymentCharge(true));
+
+        // When
+        BatchChargeResult result = underTest.chargeCards(List.of(unknownCustomer, rejectedCurrency, declined, failing, debited));
+
+        // Then
+        assertThat(result.getCharged()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getItems()).extracting(BatchChargeItemResult::getMessage).containsExactly(
+                String.format("Customer does not exist for id [%s]", unknownCustomerId),
+                "The currency [COP] is not accepted.",
+                "The card was not debited.",
+                "The card charge failed [timeout].",
+                null);
+        then(cardPaymentCharger).should(never()).chargeCard(eq("unknown"), any(), any());
+        then(cardPaymentCharger).should(never()).chargeCard(eq("currency"), any(), any());
+        then(paymentWriter).should().reserve(3);
+        then(paymentWriter).should().release(2);
+        then(paymentWriter).should().writeAll(List.of(debited));
+        then(smsNotifier).should().notifyPaymentCompleted(debited);
+        then(smsNotifier).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void itShouldRunBatchChargesConcurrently() throws InterruptedException {
+        // Given
+        int charges = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(charges);
+        underTest = new PaymentService(paymentWriter, customerRepository, cardPaymentCharger, phoneNumberIndex, spendCounters,
+                smsNotifier, velocityLimiter, metrics, executor);
+
+        UUID customerId = UUID.randomUUID();
+        given(phoneNumberIndex.containsCustomerId(customerId)).willReturn(true);
+
+        // ... every charge waits until all of them have started
+        CountDownLatch started = new CountDownLatch(charges);
+        given(cardPaymentCharger.chargeCard(any(), any(), any())).willAnswer(invocation -> {
+            started.countDown();
+            return new CardPaymentCharge(started.await(5, TimeUnit.SECONDS));
+        });
+
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < charges; i++) {
+            payments.add(new Payment(null, customerId, Money.of(new BigDecimal(10), Currency.EUR), "source", "description"));
+        }
+
+        // When
+        BatchChargeResult result = underTest.chargeCards(payments);
+        executor.shutdown();
+
+        // Then
+        assertThat(result.getCharged()).isEqualTo(charges);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package com.amigoscode.testing.payment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not transactional: the flusher writes on its own connection and its rows must be visible to the test.
+@DataJpaTest(properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WriteBehindPaymentWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private PaymentIdAllocator idAllocator;
+
+    private WriteBehindPaymentWriter underTest;
+
+    @BeforeEach
+    void setUp() {
+        idAllocator = new PaymentIdAllocator(jdbcTemplate);
+        underTest = newWriter(PaymentJournal.Sync.ALWAYS);
+        underTest.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        underTest.stop();
+        paymentRepository.deleteAll();
+    }
+
+    @Test
+    void itShouldWritePaymentsInBatchesUnderAllocatedIds() {
+        // Given
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            payments.add(payment(null));
+        }
+
+        // When
+        underTest.reserve(payments.size());
+        payments.forEach(underTest::write);
+        underTest.flush();
+
+        // Then
+        assertThat(payments).extracting(Payment::getPaymentId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(paymentRepository.count()).isEqualTo(25);
+        assertThat(paymentRepository.findById(payments.get(0).getPaymentId()))
+                .hasValueSatisfying(p -> assertThat(p).isEqualTo(payments.get(0)));
+    }
+
+    @Test
+    void itShouldReplaceClientSuppliedId() {
+        // Given
+        Payment payment = payment(1L);
+
+        // When
+        underTest.reserve(1);
+        underTest.writeAll(List.of(payment));
+        underTest.flush();
+
+        // Then
+        assertThat(paymentRepository.findById(payment.getPaymentId())).isPresent();
+    }
+
+    @Test
+    void itShouldDeadLetterRowsTheDatabaseRefusesAndWriteTheRest() throws Exception {
+        // Given
+        Payment refused = payment(null);
+        refused.setDescription("x".repeat(301));
+        Payment valid = payment(null);
+
+        // When
+        underTest.reserve(2);
+        underTest.writeAll(List.of(refused, valid));
+        underTest.flush();
+
+        // Then
+        assertThat(paymentRepository.findById(valid.getPaymentId())).isPresent();
+        assertThat(paymentRepository.findById(refused.getPaymentId())).isEmpty();
+        List<String> deadLetters = Files.readAllLines(directory.resolve(PaymentJournal.DEAD_LETTER_FILE));
+        assertThat(deadLetters).hasSize(1);
+        assertThat(deadLetters.get(0))
+                .contains("\"paymentId\":" + refused.getPaymentId())
+                .contains("Value too long");
+    }
+
+    @Test
+    void itShouldRefuseReservationWhenQueueIsFull() {
+        // Given
+        underTest.reserve(100);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.reserve(1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("No write-behind capacity for [1] payments, the database is not keeping up.");
+        underTest.release(100);
+        underTest.reserve(1);
+        underTest.release(1);
+    }
+
+    @Test
+    void itShouldWriteJournaledPaymentsOnNextStart() throws InterruptedException {
+        // Given
+        underTest.stop();
+        PaymentJournal journal = new PaymentJournal(directory, PaymentJournal.Sync.ALWAYS, 1 << 20);
+        Payment unflushed = payment(idAllocator.nextId());
+        unflushed.setCustomerId(UUID.randomUUID());
+        journal.awaitDurable(journal.append(unflushed));
+        journal.close(0);
+
+        // When
+        underTest = newWriter(PaymentJournal.Sync.ALWAYS);
+        underTest.start();
+
+        // Then
+        assertThat(paymentRepository.findById(unflushed.getPaymentId()))
+                .hasValueSatisfying(p -> assertThat(p).isEqualTo(unflushed));
+    }
+
+    @Test
+    void itShouldNotAllocateIdsHibernateHandsOut() {
+        // Given
+        Set<Long> ids = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            ids.add(paymentRepository.save(payment(null)).getPaymentId());
+            for (int j = 0; j < 60; j++) {
+                ids.add(idAllocator.nextId());
+            }
+        }
+        ids.add(paymentRepository.save(payment(null)).getPaymentId());
+
+        // Then
+        assertThat(ids).hasSize(184);
+        assertThat(ids).allMatch(id -> id > 0);
+    }
+
+    private WriteBehindPaymentWriter newWriter(PaymentJournal.Sync sync) {
+        return new WriteBehindPaymentWriter(jdbcTemplate, idAllocator,
+                new PaymentJournal(directory, sync, 1 << 20), 10, 20, 100, 50);
+    }
+
+    private static Payment payment(Long paymentId) {
+        return new Payment(paymentId, UUID.randomUUID(), Money.of(new BigDecimal("10.00"), Currency.EUR), "card", "write-behind");
+    }
+}
@@ -0,0 +1,134 @@
+package com.amigoscode.testing.payment.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class CircuitBreakerTest {
+
+    private Clock clock;
+
+    private CircuitBreaker underTest;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        given(clock.millis()).willReturn(0L);
+        // window of 10 calls, opens from 4 calls at 50% failures or 80% slow calls (>= 1000 ms), 2 trial calls
+        underTest = new CircuitBreaker(new CardPaymentChargerResilienceConfig(
+                4, 2000, 10, 4, 50, 1000, 80, 30000, 2), clock);
+    }
+
+    @Test
+    void itShouldStayClosedBelowMinimumCalls() {
+        // Given
+        // When
+        for (int i = 0; i < 3; i++) {
+            underTest.onResult(true, 10);
+        }
+
+        // Then
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(underTest.getFailureRate()).isEqualTo(100f);
+        assertThat(underTest.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void itShouldOpenWhenFailureRateReachesThreshold() {
+        // Given
+        underTest.onResult(false, 10);
+        underTest.onResult(false, 10);
+        underTest.onResult(true, 10);
+
+        // When
+        underTest.onResult(true, 10);
+
+        // Then
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(underTest.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void itShouldOpenWhenSlowCallRateReachesThreshold() {
+        // Given
+        // When
+        for (int i = 0; i < 4; i++) {
+            underTest.onResult(false, 1500);
+        }
+
+        // Then
+        assertThat(underTest.getSlowCallRate()).isEqualTo(100f);
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void itShouldOnlyCountTheLastWindowOfCalls() {
+        // Given
+        underTest = new CircuitBreaker(new CardPaymentChargerResilienceConfig(
+                4, 2000, 4, 4, 75, 1000, 80, 30000, 2), clock);
+        for (int i = 0; i < 2; i++) {
+            underTest.onResult(true, 10);
+        }
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            underTest.onResult(false, 10);
+        }
+
+        // Then
+        assertThat(underTest.getBufferedCalls()).isEqualTo(4);
+        assertThat(underTest.getFailureRate()).isZero();
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void itShouldLetTrialCallsThroughAfterOpenDurationAndCloseWhenTheySucceed() {
+        // Given
+        openCircuit();
+        given(clock.millis()).willReturn(30000L);
+
+        // When
+        boolean first = underTest.tryAcquirePermission();
+        boolean second = underTest.tryAcquirePermission();
+        boolean third = underTest.tryAcquirePermission();
+        underTest.onResult(false, 10);
+        underTest.onResult(false, 10);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(underTest.getBufferedCalls()).isZero();
+    }
+
+    @Test
+    void itShouldReopenWhenTrialCallFails() {
+        // Given
+        openCircuit();
+        given(clock.millis()).willReturn(30000L);
+        underTest.tryAcquirePermission();
+
+        // When
+        underTest.onResult(true, 10);
+
+        // Then
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        given(clock.millis()).willReturn(59999L);
+        assertThat(underTest.tryAcquirePermission()).isFalse();
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            underTest.onResult(true, 10);
+        }
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
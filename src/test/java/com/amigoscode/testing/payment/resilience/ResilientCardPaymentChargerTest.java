@@ -0,0 +1,152 @@
+package com.amigoscode.testing.payment.resilience;
+
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.CardPaymentCharger;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+class ResilientCardPaymentChargerTest {
+
+    @Mock
+    private CardPaymentCharger delegate;
+
+    private CardPaymentChargerResilienceConfig config;
+
+    private ResilientCardPaymentCharger underTest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        // 1 concurrent call, 200 ms deadline, opens after 2 calls at 50% failures
+        config = new CardPaymentChargerResilienceConfig(1, 200, 2, 2, 50, 1000, 100, 60000, 1);
+        underTest = new ResilientCardPaymentCharger("charger", delegate, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    void itShouldReturnDelegateCharge() {
+        // Given
+        given(delegate.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description")).willReturn(new CardPaymentCharge(true));
+
+        // When
+        CardPaymentCharge charge = underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description");
+
+        // Then
+        assertThat(charge.isCardDebited()).isTrue();
+        assertThat(underTest.getStats().getSuccessfulCalls()).isEqualTo(1);
+        assertThat(underTest.getStats().getAvailableConcurrentCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldFailCallThatMissesItsDeadline() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        given(delegate.chargeCard(any(), any(), any())).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new CardPaymentCharge(true);
+        });
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description"))
+                .hasMessage("The card charger [charger] did not answer within [200] ms.")
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(underTest.getStats().getTimedOutCalls()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void itShouldReturnPermitOfCallThatTimesOutWhileQueued() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+        underTest.shutdown();
+        underTest = new ResilientCardPaymentCharger("charger", delegate, config, new CircuitBreaker(config),
+                Clock.systemUTC(), executor);
+
+        // When
+        assertThatThrownBy(() -> underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description"))
+                .hasMessage("The card charger [charger] did not answer within [200] ms.");
+        release.countDown();
+
+        // Then
+        assertThat(underTest.getStats().getAvailableConcurrentCalls()).isEqualTo(1);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void itShouldRejectCallsBeyondTheBulkheadWhileDelegateIsBusy() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        underTest.shutdown();
+        underTest = new ResilientCardPaymentCharger("charger", delegate,
+                new CardPaymentChargerResilienceConfig(1, 5000, 2, 2, 50, 5000, 100, 60000, 1));
+        given(delegate.chargeCard(any(), any(), any())).willAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new CardPaymentCharge(true);
+        });
+        CompletableFuture<CardPaymentCharge> busy = CompletableFuture.supplyAsync(
+                () -> underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description"))
+                .hasMessage("The card charger [charger] is busy with [1] concurrent calls.")
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(underTest.getStats().getBulkheadRejectedCalls()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS).isCardDebited()).isTrue();
+    }
+
+    @Test
+    void itShouldFailFastOnceCircuitIsOpen() {
+        // Given
+        given(delegate.chargeCard(any(), any(), any())).willThrow(new IllegalStateException("Cannot make Stripe charge"));
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description"))
+                    .hasMessage("Cannot make Stripe charge");
+        }
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("source", Money.of(BigDecimal.TEN, Currency.EUR), "description"))
+                .hasMessage("The card charger [charger] is unavailable, its circuit is open.")
+                .isInstanceOf(IllegalStateException.class);
+        then(delegate).should(times(2)).chargeCard(any(), any(), any());
+        CardPaymentChargerStats stats = underTest.getStats();
+        assertThat(stats.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(stats.getFailedCalls()).isEqualTo(2);
+        assertThat(stats.getCircuitRejectedCalls()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,241 @@
+package com.amigoscode.testing.payment.sms;
+
+import com.amigoscode.testing.customer.Customer;
+import com.amigoscode.testing.customer.CustomerRepository;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.Payment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+class PaymentSmsNotifierTest {
+
+    private PaymentSmsNotifier underTest;
+
+    @Mock
+    private SmsSender smsSender;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PendingPaymentSmsRepository pendingRepository;
+
+    @Captor
+    private ArgumentCaptor<List<SmsMessage>> messagesArgumentCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<PendingPaymentSms>> pendingArgumentCaptor;
+
+    private final Customer customer = new Customer(UUID.randomUUID(), "Juan", "+33600000000");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        underTest = notifier(10);
+        given(customerRepository.findAllById(anyIterable())).willReturn(List.of(customer));
+    }
+
+    @Test
+    void itShouldSendBatchToCustomerPhoneNumbers() {
+        // Given
+        List<PaymentSmsNotification> notifications = List.of(notification(1L), notification(2L));
+
+        // When
+        boolean delivered = underTest.deliver(notifications);
+
+        // Then
+        assertThat(delivered).isTrue();
+        then(smsSender).should().send(messagesArgumentCaptor.capture());
+        assertThat(messagesArgumentCaptor.getValue()).containsExactly(
+                new SmsMessage("+33600000000", "Your payment [1] of 10.00 EUR was received."),
+                new SmsMessage("+33600000000", "Your payment [2] of 10.00 EUR was received."));
+        assertThat(underTest.getStats().getSent()).isEqualTo(2);
+        assertThat(underTest.getStats().getBatches()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRetryUntilSent() {
+        // Given
+        willThrow(new IllegalStateException("unavailable"))
+                .willThrow(new IllegalStateException("unavailable"))
+                .willDoNothing()
+                .given(smsSender).send(any());
+
+        // When
+        boolean delivered = underTest.deliver(List.of(notification(1L)));
+
+        // Then
+        assertThat(delivered).isTrue();
+        then(smsSender).should(times(3)).send(any());
+        assertThat(underTest.getStats().getRetries()).isEqualTo(2);
+        assertThat(underTest.getStats().getSent()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldGiveUpAfterMaxAttempts() {
+        // Given
+        willThrow(new IllegalStateException("unavailable")).given(smsSender).send(any());
+
+        // When
+        boolean delivered = underTest.deliver(List.of(notification(1L)));
+
+        // Then
+        assertThat(delivered).isFalse();
+        then(smsSender).should(times(3)).send(any());
+        assertThat(underTest.getStats().getSent()).isZero();
+    }
+
+    @Test
+    void itShouldDropNotificationWhenCustomerDoesNotExist() {
+        // Given
+        given(customerRepository.findAllById(anyIterable())).willReturn(List.of());
+
+        // When
+        boolean delivered = underTest.deliver(List.of(notification(1L)));
+
+        // Then
+        assertThat(delivered).isTrue();
+        then(smsSender).shouldHaveNoInteractions();
+        assertThat(underTest.getStats().getUndeliverable()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldHandNotificationsThatDoNotFitInQueueToSpiller() {
+        // Given
+        underTest = notifier(1);
+
+        // When
+        underTest.notifyPaymentCompleted(payment(1L));
+        underTest.notifyPaymentCompleted(payment(2L));
+
+        // Then
+        then(pendingRepository).shouldHaveNoInteractions();
+        underTest.spillOverflow();
+        then(pendingRepository).should().saveAll(pendingArgumentCaptor.capture());
+        assertThat(pendingArgumentCaptor.getValue()).hasSize(1);
+        assertThat(pendingArgumentCaptor.getValue().get(0).toNotification().getPaymentId()).isEqualTo(2L);
+        assertThat(underTest.getStats().getQueued()).isEqualTo(1);
+        assertThat(underTest.getStats().getSpilled()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldDropNotificationWhenOverflowIsFull() {
+        // Given
+        underTest = notifier(1);
+        underTest.notifyPaymentCompleted(payment(1L));
+        underTest.notifyPaymentCompleted(payment(2L));
+
+        // When
+        underTest.notifyPaymentCompleted(payment(3L));
+
+        // Then
+        then(pendingRepository).shouldHaveNoInteractions();
+        assertThat(underTest.getStats().getUndeliverable()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRedeliverPendingAndDeleteThem() {
+        // Given
+        List<PendingPaymentSms> pending = List.of(new PendingPaymentSms(notification(1L)));
+        given(pendingRepository.findAllByOrderByIdAsc(any())).willReturn(pending).willReturn(List.of());
+
+        // When
+        underTest.redeliverPending();
+
+        // Then
+        then(smsSender).should().send(any());
+        then(pendingRepository).should().deleteAll(pending);
+        assertThat(underTest.getStats().getRedelivered()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldKeepPendingWhenRedeliveryFails() {
+        // Given
+        willThrow(new IllegalStateException("unavailable")).given(smsSender).send(any());
+        given(pendingRepository.findAllByOrderByIdAsc(any())).willReturn(List.of(new PendingPaymentSms(notification(1L))));
+
+        // When
+        underTest.redeliverPending();
+
+        // Then
+        then(pendingRepository).should(never()).deleteAll(any());
+        assertThat(underTest.getStats().getRedelivered()).isZero();
+    }
+
+    @Test
+    void itShouldNotWaitForSmsToBeSent() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sent = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            sent.countDown();
+            return null;
+        }).given(smsSender).send(any());
+        underTest.start();
+
+        // When
+        long start = System.nanoTime();
+        underTest.notifyPaymentCompleted(payment(1L));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertThat(elapsedMillis).isLessThan(1000);
+        release.countDown();
+        assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+        underTest.stop();
+    }
+
+    @Test
+    void itShouldSpillQueuedNotificationsOnStop() throws InterruptedException {
+        // Given
+        underTest.notifyPaymentCompleted(payment(1L));
+        underTest.notifyPaymentCompleted(payment(2L));
+
+        // When
+        underTest.stop();
+
+        // Then
+        then(pendingRepository).should().saveAll(pendingArgumentCaptor.capture());
+        assertThat(pendingArgumentCaptor.getValue()).hasSize(2);
+        then(smsSender).shouldHaveNoInteractions();
+    }
+
+    private PaymentSmsNotifier notifier(int queueCapacity) {
+        return new PaymentSmsNotifier(smsSender, customerRepository, pendingRepository, queueCapacity, 1, 10, 3,
+                0, 0, 10, Clock.systemUTC());
+    }
+
+    private Payment payment(Long paymentId) {
+        return new Payment(paymentId, customer.getId(), Money.of(new BigDecimal("10.00"), Currency.EUR),
+                "source", "description");
+    }
+
+    private PaymentSmsNotification notification(Long paymentId) {
+        return new PaymentSmsNotification(paymentId, customer.getId(), Money.of(new BigDecimal("10.00"), Currency.EUR),
+                Instant.now());
+    }
+}
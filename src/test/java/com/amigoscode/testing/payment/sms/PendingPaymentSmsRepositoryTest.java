@@ -0,0 +1,46 @@
+package com.amigoscode.testing.payment.sms;
+
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(
+        properties = {"spring.jpa.properties.javax.persistence.validation.mode=none"}
+)
+class PendingPaymentSmsRepositoryTest {
+
+    @Autowired
+    private PendingPaymentSmsRepository underTest;
+
+    @Test
+    void itShouldFindPendingOldestFirst() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        Instant enqueuedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        for (long paymentId = 1; paymentId <= 3; paymentId++) {
+            underTest.save(new PendingPaymentSms(new PaymentSmsNotification(paymentId, customerId,
+                    Money.of(new BigDecimal("10.50"), Currency.GBP), enqueuedAt)));
+        }
+
+        // When
+        List<PendingPaymentSms> pending = underTest.findAllByOrderByIdAsc(PageRequest.of(0, 2));
+
+        // Then
+        assertThat(pending).extracting(p -> p.toNotification().getPaymentId()).containsExactly(1L, 2L);
+        PaymentSmsNotification notification = pending.get(0).toNotification();
+        assertThat(notification.getCustomerId()).isEqualTo(customerId);
+        assertThat(notification.getAmount()).isEqualTo(Money.of(new BigDecimal("10.50"), Currency.GBP));
+        assertThat(notification.getEnqueuedAt()).isEqualTo(enqueuedAt);
+    }
+}
@@ -0,0 +1,146 @@
+package com.amigoscode.testing.payment.stripe;
+
+import com.amigoscode.testing.payment.CardPaymentCharge;
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import com.amigoscode.testing.payment.stripe.MockStripeService.Latency;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class MockStripeServiceTest {
+
+    private final Money amount = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+    @Test
+    void itShouldChargeCardWithDefaultSettings() {
+        // Given
+        MockStripeService underTest = new MockStripeService(Latency.FIXED, 0, 0, 0, 0, 0, 0, null, Clock.systemUTC());
+
+        // When
+        CardPaymentCharge charge = underTest.chargeCard("0x0x0x", amount, "Test");
+
+        // Then
+        assertThat(charge.isCardDebited()).isTrue();
+    }
+
+    @Test
+    void itShouldDeclineChargesAtDeclineRate() {
+        // Given
+        MockStripeService underTest = new MockStripeService(Latency.FIXED, 0, 0, 0, 1, 0, 0, null, Clock.systemUTC());
+
+        // When
+        CardPaymentCharge charge = underTest.chargeCard("0x0x0x", amount, "Test");
+
+        // Then
+        assertThat(charge.isCardDebited()).isFalse();
+    }
+
+    @Test
+    void itShouldFailChargesAtFailureRate() {
+        // Given
+        MockStripeService underTest = new MockStripeService(Latency.FIXED, 0, 0, 1, 0, 0, 0, null, Clock.systemUTC());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("0x0x0x", amount, "Test"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Cannot make Stripe charge")
+                .hasCauseInstanceOf(ApiException.class);
+    }
+
+    @Test
+    void itShouldThrottleChargesAtThrottleRate() {
+        // Given
+        MockStripeService underTest = new MockStripeService(Latency.FIXED, 0, 0, 0, 0, 1, 0, null, Clock.systemUTC());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("0x0x0x", amount, "Test"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void itShouldThrottleChargesAboveMaxRequestsPerSecond() {
+        // Given
+        Clock clock = mock(Clock.class);
+        given(clock.millis()).willReturn(1_000L, 1_500L, 1_999L, 2_000L);
+        MockStripeService underTest = new MockStripeService(Latency.FIXED, 0, 0, 0, 0, 0, 2, null, clock);
+
+        // When
+        underTest.chargeCard("0x0x0x", amount, "Test");
+        underTest.chargeCard("0x0x0x", amount, "Test");
+
+        // Then
+        assertThatThrownBy(() -> underTest.chargeCard("0x0x0x", amount, "Test"))
+                .hasCauseInstanceOf(RateLimitException.class);
+        assertThat(underTest.chargeCard("0x0x0x", amount, "Test").isCardDebited()).isTrue();
+    }
+
+    @Test
+    void itShouldRepeatOutcomesForTheSameSeed() {
+        // Given
+        MockStripeService first = new MockStripeService(Latency.FIXED, 0, 0, 0, 0.5, 0, 0, 42L, Clock.systemUTC());
+        MockStripeService second = new MockStripeService(Latency.FIXED, 0, 0, 0, 0.5, 0, 0, 42L, Clock.systemUTC());
+
+        // When
+        List<Boolean> firstOutcomes = new ArrayList<>();
+        List<Boolean> secondOutcomes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            firstOutcomes.add(first.chargeCard("0x0x0x", amount, "Test").isCardDebited());
+            secondOutcomes.add(second.chargeCard("0x0x0x", amount, "Test").isCardDebited());
+        }
+
+        // Then
+        assertThat(firstOutcomes).isEqualTo(secondOutcomes).contains(true, false);
+    }
+
+    @Test
+    void itShouldDrawLongTailLatencyAroundMedianAndP99() {
+        // Given
+        MockStripeService underTest = new MockStripeService(Latency.LONG_TAIL, 10, 100, 0, 0, 0, 0, 7L, Clock.systemUTC());
+
+        // When
+        long[] latencies = LongStream.generate(underTest::nextLatencyMillis).limit(20_000).sorted().toArray();
+
+        // Then
+        assertThat(latencies[latencies.length / 2]).isBetween(9L, 11L);
+        assertThat(latencies[latencies.length * 99 / 100]).isBetween(85L, 115L);
+        assertThat(latencies[latencies.length - 1]).isGreaterThan(100L);
+    }
+
+    @Test
+    void itShouldDrawNormalLatencyAroundMean() {
+        // Given
+        MockStripeService underTest = new MockStripeService(Latency.NORMAL, 50, 70, 0, 0, 0, 0, 7L, Clock.systemUTC());
+
+        // When
+        long[] latencies = LongStream.generate(underTest::nextLatencyMillis).limit(20_000).toArray();
+
+        // Then
+        assertThat(Arrays.stream(latencies).average().getAsDouble()).isBetween(49.0, 51.0);
+        assertThat(Arrays.stream(latencies).min().getAsLong()).isGreaterThanOrEqualTo(0L);
+    }
+
+    @Test
+    void itShouldNotAcceptRateAboveOne() {
+        // When
+        // Then
+        assertThatThrownBy(() -> new MockStripeService(Latency.FIXED, 0, 0, 1.5, 0, 0, 0, null, Clock.systemUTC()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("failureRate=1.5");
+    }
+}
@@ -0,0 +1,135 @@
+package com.amigoscode.testing.payment.stripe;
+
+import com.amigoscode.testing.payment.Currency;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.CardException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.model.Charge;
+import com.stripe.net.RequestOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripeApiTest {
+
+    private StripeStubServer stubServer;
+
+    private StripeApi underTest;
+
+    private RequestOptions requestOptions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubServer = new StripeStubServer(0, 8, 5);
+        underTest = new StripeApi(stubServer.getApiBase(), 2, 1000, 1000, 0);
+        requestOptions = underTest.requestOptions().setApiKey("sk_test_stub").build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.close();
+    }
+
+    @Test
+    void itShouldCreateChargeOverHttp() throws Exception {
+        // Given
+        Map<String, Object> params = params("tok_visa");
+
+        // When
+        Charge charge = underTest.create(params, requestOptions);
+
+        // Then
+        assertThat(charge.getPaid()).isTrue();
+        assertThat(charge.getAmount()).isEqualTo(1050L);
+        assertThat(charge.getCurrency()).isEqualTo("eur");
+        assertThat(charge.getDescription()).isEqualTo("Test & more");
+        assertThat(stubServer.getChargeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldThrowWhenCardIsDeclined() {
+        // Given
+        Map<String, Object> params = params(StripeStubServer.DECLINED_SOURCE);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.create(params, requestOptions))
+                .isInstanceOfSatisfying(CardException.class, e -> {
+                    assertThat(e.getCode()).isEqualTo("card_declined");
+                    assertThat(e.getDeclineCode()).isEqualTo("generic_decline");
+                    assertThat(e.getStatusCode()).isEqualTo(402);
+                });
+    }
+
+    @Test
+    void itShouldThrowWhenRequiredParamIsMissing() {
+        // Given
+        Map<String, Object> params = params("tok_visa");
+        params.remove("source");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.create(params, requestOptions))
+                .isInstanceOfSatisfying(InvalidRequestException.class,
+                        e -> assertThat(e.getParam()).isEqualTo("source"));
+    }
+
+    @Test
+    void itShouldChargeConcurrentlyThroughBoundedPool() throws Exception {
+        // Given
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<Charge>> charges = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 40; i++) {
+                charges.add(callers.submit(() -> underTest.create(params("tok_visa"), requestOptions)));
+            }
+            for (Future<Charge> charge : charges) {
+                assertThat(charge.get().getPaid()).isTrue();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // Then
+        assertThat(stubServer.getChargeCount()).isEqualTo(40);
+    }
+
+    @Test
+    void itShouldThrowWhenServerIsUnreachable() throws IOException {
+        // Given
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        StripeApi unreachable = new StripeApi("http://localhost:" + closedPort, 2, 1000, 1000, 0);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> unreachable.create(params("tok_visa"), requestOptions))
+                .isInstanceOf(ApiConnectionException.class);
+    }
+
+    private static Map<String, Object> params(String source) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("amount", 1050L);
+        params.put("currency", Currency.EUR);
+        params.put("source", source);
+        params.put("description", "Test & more");
+        return params;
+    }
+}
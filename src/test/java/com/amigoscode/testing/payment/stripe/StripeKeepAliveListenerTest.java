@@ -0,0 +1,48 @@
+package com.amigoscode.testing.payment.stripe;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripeKeepAliveListenerTest {
+
+    private String launchValue;
+
+    @BeforeEach
+    void setUp() {
+        launchValue = System.clearProperty(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (launchValue == null) {
+            System.clearProperty(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY);
+        } else {
+            System.setProperty(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY, launchValue);
+        }
+    }
+
+    @Test
+    void itShouldSizeKeepAliveCacheToStripePool() {
+        // When
+        StripeKeepAliveListener.sizeKeepAliveCache(new MockEnvironment().withProperty("stripe.http.max-connections", "32"));
+
+        // Then
+        assertThat(System.getProperty(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY)).isEqualTo("32");
+    }
+
+    @Test
+    void itShouldKeepValueGivenAtLaunch() {
+        // Given
+        System.setProperty(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY, "64");
+
+        // When
+        StripeKeepAliveListener.sizeKeepAliveCache(new MockEnvironment().withProperty("stripe.http.max-connections", "32"));
+
+        // Then
+        assertThat(System.getProperty(StripeKeepAliveListener.MAX_CONNECTIONS_PROPERTY)).isEqualTo("64");
+    }
+}
@@ -2,20 +2,26 @@ package com.amigoscode.testing.payment.stripe;
 
 import com.amigoscode.testing.payment.CardPaymentCharge;
 import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
+import com.stripe.net.RequestOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 
@@ -26,9 +32,13 @@ class StripeServiceTest {
     @Mock
     private StripeApi stripeApi;
 
+    @Captor
+    private ArgumentCaptor<Map<String, Object>> paramsArgumentCaptor;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        given(stripeApi.requestOptions()).willReturn(RequestOptions.builder());
         underTest = new StripeService(stripeApi);
     }
 
@@ -36,8 +46,7 @@ class StripeServiceTest {
     void itShouldChargeCard() throws StripeException {
         // Given
         String cardSource = "0x0x0x";
-        BigDecimal amount = new BigDecimal(100);
-        Currency currency = Currency.EUR;
+        Money amount = Money.of(new BigDecimal(100), Currency.EUR);
         String description = "Test";
 
         Charge charge = new Charge();
@@ -48,19 +57,39 @@ class StripeServiceTest {
         // When
         CardPaymentCharge cardPaymentCharge = underTest.chargeCard(cardSource,
                 amount,
-                currency,
                 description);
 
         // Then
         assertThat(cardPaymentCharge.isCardDebited()).isTrue();
     }
 
+    @Test
+    void itShouldSendAmountInMinorUnits() throws StripeException {
+        // Given
+        Money amount = Money.of(new BigDecimal("10.50"), Currency.EUR);
+
+        Charge charge = new Charge();
+        charge.setPaid(true);
+
+        given(stripeApi.create(anyMap(), any())).willReturn(charge);
+
+        // When
+        underTest.chargeCard("0x0x0x", amount, "Test");
+
+        // Then
+        then(stripeApi).should().create(paramsArgumentCaptor.capture(), any());
+        assertThat(paramsArgumentCaptor.getValue())
+                .containsEntry("amount", 1050L)
+                .containsEntry("currency", Currency.EUR)
+                .containsEntry("source", "0x0x0x")
+                .containsEntry("description", "Test");
+    }
+
     @Test
     void itShouldThrowWhenStripApiIsCalled() throws StripeException {
         // Given
         String cardSource = "0x0x0x";
-        BigDecimal amount = new BigDecimal(100);
-        Currency currency = Currency.EUR;
+        Money amount = Money.of(new BigDecimal(100), Currency.EUR);
         String description = "Test";
 
         // Throw exception when stripe api is called
@@ -69,7 +98,7 @@ class StripeServiceTest {
 
         // When
         // Then
-        assertThatThrownBy(() -> underTest.chargeCard(cardSource, amount, currency, description))
+        assertThatThrownBy(() -> underTest.chargeCard(cardSource, amount, description))
                 .isInstanceOf(IllegalStateException.class)
                 .hasRootCause(stripeException)
                 .hasMessageContaining("Cannot make Stripe charge");
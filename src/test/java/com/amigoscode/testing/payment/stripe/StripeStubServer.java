@@ -0,0 +1,186 @@
+package com.amigoscode.testing.payment.stripe;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded server answering {@code POST /v1/charges} the way Stripe does, for tests and benchmarks of the real HTTP
+ * path without network access. Point {@code stripe.api-base} at {@link #getApiBase()}. Like Stripe's test mode it
+ * needs a bearer key, rejects charges without an amount, currency or source, and declines the
+ * {@code tok_chargeDeclined} source; every other charge is paid after {@code latencyMillis}.
+ */
+public class StripeStubServer implements AutoCloseable {
+
+    public static final String DECLINED_SOURCE = "tok_chargeDeclined";
+
+    static {
+        // Without TCP_NODELAY the response body waits for the client to acknowledge the headers, ~40 ms per charge
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final long latencyMillis;
+
+    private final AtomicLong charges = new AtomicLong();
+
+    public StripeStubServer(int port, int threads, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "stripe-stub-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        server.setExecutor(executor);
+        server.createContext("/v1/charges", this::handleCharge);
+        server.start();
+    }
+
+    public String getApiBase() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public long getChargeCount() {
+        return charges.get();
+    }
+
+    private void handleCharge(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respondError(exchange, 405, error("invalid_request_error", null, null,
+                        "Unrecognized request URL (" + exchange.getRequestMethod() + ": /v1/charges)."));
+                return;
+            }
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer sk_")) {
+                respondError(exchange, 401, error("authentication_error", null, null, "Invalid API Key provided."));
+                return;
+            }
+
+            Map<String, String> params = readForm(exchange.getRequestBody());
+            for (String required : new String[]{"amount", "currency", "source"}) {
+                if (params.get(required) == null) {
+                    respondError(exchange, 400, error("invalid_request_error", null, required,
+                            "Missing required param: " + required + "."));
+                    return;
+                }
+            }
+            long amount;
+            try {
+                amount = Long.parseLong(params.get("amount"));
+            } catch (NumberFormatException e) {
+                amount = -1;
+            }
+            if (amount < 1) {
+                respondError(exchange, 400, error("invalid_request_error", null, "amount", "Invalid positive integer"));
+                return;
+            }
+
+            sleep();
+            long number = charges.incrementAndGet();
+            exchange.getResponseHeaders().set("Request-Id", "req_stub_" + number);
+            if (DECLINED_SOURCE.equals(params.get("source"))) {
+                Map<String, Object> error = error("card_error", "card_declined", null, "Your card was declined.");
+                error.put("decline_code", "generic_decline");
+                respondError(exchange, 402, error);
+                return;
+            }
+
+            Map<String, Object> charge = new LinkedHashMap<>();
+            charge.put("id", "ch_stub_" + number);
+            charge.put("object", "charge");
+            charge.put("amount", amount);
+            charge.put("amount_captured", amount);
+            charge.put("captured", true);
+            charge.put("created", Instant.now().getEpochSecond());
+            charge.put("currency", params.get("currency").toLowerCase());
+            charge.put("description", params.get("description"));
+            charge.put("livemode", false);
+            charge.put("paid", true);
+            charge.put("status", "succeeded");
+            respond(exchange, 200, charge);
+        }
+    }
+
+    private static Map<String, String> readForm(InputStream body) throws IOException {
+        String form = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        Map<String, String> params = new HashMap<>();
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static Map<String, Object> error(String type, String code, String param, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", type);
+        error.put("code", code);
+        error.put("param", param);
+        error.put("message", message);
+        return error;
+    }
+
+    private void respondError(HttpExchange exchange, int status, Map<String, Object> error) throws IOException {
+        respond(exchange, status, Collections.singletonMap("error", error));
+    }
+
+    private void respond(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // A known length keeps the connection open for the next request
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private void sleep() {
+        if (latencyMillis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.amigoscode.testing.payment.velocity;
+
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentVelocityLimiterTest {
+
+    private PaymentVelocityLimiter underTest;
+
+    private final UUID customerId = UUID.randomUUID();
+
+    private final Money amount = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("payment.velocity.customer.max-count", "2")
+                .withProperty("payment.velocity.customer.max-amount.EUR", "100.00")
+                .withProperty("payment.velocity.card.max-count", "1");
+        underTest = new PaymentVelocityLimiter(VelocityLimits.from(environment, "customer"),
+                VelocityLimits.from(environment, "card"), 60, 100, 1000,
+                Clock.fixed(Instant.parse("2020-01-01T00:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void itShouldLetPaymentsThroughWithinLimits() {
+        // When
+        String rejection = underTest.tryAcquire(customerId, "card", amount);
+
+        // Then
+        assertThat(rejection).isNull();
+    }
+
+    @Test
+    void itShouldRejectWhenCustomerLimitIsReached() {
+        // Given
+        underTest.tryAcquire(customerId, "first", amount);
+        underTest.tryAcquire(customerId, "second", amount);
+
+        // When
+        String rejection = underTest.tryAcquire(customerId, "third", amount);
+
+        // Then
+        assertThat(rejection).isEqualTo(String.format(
+                "Too many payments for customer [%s] within [60] seconds.", customerId));
+        assertThat(underTest.getCustomerRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRejectWhenCardLimitIsReachedAndGiveBackCustomerSlot() {
+        // Given
+        underTest.tryAcquire(customerId, "card", amount);
+
+        // When
+        String rejection = underTest.tryAcquire(customerId, "card", amount);
+
+        // Then
+        assertThat(rejection).isEqualTo("Too many payments with this card within [60] seconds.");
+        assertThat(underTest.getCardRejections()).isEqualTo(1);
+        assertThat(underTest.tryAcquire(customerId, "other card", amount)).isNull();
+    }
+
+    @Test
+    void itShouldRejectWhenCustomerAmountLimitIsReached() {
+        // When
+        String rejection = underTest.tryAcquire(customerId, "card", Money.of(new BigDecimal("100.01"), Currency.EUR));
+
+        // Then
+        assertThat(rejection).startsWith("Too many payments for customer");
+    }
+
+    @Test
+    void itShouldGiveBackReleasedPayment() {
+        // Given
+        underTest.tryAcquire(customerId, "card", amount);
+
+        // When
+        underTest.release(customerId, "card", amount);
+
+        // Then
+        assertThat(underTest.tryAcquire(customerId, "card", amount)).isNull();
+    }
+}
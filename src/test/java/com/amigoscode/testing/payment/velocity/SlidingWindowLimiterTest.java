@@ -0,0 +1,183 @@
+package com.amigoscode.testing.payment.velocity;
+
+import com.amigoscode.testing.payment.Currency;
+import com.amigoscode.testing.payment.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowLimiterTest {
+
+    private static final long WINDOW_MILLIS = 1000;
+
+    private final Money tenEuros = Money.of(new BigDecimal("10.00"), Currency.EUR);
+
+    @Test
+    void itShouldRejectOnceMaxCountIsReached() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(2, Long.MAX_VALUE, 100);
+
+        // When
+        boolean first = underTest.tryAcquire("key", tenEuros, 0);
+        boolean second = underTest.tryAcquire("key", tenEuros, 10);
+        boolean third = underTest.tryAcquire("key", tenEuros, 20);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(underTest.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldCountKeysSeparately() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(1, Long.MAX_VALUE, 100);
+        underTest.tryAcquire("first", tenEuros, 0);
+
+        // When
+        boolean acquired = underTest.tryAcquire("second", tenEuros, 0);
+
+        // Then
+        assertThat(acquired).isTrue();
+    }
+
+    @Test
+    void itShouldRejectOnceMaxAmountIsReachedInThatCurrency() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(100, 2500, 100);
+        underTest.tryAcquire("key", tenEuros, 0);
+        underTest.tryAcquire("key", tenEuros, 0);
+
+        // When
+        boolean sameCurrency = underTest.tryAcquire("key", tenEuros, 0);
+        boolean otherCurrency = underTest.tryAcquire("key", Money.of(new BigDecimal("10.00"), Currency.GBP), 0);
+
+        // Then
+        assertThat(sameCurrency).isFalse();
+        assertThat(otherCurrency).isTrue();
+    }
+
+    @Test
+    void itShouldWeighPreviousWindowByItsOverlapWithSlidingWindow() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(4, Long.MAX_VALUE, 100);
+        for (int i = 0; i < 4; i++) {
+            underTest.tryAcquire("key", tenEuros, 900);
+        }
+
+        // When
+        // ... 90% of the previous window still overlaps, so 3.6 payments are counted
+        boolean mostlyOverlapping = underTest.tryAcquire("key", tenEuros, 1100);
+        // ... half of it, so 2 payments are counted
+        boolean halfOverlapping = underTest.tryAcquire("key", tenEuros, 1500);
+        boolean secondHalfOverlapping = underTest.tryAcquire("key", tenEuros, 1500);
+        boolean overLimit = underTest.tryAcquire("key", tenEuros, 1500);
+
+        // Then
+        assertThat(mostlyOverlapping).isFalse();
+        assertThat(halfOverlapping).isTrue();
+        assertThat(secondHalfOverlapping).isTrue();
+        assertThat(overLimit).isFalse();
+    }
+
+    @Test
+    void itShouldForgetPaymentsOlderThanTwoWindows() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(1, Long.MAX_VALUE, 100);
+        underTest.tryAcquire("key", tenEuros, 0);
+
+        // When
+        boolean acquired = underTest.tryAcquire("key", tenEuros, 2000);
+
+        // Then
+        assertThat(acquired).isTrue();
+    }
+
+    @Test
+    void itShouldReleaseAcquiredPayment() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(1, Long.MAX_VALUE, 100);
+        underTest.tryAcquire("key", tenEuros, 0);
+
+        // When
+        underTest.release("key", tenEuros, 0);
+
+        // Then
+        assertThat(underTest.tryAcquire("key", tenEuros, 0)).isTrue();
+    }
+
+    @Test
+    void itShouldEvictIdleKeys() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(10, Long.MAX_VALUE, 100);
+        underTest.tryAcquire("first", tenEuros, 0);
+        underTest.tryAcquire("second", tenEuros, 0);
+
+        underTest.tryAcquire("third", tenEuros, 1500);
+
+        // When
+        underTest.evictIdle(2000);
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldNotEvictKeysWhileAcquiring() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(10, Long.MAX_VALUE, 100);
+        underTest.tryAcquire("first", tenEuros, 0);
+
+        // When
+        underTest.tryAcquire("second", tenEuros, 2000);
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldLetNewKeysThroughUncountedWhenFull() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(1, Long.MAX_VALUE, 2);
+        underTest.tryAcquire("first", tenEuros, 0);
+        underTest.tryAcquire("second", tenEuros, 0);
+
+        // When
+        boolean acquired = underTest.tryAcquire("third", tenEuros, 0);
+        boolean acquiredAgain = underTest.tryAcquire("third", tenEuros, 0);
+
+        // Then
+        assertThat(acquired).isTrue();
+        assertThat(acquiredAgain).isTrue();
+        assertThat(underTest.size()).isEqualTo(2);
+        assertThat(underTest.getTableFull()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldTrackNewKeysOnceIdleKeysAreEvicted() {
+        // Given
+        SlidingWindowLimiter<String> underTest = limiter(1, Long.MAX_VALUE, 2);
+        underTest.tryAcquire("first", tenEuros, 0);
+        underTest.tryAcquire("second", tenEuros, 0);
+        underTest.evictIdle(2000);
+
+        // When
+        boolean acquired = underTest.tryAcquire("third", tenEuros, 2000);
+        boolean acquiredAgain = underTest.tryAcquire("third", tenEuros, 2000);
+
+        // Then
+        assertThat(acquired).isTrue();
+        assertThat(acquiredAgain).isFalse();
+        assertThat(underTest.size()).isEqualTo(1);
+    }
+
+    private static SlidingWindowLimiter<String> limiter(int maxCount, long maxMinorUnits, int maxKeys) {
+        long[] maxMinorUnitsPerCurrency = new long[Currency.values().length];
+        Arrays.fill(maxMinorUnitsPerCurrency, maxMinorUnits);
+        return new SlidingWindowLimiter<>(new VelocityLimits(maxCount, maxMinorUnitsPerCurrency), WINDOW_MILLIS, maxKeys);
+    }
+}
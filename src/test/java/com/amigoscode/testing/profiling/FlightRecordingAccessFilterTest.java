@@ -0,0 +1,76 @@
+package com.amigoscode.testing.profiling;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecordingAccessFilterTest {
+
+    private final FlightRecordingAccessFilter underTest = new FlightRecordingAccessFilter("X-Profiling-Token", "secret");
+
+    @Test
+    void itShouldLetRequestsWithTheTokenThrough() throws Exception {
+        // Given
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("/api/v1/profiling/recording/dump", "secret"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void itShouldRejectRequestsWithoutTheToken() throws Exception {
+        // Given
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("/api/v1//profiling/recording/dump", "guess"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void itShouldHideProfilingEndpointsWhenNoTokenIsConfigured() throws Exception {
+        // Given
+        FlightRecordingAccessFilter underTest = new FlightRecordingAccessFilter("X-Profiling-Token", "");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("/api/v1/profiling/recording", ""), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void itShouldNotGuardOtherEndpoints() throws Exception {
+        // Given
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        underTest.doFilter(request("/api/v1/payment/batch", null), new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    private static MockHttpServletRequest request(String path, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (token != null) {
+            request.addHeader("X-Profiling-Token", token);
+        }
+        return request;
+    }
+}
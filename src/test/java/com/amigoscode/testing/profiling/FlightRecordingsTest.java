@@ -0,0 +1,166 @@
+package com.amigoscode.testing.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.Repository;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightRecordingsTest {
+
+    @TempDir
+    Path dumpDirectory;
+
+    private FlightRecordings underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = recordings(dumpDirectory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    @Test
+    void itShouldDumpRepositoryCallEventsWhenStopped() throws Exception {
+        // Given
+        underTest.start();
+        NamedRepository repository = repository();
+        repository.findName();
+        assertThatThrownBy(repository::failName).isInstanceOf(IllegalArgumentException.class);
+
+        // When
+        FlightRecordingStatus status = underTest.stop();
+
+        // Then
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.getLastDump())
+                .isEqualTo(dumpDirectory.resolve("recording-20261018-101530-123.jfr").toString());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(Paths.get(status.getLastDump())).stream()
+                .filter(event -> event.getEventType().getName().equals("com.amigoscode.testing.RepositoryCall"))
+                .filter(event -> event.getString("repository").equals("namedRepository"))
+                .collect(Collectors.toList());
+        assertThat(events).extracting(event -> event.getString("method") + " " + event.getString("outcome"))
+                .containsExactly("findName OK", "failName IllegalArgumentException");
+    }
+
+    @Test
+    void itShouldKeepRecordingAfterDump() {
+        // Given
+        underTest.start();
+
+        // When
+        FlightRecordingStatus status = underTest.dump();
+
+        // Then
+        assertThat(status.isRunning()).isTrue();
+        assertThat(Paths.get(status.getLastDump())).exists();
+    }
+
+    @Test
+    void itShouldKeepOnlyTheLastDumps() throws Exception {
+        // Given
+        Files.createFile(dumpDirectory.resolve("recording-20261016-090000-000.jfr"));
+        Files.createFile(dumpDirectory.resolve("recording-20261017-090000-000.jfr"));
+        Files.createFile(dumpDirectory.resolve("notes.txt"));
+        underTest.start();
+
+        // When
+        underTest.dump();
+
+        // Then
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("recording-20261017-090000-000.jfr",
+                            "recording-20261018-101530-123.jfr", "notes.txt");
+        }
+    }
+
+    @Test
+    void itShouldCloseRecordingWhenStopDumpFails() throws Exception {
+        // Given
+        Path notADirectory = Files.createFile(dumpDirectory.resolve("not-a-directory"));
+        underTest = recordings(notADirectory);
+        underTest.start();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.stop())
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("Could not dump the flight recording");
+        assertThat(underTest.getStatus().isRunning()).isFalse();
+    }
+
+    @Test
+    void itShouldNotStartTwoRecordings() {
+        // Given
+        underTest.start();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.start())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("already running");
+    }
+
+    @Test
+    void itShouldThrowWhenStoppingWithoutRecording() {
+        // Given
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.stop())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("No flight recording is running.");
+        assertThat(underTest.getStatus().isRunning()).isFalse();
+    }
+
+    private static FlightRecordings recordings(Path dumpDirectory) {
+        return new FlightRecordings("default", Duration.ofMinutes(1), 10 * 1024 * 1024, dumpDirectory, 2, false,
+                Clock.fixed(Instant.parse("2026-10-18T10:15:30.123Z"), ZoneOffset.UTC));
+    }
+
+    private static NamedRepository repository() {
+        ProxyFactory proxyFactory = new ProxyFactory(new NamedRepository() {
+            @Override
+            public String findName() {
+                return "name";
+            }
+
+            @Override
+            public String failName() {
+                throw new IllegalArgumentException("no name");
+            }
+        });
+        proxyFactory.addInterface(NamedRepository.class);
+        NamedRepository proxy = (NamedRepository) proxyFactory.getProxy();
+        return (NamedRepository) new RepositoryCallEventsProcessor()
+                .postProcessAfterInitialization(proxy, "namedRepository");
+    }
+
+    interface NamedRepository extends Repository<Object, Long> {
+
+        String findName();
+
+        String failName();
+    }
+}
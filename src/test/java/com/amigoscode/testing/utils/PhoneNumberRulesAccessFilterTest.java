@@ -0,0 +1,64 @@
+package com.amigoscode.testing.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhoneNumberRulesAccessFilterTest {
+
+    private final PhoneNumberRulesAccessFilter underTest = new PhoneNumberRulesAccessFilter("X-Admin-Token", "secret");
+
+    @Test
+    void itShouldLetReloadWithTheTokenThrough() throws Exception {
+        // Given
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("/api/v1/phone-number-rules/reload", "secret"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void itShouldRejectReloadWithoutTheToken() throws Exception {
+        // Given
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("/api/v1/phone-number-rules/reload", null), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void itShouldHideReloadWhenNoTokenIsConfigured() throws Exception {
+        // Given
+        PhoneNumberRulesAccessFilter underTest = new PhoneNumberRulesAccessFilter("X-Admin-Token", "");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("/api/v1/phone-number-rules/reload", ""), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    private static MockHttpServletRequest request(String path, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (token != null) {
+            request.addHeader("X-Admin-Token", token);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.amigoscode.testing.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhoneNumberRulesTest {
+
+    @Test
+    void itShouldLoadRulesFromData() throws IOException {
+        // Given
+        String data = "# comment\n" +
+                "\n" +
+                "1,NANP,10,10,2-9\n" +
+                "7,RU,10,10,3 4 8-9\n" +
+                "212,MA,9,9\n";
+
+        // When
+        PhoneNumberRules underTest = load(data);
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(5);
+        assertThat(underTest.test("+12125550123")).isTrue();
+        assertThat(underTest.test("+74951234567")).isTrue();
+        assertThat(underTest.test("+79161234567")).isTrue();
+        assertThat(underTest.test("+75161234567")).isFalse();
+        assertThat(underTest.test("+212612345678")).isTrue();
+        assertThat(underTest.test("+21612345678")).isFalse();
+    }
+
+    @Test
+    void itShouldMatchAnyOfSeveralRulesForTheSameCallingCode() {
+        // Given
+        PhoneNumberRules underTest = new PhoneNumberRules.Builder()
+                .add("7", 10, 10, "3", "9")
+                .add("7", 10, 10, "70", "77")
+                .build();
+
+        // When
+        // Then
+        assertThat(underTest.test("+73123456789")).isTrue();
+        assertThat(underTest.test("+77012345678")).isTrue();
+        assertThat(underTest.test("+78012345678")).isTrue();
+        assertThat(underTest.test("+71012345678")).isFalse();
+    }
+
+    @Test
+    void itShouldRejectInvalidLines() {
+        // When
+        // Then
+        assertThatThrownBy(() -> load("33,FR,9\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid phone number rule at line [1]: 33,FR,9");
+        assertThatThrownBy(() -> load("33,FR,nine,9\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid phone number rule at line [1]: 33,FR,nine,9");
+    }
+
+    @Test
+    void itShouldRejectCallingCodesThatArePrefixesOfEachOther() {
+        // When
+        // Then
+        assertThatThrownBy(() -> new PhoneNumberRules.Builder().add("3", 9, 9, "", "").add("33", 9, 9, "", ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Calling code [33] is shadowed by a shorter calling code.");
+        assertThatThrownBy(() -> new PhoneNumberRules.Builder().add("33", 9, 9, "", "").add("3", 9, 9, "", ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Calling code [3] shadows a longer calling code.");
+    }
+
+    @Test
+    void itShouldRejectInvalidRanges() {
+        // When
+        // Then
+        assertThatThrownBy(() -> new PhoneNumberRules.Builder().add("33", 9, 8, "", ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Length range [9-8] is not valid.");
+        assertThatThrownBy(() -> new PhoneNumberRules.Builder().add("33", 9, 9, "9", "1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Leading digits range [9-1] is not valid.");
+        assertThatThrownBy(() -> new PhoneNumberRules.Builder().add("3333", 9, 9, "", ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Calling code [3333] must be 1 to 3 digits.");
+    }
+
+    private static PhoneNumberRules load(String data) throws IOException {
+        return PhoneNumberRules.load(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)));
+    }
+}
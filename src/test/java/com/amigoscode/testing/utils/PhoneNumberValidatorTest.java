@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -21,7 +22,16 @@ public class PhoneNumberValidatorTest {
     @CsvSource({
             "+33600000000, true, Correct phone number",
             "+33612345678911, false, Length is bigger than 13",
-            "33612345678, false, Phone does not start with +"
+            "33612345678, false, Phone does not start with +",
+            "+33060000000, false, French national number starts with 0",
+            "+14155550123, true, Correct NANP phone number",
+            "+10155550123, false, NANP area code starts with 0",
+            "+447911123456, true, Correct UK mobile number",
+            "+5731012345678, false, Colombian number is too long",
+            "+573101234567, true, Correct Colombian mobile number",
+            "+999123456789, false, Calling code is not assigned",
+            "+3360000000a, false, Phone contains a letter",
+            "+, false, Phone has no digits"
     })
     void itShouldValidatePhoneNumber(String phoneNumber, boolean expected, String description) {
         // When
@@ -43,4 +53,43 @@ public class PhoneNumberValidatorTest {
         // Then
         assertThat(isValid).isFalse();
     }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    void itShouldNotValidateMissingPhoneNumber(String phoneNumber) {
+        // When
+        boolean isValid = underTest.test(phoneNumber);
+
+        // Then
+        assertThat(isValid).isFalse();
+    }
+
+    @Test
+    void itShouldValidateWithReplacedRules() {
+        // Given
+        PhoneNumberRules rules = new PhoneNumberRules.Builder()
+                .add("33", 9, 9, "6", "7")
+                .build();
+
+        // When
+        underTest.replaceRules(rules);
+
+        // Then
+        assertThat(underTest.test("+33600000000")).isTrue();
+        assertThat(underTest.test("+33100000000")).isFalse();
+        assertThat(underTest.test("+14155550123")).isFalse();
+    }
+
+    @Test
+    void itShouldRestoreRulesFromResourceOnReload() {
+        // Given
+        underTest.replaceRules(new PhoneNumberRules.Builder().build());
+
+        // When
+        PhoneNumberRules rules = underTest.reload();
+
+        // Then
+        assertThat(rules.size()).isGreaterThan(200);
+        assertThat(underTest.test("+33600000000")).isTrue();
+    }
 }